@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.srt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.me.parabola.mkgmap.srt.SrtTextReader;
+
+/**
+ * Measure the creation of sort keys for street-name like strings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SortKeyBenchmark {
+	private static final String[] WORDS = { "Main", "High", "Station", "Church", "Mill", "Park", "Königs",
+			"Straße", "Road", "Street", "Lane", "Allée", "Çarşı", "Østre", "St.", "Old", "New", "Bridge" };
+
+	@Param({"1252", "65001"})
+	public int codepage;
+
+	private Sort sort;
+	private final List<String> names = new ArrayList<>();
+
+	@Setup
+	public void setup() {
+		sort = SrtTextReader.sortForCodepage(codepage);
+		Random rnd = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			StringBuilder sb = new StringBuilder();
+			int n = 1 + rnd.nextInt(3);
+			for (int j = 0; j < n; j++) {
+				if (j > 0)
+					sb.append(' ');
+				sb.append(WORDS[rnd.nextInt(WORDS.length)]);
+			}
+			if (rnd.nextInt(4) == 0)
+				sb.append(' ').append(rnd.nextInt(200));
+			names.add(sb.toString());
+		}
+	}
+
+	@Benchmark
+	public void createSortKey(Blackhole bh) {
+		for (String name : names)
+			bh.consume(sort.createSortKey(null, name));
+	}
+}
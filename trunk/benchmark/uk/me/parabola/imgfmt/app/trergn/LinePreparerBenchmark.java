@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.trergn;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.me.parabola.imgfmt.app.Area;
+import uk.me.parabola.imgfmt.app.Coord;
+import uk.me.parabola.imgfmt.app.lbl.LBLFile;
+import uk.me.parabola.imgfmt.app.net.NETFile;
+import uk.me.parabola.imgfmt.app.net.NODFile;
+
+/**
+ * Measure the bit stream encoding of lines. The lines are random walks
+ * with a given maximum step size in a level 0 subdivision.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LinePreparerBenchmark {
+	private static final int NUM_LINES = 1000;
+
+	@Param({"100"})
+	public int numPoints;
+
+	@Param({"16", "2000"})
+	public int maxStep;
+
+	private final List<Polyline> lines = new ArrayList<>();
+
+	@Setup
+	public void setup() {
+		Area area = new Area(2000000, 0, 2100000, 100000);
+		InternalFiles files = new InternalFiles() {
+			public RGNFile getRgnFile() { return null; }
+			public LBLFile getLblFile() { return null; }
+			public TREFile getTreFile() { return null; }
+			public NETFile getNetFile() { return null; }
+			public NODFile getNodFile() { return null; }
+		};
+		Subdivision div = Subdivision.topLevelSubdivision(files, area, new Zoom(0, 24));
+		Random rnd = new Random(42);
+		for (int i = 0; i < NUM_LINES; i++) {
+			Polyline line = new Polyline(div);
+			int lat = area.getCenter().getLatitude();
+			int lon = area.getCenter().getLongitude();
+			for (int j = 0; j < numPoints; j++) {
+				line.addCoord(new Coord(lat, lon));
+				lat += rnd.nextInt(2 * maxStep + 1) - maxStep;
+				lon += rnd.nextInt(2 * maxStep + 1) - maxStep;
+			}
+			lines.add(line);
+		}
+	}
+
+	@Benchmark
+	public void makeShortestBitStream(Blackhole bh) {
+		for (Polyline line : lines)
+			bh.consume(new LinePreparer(line).makeShortestBitStream(2));
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.log;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measure debug calls when debug logging is disabled, as in a normal run.
+ * Run with the gc profiler to see the allocations per call:
+ * <pre>
+ * ant benchmark -Dbenchmark.args="LoggerBenchmark -prof gc"
+ * </pre>
+ * The varargs case is what the calls with two arguments compiled to before
+ * there were methods with a fixed number of arguments. It allocates the
+ * array on each call unless the JIT can inline the call and remove it.
+ * The other cases allocate nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoggerBenchmark {
+	private static final Logger log = Logger.getLogger(LoggerBenchmark.class);
+
+	private final Object way = new Object() {
+		public String toString() {
+			return "Way 4711";
+		}
+	};
+
+	@Benchmark
+	public void varargs() {
+		log.debug(new Object[] {"removing", way});
+	}
+
+	@Benchmark
+	public void fixedArgs() {
+		log.debug("removing", way);
+	}
+
+	@Benchmark
+	public void supplier() {
+		log.debug(() -> "removing " + way);
+	}
+
+	@Benchmark
+	public void guarded() {
+		if (log.isDebugEnabled())
+			log.debug("removing " + way);
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.filters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.me.parabola.imgfmt.app.Coord;
+import uk.me.parabola.mkgmap.general.MapShape;
+
+/**
+ * Measure the merging of a grid of adjacent squares. Each row of squares
+ * has its own type, so each row is merged to one shape.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ShapeMergeFilterBenchmark {
+	private static final int SIZE = 8;
+
+	@Param({"4"})
+	public int rows;
+
+	@Param({"100", "1000"})
+	public int squaresPerRow;
+
+	private final List<MapShape> shapes = new ArrayList<>();
+
+	@Setup
+	public void setup() {
+		for (int row = 0; row < rows; row++) {
+			List<Coord> lower = new ArrayList<>();
+			List<Coord> upper = new ArrayList<>();
+			for (int i = 0; i <= squaresPerRow; i++) {
+				lower.add(Coord.makeHighPrecCoord(row * SIZE, i * SIZE));
+				upper.add(Coord.makeHighPrecCoord(row * SIZE + SIZE, i * SIZE));
+			}
+			for (int i = 0; i < squaresPerRow; i++) {
+				MapShape s = new MapShape(i + 1 + row * squaresPerRow);
+				s.setType(row + 1);
+				s.setMinResolution(24);
+				s.setPoints(Arrays.asList(lower.get(i), upper.get(i), upper.get(i + 1), lower.get(i + 1), lower.get(i)));
+				shapes.add(s);
+			}
+		}
+		Collections.shuffle(shapes, new Random(42));
+	}
+
+	@Benchmark
+	public List<MapShape> merge() {
+		return new ShapeMergeFilter(-1, false).merge(shapes);
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.osmstyle;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.me.parabola.imgfmt.Utils;
+import uk.me.parabola.mkgmap.reader.osm.ElementSaver;
+import uk.me.parabola.mkgmap.reader.osm.Node;
+import uk.me.parabola.mkgmap.reader.osm.OsmReadingHooks;
+import uk.me.parabola.mkgmap.reader.osm.Rule;
+import uk.me.parabola.mkgmap.reader.osm.Style;
+import uk.me.parabola.mkgmap.reader.osm.TypeResult;
+import uk.me.parabola.mkgmap.reader.osm.Way;
+import uk.me.parabola.mkgmap.reader.osm.xml.OsmXmlHandler;
+import uk.me.parabola.util.EnhancedProperties;
+
+/**
+ * Measure the rule matching of the default style for the tagged nodes
+ * and ways of an OSM file.
+ * The elements are copied before they are passed to the rules because
+ * the actions of the style modify the tags.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RuleSetBenchmark {
+	@Param("test/resources/in/osm/uk-test-1.osm.gz")
+	public String file;
+
+	private Rule wayRules;
+	private Rule nodeRules;
+	private final List<Way> ways = new ArrayList<>();
+	private final List<Node> nodes = new ArrayList<>();
+
+	@Setup
+	public void setup() throws Exception {
+		Style style = new StyleImpl(null, "default");
+		wayRules = style.getWayRules();
+		nodeRules = style.getNodeRules();
+
+		ElementSaver saver = new ElementSaver(new EnhancedProperties());
+		OsmXmlHandler handler = new OsmXmlHandler();
+		handler.setElementSaver(saver);
+		handler.setHooks(new OsmReadingHooks() {});
+		try (InputStream is = Utils.openFile(file)) {
+			handler.parse(is);
+		}
+		for (Way w : saver.getWays().values()) {
+			if (w.getTagCount() > 0)
+				ways.add(w);
+		}
+		for (Node n : saver.getNodes().values()) {
+			if (n.getTagCount() > 0)
+				nodes.add(n);
+		}
+	}
+
+	@Benchmark
+	public void resolveWays(Blackhole bh) {
+		TypeResult result = (el, type) -> bh.consume(type);
+		for (Way w : ways)
+			wayRules.resolveType(w.copy(), result);
+	}
+
+	@Benchmark
+	public void resolveNodes(Blackhole bh) {
+		TypeResult result = (el, type) -> bh.consume(type);
+		for (Node n : nodes)
+			nodeRules.resolveType(n.copy(), result);
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.hgt;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.me.parabola.imgfmt.app.Area;
+import uk.me.parabola.imgfmt.app.dem.DEMFile;
+
+/**
+ * Measure the calculation of DEM heights from the hgt test files in the
+ * same way as a DEM section does it: one call of getHeights() for each
+ * tile of 64x64 points.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HGTConverterBenchmark {
+	private static final int TILE_DIM = 64;
+
+	@Param("test/resources/in/hgt")
+	public String hgtPath;
+
+	/** distance between DEM points, 3314 is roughly 1 arc second */
+	@Param({"3314", "9942"})
+	public int pointDist;
+
+	@Param({"AUTOMATIC", "BILINEAR", "BICUBIC"})
+	public HGTConverter.InterpolationMethod interpolation;
+
+	private HGTConverter converter;
+	private Area bbox;
+
+	@Setup
+	public void setup() {
+		bbox = new Area(-1.04296875, -90.9, 0.0, -90.0);
+		converter = new HGTConverter(hgtPath, bbox, null, DEMFile.EXTRA);
+		converter.setInterpolationMethod(interpolation);
+		converter.startNewLevel(pointDist);
+	}
+
+	@Benchmark
+	public void getHeights(Blackhole bh) {
+		int top = bbox.getMaxLat() * 256;
+		int left = bbox.getMinLong() * 256;
+		int bottom = bbox.getMinLat() * 256;
+		int right = bbox.getMaxLong() * 256;
+		int step = TILE_DIM * pointDist;
+		for (int lat = top; lat > bottom; lat -= step) {
+			for (int lon = left; lon < right; lon += step) {
+				bh.consume(converter.getHeights(lat, lon, TILE_DIM, TILE_DIM));
+			}
+		}
+	}
+}
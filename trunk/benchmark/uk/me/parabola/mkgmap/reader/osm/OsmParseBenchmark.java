@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.me.parabola.imgfmt.Utils;
+import uk.me.parabola.mkgmap.reader.osm.bin.OsmBinHandler;
+import uk.me.parabola.mkgmap.reader.osm.o5m.O5mBinHandler;
+import uk.me.parabola.mkgmap.reader.osm.xml.OsmXmlHandler;
+import uk.me.parabola.util.EnhancedProperties;
+
+/**
+ * Measure the parsing of an OSM file into an {@link ElementSaver}.
+ * The handler is selected by the file name in the same way as in
+ * {@link OsmMapDataSource}, so pass an .o5m or .pbf file with
+ * <code>-p file=...</code> to measure the binary formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OsmParseBenchmark {
+	@Param("test/resources/in/osm/uk-test-1.osm.gz")
+	public String file;
+
+	@Benchmark
+	public ElementSaver parse() throws Exception {
+		OsmHandler handler = createHandler(file);
+		ElementSaver saver = new ElementSaver(new EnhancedProperties());
+		handler.setElementSaver(saver);
+		handler.setHooks(new OsmReadingHooks() {});
+		try (InputStream is = Utils.openFile(file)) {
+			handler.parse(is);
+		}
+		return saver;
+	}
+
+	private static OsmHandler createHandler(String name) {
+		OsmHandler[] handlers = { new OsmBinHandler(), new O5mBinHandler(), new OsmXmlHandler() };
+		for (OsmHandler h : handlers) {
+			if (h.isFileSupported(name))
+				return h;
+		}
+		throw new IllegalArgumentException("unsupported file " + name);
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm.boundary;
+
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import uk.me.parabola.imgfmt.app.Coord;
+import uk.me.parabola.mkgmap.reader.osm.Tags;
+
+/**
+ * Measure the lookup of location tags in a boundary quadtree. By default
+ * a tree with synthetic nested boundaries is used, a real one can be
+ * selected with <code>-p boundaryDir=... -p boundaryFile=bnd_....bnd</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BoundaryQuadTreeBenchmark {
+	private static final int NUM_POINTS = 10000;
+	private static final int SIZE = 1 << 16;
+
+	@Param("")
+	public String boundaryDir;
+
+	@Param("")
+	public String boundaryFile;
+
+	private BoundaryQuadTree tree;
+	private final List<Coord> points = new ArrayList<>();
+
+	@Setup
+	public void setup() {
+		uk.me.parabola.imgfmt.app.Area bbox;
+		if (boundaryDir.isEmpty()) {
+			bbox = new uk.me.parabola.imgfmt.app.Area(0, 0, SIZE, SIZE);
+			tree = new BoundaryQuadTree(bbox, createBoundaries(), null);
+		} else {
+			bbox = BoundaryUtil.getBbox(boundaryFile);
+			tree = BoundaryUtil.loadQuadTree(boundaryDir, boundaryFile);
+		}
+		Random rnd = new Random(42);
+		for (int i = 0; i < NUM_POINTS; i++) {
+			points.add(new Coord(bbox.getMinLat() + rnd.nextInt(bbox.getHeight()),
+					bbox.getMinLong() + rnd.nextInt(bbox.getWidth())));
+		}
+	}
+
+	/**
+	 * Create a country, 4x4 states and 16x16 districts with the shape of a 16-gon.
+	 */
+	private static List<Boundary> createBoundaries() {
+		List<Boundary> boundaries = new ArrayList<>();
+		Tags country = new Tags();
+		country.put("admin_level", "2");
+		country.put("name", "Country");
+		boundaries.add(new Boundary(new Area(new Rectangle2D.Double(0, 0, SIZE, SIZE)), country, "r1"));
+		int stateSize = SIZE / 4;
+		int districtSize = SIZE / 16;
+		for (int i = 0; i < 16; i++) {
+			Tags state = new Tags();
+			state.put("admin_level", "4");
+			state.put("name", "State " + i);
+			Area a = new Area(new Rectangle2D.Double((i % 4) * stateSize, (i / 4) * stateSize, stateSize, stateSize));
+			boundaries.add(new Boundary(a, state, "r" + (i + 10)));
+		}
+		for (int i = 0; i < 256; i++) {
+			Tags district = new Tags();
+			district.put("admin_level", "6");
+			district.put("name", "District " + i);
+			district.put("postal_code", String.valueOf(10000 + i));
+			Area a = new Area(createPolygon((i % 16 + 0.5) * districtSize, (i / 16 + 0.5) * districtSize, districtSize / 2.0));
+			boundaries.add(new Boundary(a, district, "r" + (i + 100)));
+		}
+		return boundaries;
+	}
+
+	private static Path2D.Double createPolygon(double cx, double cy, double r) {
+		Path2D.Double path = new Path2D.Double();
+		for (int i = 0; i < 16; i++) {
+			double x = cx + r * Math.cos(i * Math.PI / 8);
+			double y = cy + r * Math.sin(i * Math.PI / 8);
+			if (i == 0)
+				path.moveTo(x, y);
+			else
+				path.lineTo(x, y);
+		}
+		path.closePath();
+		return path;
+	}
+
+	@Benchmark
+	public void get(Blackhole bh) {
+		for (Coord co : points)
+			bh.consume(tree.get(co));
+	}
+}
@@ -248,6 +248,14 @@ public class BufferedImgFileReader implements ImgFileReader {
 	 * @return A phone number possibly containing the delimiter character.
 	 */
 	public String getBase11str(byte firstChar, char delimiter) {
+		return readBase11str(this, firstChar, delimiter);
+	}
+
+	/**
+	 * Implementation of {@link ImgFileReader#getBase11str} that is shared
+	 * by the readers.
+	 */
+	static String readBase11str(ImgFileReader reader, byte firstChar, char delimiter) {
 		// NB totally untested.
 		StringBuilder str11 = new StringBuilder();
 		int term = 2;
@@ -260,7 +268,7 @@ public class BufferedImgFileReader implements ImgFileReader {
 				--term;
 			str11.append(base(ch & 0x7F, 11, 2));
 			if (term != 0)
-				ch = get();
+				ch = reader.get();
 		} while (term != 0);
 
 		// Remove any trailing delimiters
@@ -277,7 +285,7 @@ public class BufferedImgFileReader implements ImgFileReader {
 		return str11.toString();
 	}
 
-	private String base(int inNum, int base, int width) {
+	private static String base(int inNum, int base, int width) {
 		int num = inNum;
 		StringBuilder val = new StringBuilder();
 
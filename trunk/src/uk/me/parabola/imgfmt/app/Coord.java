@@ -701,6 +701,33 @@ public class Coord implements Comparable<Coord> {
 	public int getHighPrecLon() {
 		return (longitude << DELTA_SHIFT) - (int) lonDelta;
 	}
+
+	/**
+	 * @return The latitude in map units and the delta to the high precision
+	 * value packed into one int, see {@link #makePackedCoord(int, int)}.
+	 */
+	public int getPackedLat() {
+		return (latitude << 8) | (latDelta & 0xff);
+	}
+
+	/**
+	 * @return The longitude in map units and the delta to the high precision
+	 * value packed into one int, see {@link #makePackedCoord(int, int)}.
+	 */
+	public int getPackedLon() {
+		return (longitude << 8) | (lonDelta & 0xff);
+	}
+
+	/**
+	 * Create a Coord from the packed values. Unlike {@link #makeHighPrecCoord(int, int)}
+	 * the result has exactly the same map units as the original.
+	 * @param packedLat value returned by {@link #getPackedLat()}
+	 * @param packedLon value returned by {@link #getPackedLon()}
+	 * @return Coord instance
+	 */
+	public static Coord makePackedCoord(int packedLat, int packedLon) {
+		return new Coord(packedLat >> 8, packedLon >> 8, (byte) packedLat, (byte) packedLon);
+	}
 	
 	/**
 	 * @return latitude in degrees with highest avail. precision
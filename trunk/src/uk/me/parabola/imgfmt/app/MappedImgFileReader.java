@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import uk.me.parabola.imgfmt.MapFailedException;
+import uk.me.parabola.imgfmt.ReadFailedException;
+import uk.me.parabola.imgfmt.fs.ImgChannel;
+
+/**
+ * Read from an img file that is available as a read only buffer, normally a
+ * slice of the memory mapped img file. Nothing is copied, random access is
+ * as fast as sequential access.
+ * <p>
+ * Reads past the end of the file return 0 like {@link BufferedImgFileReader}.
+ */
+public class MappedImgFileReader implements ImgFileReader {
+	private final ImgChannel chan;
+	private ByteBuffer buf;
+	private final int size;
+
+	private long position;
+	// the position of the header, normally 0, but not in GMP format
+	private final int gmpOffset;
+
+	public MappedImgFileReader(ImgChannel chan, ByteBuffer buf, int gmpOffset) {
+		this.chan = chan;
+		this.buf = buf.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		this.size = buf.limit();
+		this.gmpOffset = gmpOffset;
+	}
+
+	/**
+	 * Create a reader for the channel. The reader works on the mapped file
+	 * if the channel supports it, else it is a {@link BufferedImgFileReader}.
+	 *
+	 * @param chan The channel to read from.
+	 * @param gmpOffset The position of the header, 0 if not a GMP file.
+	 * @return The reader.
+	 */
+	public static ImgFileReader create(ImgChannel chan, int gmpOffset) {
+		ByteBuffer buf = chan.mapReadOnly();
+		if (buf == null)
+			return new BufferedImgFileReader(chan, gmpOffset);
+		return new MappedImgFileReader(chan, buf, gmpOffset);
+	}
+
+	public static ImgFileReader create(ImgChannel chan) {
+		return create(chan, 0);
+	}
+
+	@Override
+	public int getGMPOffset() {
+		return gmpOffset;
+	}
+
+	@Override
+	public void close() throws IOException {
+		// the mapping can only be released when no buffer refers to it
+		buf = null;
+		chan.close();
+	}
+
+	@Override
+	public long position() {
+		return position;
+	}
+
+	@Override
+	public void position(long pos) {
+		position = pos;
+	}
+
+	/**
+	 * @return true if n bytes are available at the current position.
+	 */
+	private boolean available(int n) {
+		return position >= 0 && position + n <= size;
+	}
+
+	@Override
+	public byte get() throws ReadFailedException {
+		if (!available(1))
+			return 0;
+		return buf.get((int) position++);
+	}
+
+	@Override
+	public int get1s() throws ReadFailedException {
+		return get();
+	}
+
+	@Override
+	public int get2s() throws ReadFailedException {
+		if (!available(2))
+			return (get() & 0xff) | (get() << 8);
+		int val = buf.getShort((int) position);
+		position += 2;
+		return val;
+	}
+
+	@Override
+	public int get3s() throws ReadFailedException {
+		return (get3u() << 8) >> 8;
+	}
+
+	@Override
+	public int get1u() throws ReadFailedException {
+		return get() & 0xff;
+	}
+
+	@Override
+	public int get2u() throws ReadFailedException {
+		return get2s() & 0xffff;
+	}
+
+	@Override
+	public int get3u() throws ReadFailedException {
+		int val = get2u();
+		return val | ((get() & 0xff) << 16);
+	}
+
+	@Override
+	public int getNu(int nBytes) throws ReadFailedException {
+		switch (nBytes) {
+		case 1: return get1u();
+		case 2: return get2u();
+		case 3: return get3u();
+		case 4: return get4();
+		default: // this is a programming error so exit
+			throw new MapFailedException("bad integer size " + nBytes);
+		}
+	}
+
+	@Override
+	public int get4() throws ReadFailedException {
+		if (!available(4))
+			return get2u() | (get2u() << 16);
+		int val = buf.getInt((int) position);
+		position += 4;
+		return val;
+	}
+
+	@Override
+	public byte[] get(int len) throws ReadFailedException {
+		byte[] bytes = new byte[len];
+		if (available(len)) {
+			ByteBuffer dup = buf.duplicate();
+			dup.position((int) position);
+			dup.get(bytes);
+			position += len;
+		} else {
+			for (int i = 0; i < len; i++)
+				bytes[i] = get();
+		}
+		return bytes;
+	}
+
+	@Override
+	public byte[] getZString() throws ReadFailedException {
+		long start = position;
+		int len = 0;
+		while (available(len + 1) && buf.get((int) (start + len)) != 0)
+			len++;
+		byte[] bytes = get(len);
+		get(); // the terminating zero
+		return bytes;
+	}
+
+	@Override
+	public String getBase11str(byte firstChar, char delimiter) {
+		return BufferedImgFileReader.readBase11str(this, firstChar, delimiter);
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.dem;
+
+import java.util.Arrays;
+
+/**
+ * Collects the bit stream of a DEM tile, MSB first. The bits are added to
+ * a long and written to the buffer a byte at a time, so that a number of
+ * bits can be added with one call.
+ * <p>
+ * There is one writer per thread, the buffer is used again for the next tile.
+ */
+final class DEMBitWriter {
+	// the most bits that can be added with one call
+	static final int MAX_BITS = 56;
+
+	private static final ThreadLocal<DEMBitWriter> writers = ThreadLocal.withInitial(DEMBitWriter::new);
+
+	private byte[] buf = new byte[1024];
+	private int len;
+	private long acc;
+	// number of bits in acc that are not yet in buf, 0..7
+	private int accBits;
+
+	private DEMBitWriter() {
+	}
+
+	/**
+	 * @return The writer of this thread, empty.
+	 */
+	static DEMBitWriter get() {
+		DEMBitWriter w = writers.get();
+		w.len = 0;
+		w.acc = 0;
+		w.accBits = 0;
+		return w;
+	}
+
+	/**
+	 * Add the lowest bits of the value, the highest of them first.
+	 * @param val The value, the other bits must be 0.
+	 * @param numBits The number of bits, at most {@link #MAX_BITS}.
+	 */
+	void put(long val, int numBits) {
+		acc = (acc << numBits) | val;
+		accBits += numBits;
+		if (len + 8 > buf.length)
+			buf = Arrays.copyOf(buf, buf.length * 2);
+		while (accBits >= 8) {
+			accBits -= 8;
+			buf[len++] = (byte) (acc >>> accBits);
+		}
+	}
+
+	void putBit(boolean bit) {
+		put(bit ? 1 : 0, 1);
+	}
+
+	/**
+	 * Add any number of 0 bits.
+	 */
+	void putZeros(int numBits) {
+		int n = numBits;
+		while (n > MAX_BITS) {
+			put(0, MAX_BITS);
+			n -= MAX_BITS;
+		}
+		put(0, n);
+	}
+
+	/**
+	 * @return The bits, the last byte filled with 0 bits.
+	 */
+	byte[] toByteArray() {
+		byte[] res = Arrays.copyOf(buf, len + (accBits > 0 ? 1 : 0));
+		if (accBits > 0)
+			res[len] = (byte) (acc << (8 - accBits));
+		return res;
+	}
+}
@@ -12,8 +12,6 @@
  */ 
 package uk.me.parabola.imgfmt.app.dem;
 
-import java.io.ByteArrayOutputStream;
-
 import uk.me.parabola.imgfmt.MapFailedException;
 import uk.me.parabola.imgfmt.app.ImgFileWriter;
 import uk.me.parabola.mkgmap.reader.hgt.HGTReader;
@@ -34,7 +32,7 @@ import uk.me.parabola.mkgmap.reader.hgt.HGTReader;
  *
  */
 public class DEMTile {
-	private ByteArrayOutputStream bits;
+	private byte[] bits;
 	private int[] heights;
 	private final int height;
 	private final int width;
@@ -44,14 +42,10 @@ public class DEMTile {
 	private final int encodingType;  	// determines how the highest values are displayed 
 	private final boolean hasData;		// not all voids
 
-	private int bitPos;
-	private byte currByte;
+	private DEMBitWriter bw;			// only while the bit stream is created
+	private int bigBinBits;
 	private int currPlateauTablePos; // current position in plateau tables
 	private CalcType currCalcType;
-	
-	private final static boolean DEBUG = false;
-	private StringBuilder bs;
-	
 
 	// fields used for debugging
 	private final int tileNumberLat;
@@ -130,7 +124,8 @@ public class DEMTile {
 	}
 	
 	private void createBitStream(short[] realHeights) {
-		bits = new ByteArrayOutputStream(1024); 
+		bw = DEMBitWriter.get();
+		bigBinBits = getBigBinBits(maxDeltaHeight);
 		heights = new int[realHeights.length];
 		// normalise the height matrix
 		for (int i = 0; i < realHeights.length; i++) {
@@ -140,30 +135,14 @@ public class DEMTile {
 				heights[i] = (realHeights[i] - baseHeight);
 		}
 		// all values in heights are now expected to be between 0 .. maxDeltaHeight
-		if (DEBUG) {
-			bs = new StringBuilder();
-		}
 		encodeDeltas();
+		// the buffer of the writer is used again for the next tile, keep only a copy
+		bits = bw.toByteArray();
 		// cleanup 
-		bs = null;
+		bw = null;
 		heights = null;
 	}
 	
-	private void addBit(boolean bit) {
-		if (DEBUG) {
-			bs.append(bit ? '1':'0');
-		}
-		if (bit) {
-			currByte |= 1 << (7-bitPos);
-		}
-		bitPos++;
-		if (bitPos > 7) {
-			bitPos = 0;
-			bits.write(currByte);
-			currByte = 0;
-		}
-	}
-	
 	/**
 	 * The main loop to calculate the bit stream data.
 	 */
@@ -176,9 +155,6 @@ public class DEMTile {
 		ValPredicter encoder = null;
 		boolean writeFollower = false;
 		while (pos < heights.length) {
-			if (DEBUG) {
-				bs.setLength(0);
-			}
 			int n = pos % width;
 			int m = pos / width;
 			int hUpper = getHeight(n, m - 1);
@@ -221,14 +197,9 @@ public class DEMTile {
 				// plateau follower: predicted value is upper height 
 				v = h - hUpper;
 			}
-			if (DEBUG) {
-				bs.setLength(0);
-			}
 			encoder.write(v);
 			pos++;
 		}
-		if (bitPos > 0)
-			bits.write(currByte);
 	}
 
 	/**
@@ -238,6 +209,7 @@ public class DEMTile {
 	private void writePlateauLen(int pLen, int col) {
 		int len = pLen;
 		int x = col;
+		int ones = 0;
 
 		if (col + len >= width) {
 			// this is not really needed but sometimes produces fewer bits
@@ -246,11 +218,12 @@ public class DEMTile {
 				int unit = plateauUnit[currPlateauTablePos++];
 				len -= unit;
 				x += unit;
-				addBit(true);
+				ones++;
 			}
 			if (x != width) {
 				currPlateauTablePos--;
 			}
+			writeOneBits(ones);
 		} else {
 			while (true) {
 				int unit = plateauUnit[currPlateauTablePos];
@@ -258,18 +231,20 @@ public class DEMTile {
 					break;
 				currPlateauTablePos++;
 				len -= unit;
-				addBit(true);
+				ones++;
 				x += unit;
 				if (x > width)
 					currPlateauTablePos--;
 				if (x >= width) {
+					writeOneBits(ones);
 					return;
 				}
 			}
 			if (currPlateauTablePos > 0)
 				currPlateauTablePos--;
 			
-			addBit(false); // separator bit
+			writeOneBits(ones);
+			bw.putBit(false); // separator bit
 			int binBits = plateauBinBits[currPlateauTablePos];
 			if (binBits > 0) {
 				writeValAsBin(Math.abs(len), binBits);
@@ -278,6 +253,18 @@ public class DEMTile {
 		
 	}
 
+	/**
+	 * Write a sequence of 1-bits. 
+	 * @param num
+	 */
+	private void writeOneBits(int num) {
+		while (num > DEMBitWriter.MAX_BITS) {
+			bw.put((1L << DEMBitWriter.MAX_BITS) - 1, DEMBitWriter.MAX_BITS);
+			num -= DEMBitWriter.MAX_BITS;
+		}
+		bw.put((1L << num) - 1, num);
+	}
+
 	/**
 	 * Write an unsigned binary value with the given number of bits, MSB first. 
 	 * @param val
@@ -287,13 +274,9 @@ public class DEMTile {
 		if (numBits == 0 && val == 0)
 			return;
 		
-		int t = 1 << (numBits - 1);
-		if (val >= t << 1)
+		if (val >= 1L << numBits)
 			throw new MapFailedException("Number too big for binary encoding with " + numBits + " bits:" + val);
-		while (t > 0) {
-			addBit((val & t) != 0);
-			t >>= 1;
-		}
+		bw.put(val & ((1L << numBits) - 1), numBits);
 	}
 
 	/**
@@ -301,9 +284,12 @@ public class DEMTile {
 	 * @param val
 	 */
 	private void writeNumberOfZeroBits(int val) {
-		for (int i = 0; i < val; i++)
-			addBit(false);
-		addBit(true); // terminating 1-bit
+		if (val < DEMBitWriter.MAX_BITS) {
+			bw.put(1, val + 1);
+		} else {
+			bw.putZeros(val);
+			bw.putBit(true); // terminating 1-bit
+		}
 	}
 
 	/**
@@ -327,9 +313,15 @@ public class DEMTile {
 			lenPart = (-val - binPart) / hunit;
 		}
 		if (lenPart <= maxZeroBits) {
-			writeNumberOfZeroBits(lenPart); // write length encoded part
-			writeValAsBin(binPart, numBits); // write binary encoded part
-			addBit(val > 0); // sign bit, 1 means positive
+			// length encoded part, binary encoded part and sign bit (1 means positive)
+			long v = (((1L << numBits) | binPart) << 1) | (val > 0 ? 1 : 0);
+			int n = lenPart + numBits + 2;
+			if (n <= DEMBitWriter.MAX_BITS) {
+				bw.put(v, n);
+			} else {
+				bw.putZeros(lenPart);
+				bw.put(v, numBits + 2);
+			}
 			return true;
 		}
 		return false;
@@ -343,12 +335,11 @@ public class DEMTile {
 	private void writeValBigBin (int val, int numZeroBits) {
 		// signal big bin by writing an invalid number of zero bits
 		writeNumberOfZeroBits(numZeroBits + 1);
-		int bits = getBigBinBits(maxDeltaHeight);
 		if (val < 0)
-			writeValAsBin(-val - 1, bits - 1);
+			writeValAsBin(-val - 1, bigBinBits - 1);
 		else
-			writeValAsBin(val - 1, bits - 1);
-		addBit(val <= 0); // sign bit, 0 means positive
+			writeValAsBin(val - 1, bigBinBits - 1);
+		bw.putBit(val <= 0); // sign bit, 0 means positive
 	}
 
 	/**
@@ -407,7 +398,7 @@ public class DEMTile {
 
 	public void writeBitStreamData(ImgFileWriter writer) {
 		if (bits != null) {
-			writer.put(bits.toByteArray());
+			writer.put(bits);
 		}
 	}
 	
@@ -844,7 +835,7 @@ public class DEMTile {
 		if (bits == null)
 			return 0;
 		else 
-			return bits.size();
+			return bits.length;
 	}
 
 	public void setOffset(int off) {
@@ -865,6 +856,6 @@ public class DEMTile {
 	}
 
 	public byte[] getBitStream() {
-		return bits.toByteArray();
+		return bits.clone();
 	}
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.labelenc;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The encoded texts of the labels, shared by all tiles that are built with
+ * the same encoding. Street and city names are repeated in many tiles,
+ * with the dictionary each of them is only encoded once per run.
+ * <p>
+ * The dictionary is cleared when it gets too big, so the memory used is
+ * limited. {@link EncodedText} is immutable, so the results can be used by
+ * any number of threads.
+ * <p>
+ * The texts that are read back from the tiles, for example for the index,
+ * are made unique with {@link #canonical(String)}, so that the names that
+ * are repeated in many tiles are only held once.
+ */
+public class LabelDictionary {
+	private static final int MAX_SIZE = 1 << 19;
+
+	private static final Map<String, LabelDictionary> dictionaries = new ConcurrentHashMap<>();
+	private static final Map<String, String> decodedTexts = new ConcurrentHashMap<>();
+
+	private final Map<String, EncodedText> texts = new ConcurrentHashMap<>();
+
+	private LabelDictionary() {
+	}
+
+	/**
+	 * Get the dictionary for an encoding.
+	 * @param encodingId Identifies the encoding, all encoders that give the same
+	 * results for a text must use the same id.
+	 * @return The dictionary.
+	 */
+	public static LabelDictionary forEncoding(String encodingId) {
+		return dictionaries.computeIfAbsent(encodingId, k -> new LabelDictionary());
+	}
+
+	/**
+	 * Get the encoded text, it is created with the given encoder if it is not
+	 * in the dictionary.
+	 *
+	 * @param text The text of the label.
+	 * @param encoder The encoder of the caller, it must belong to the
+	 * encoding of this dictionary. Only used by the calling thread.
+	 * @return The encoded text.
+	 */
+	public EncodedText encode(String text, CharacterEncoder encoder) {
+		if (text == null)
+			return encoder.encodeText(null);
+		EncodedText et = texts.get(text);
+		if (et == null) {
+			et = encoder.encodeText(text);
+			if (texts.size() >= MAX_SIZE)
+				texts.clear();
+			texts.put(text, et);
+		}
+		return et;
+	}
+
+	/**
+	 * Get the shared instance of a decoded text.
+	 *
+	 * @param text The text as read from a tile.
+	 * @return An equal string, the same instance for all tiles.
+	 */
+	public static String canonical(String text) {
+		if (text == null)
+			return null;
+		String s = decodedTexts.get(text);
+		if (s == null) {
+			if (decodedTexts.size() >= MAX_SIZE)
+				decodedTexts.clear();
+			s = decodedTexts.putIfAbsent(text, text);
+			if (s == null)
+				s = text;
+		}
+		return s;
+	}
+}
@@ -30,6 +30,7 @@ import uk.me.parabola.imgfmt.app.labelenc.BaseEncoder;
 import uk.me.parabola.imgfmt.app.labelenc.CharacterEncoder;
 import uk.me.parabola.imgfmt.app.labelenc.CodeFunctions;
 import uk.me.parabola.imgfmt.app.labelenc.EncodedText;
+import uk.me.parabola.imgfmt.app.labelenc.LabelDictionary;
 import uk.me.parabola.imgfmt.app.srt.Sort;
 import uk.me.parabola.imgfmt.app.trergn.Subdivision;
 import uk.me.parabola.imgfmt.fs.ImgChannel;
@@ -49,6 +50,8 @@ public class LBLFile extends ImgFile {
 	private static final Logger log = Logger.getLogger(LBLFile.class);
 
 	private CharacterEncoder textEncoder = CodeFunctions.getDefaultEncoder();
+	// shared with the other tiles that use the same encoding
+	private LabelDictionary labelDictionary = LabelDictionary.forEncoding("default");
 
 	private final Map<EncodedText, Label> labelCache = new HashMap<>();
 
@@ -115,6 +118,7 @@ public class LBLFile extends ImgFile {
 			BaseEncoder baseEncoder = (BaseEncoder) textEncoder;
 			baseEncoder.setUpperCase(true);
 		}
+		labelDictionary = LabelDictionary.forEncoding(cs + (forceUpper ? "/upper" : ""));
 	}
 
 	public void setEncoder(int encodingType, int codepage ) {
@@ -122,6 +126,7 @@ public class LBLFile extends ImgFile {
 		
 		lblHeader.setEncodingType(cfuncs.getEncodingType());
 		textEncoder = cfuncs.getEncoder();
+		labelDictionary = LabelDictionary.forEncoding(encodingType + "/" + codepage);
 	}
 	
 	/**
@@ -160,7 +165,7 @@ public class LBLFile extends ImgFile {
 				text = text.substring(0, trimmedLen + 1);
 			}
 		}
-		EncodedText encodedText = textEncoder.encodeText(text);
+		EncodedText encodedText = labelDictionary.encode(text, textEncoder);
 
 		Label l = labelCache.get(encodedText);
 		if (l == null) {
@@ -22,14 +22,15 @@ import java.util.Map;
 
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import uk.me.parabola.imgfmt.Utils;
-import uk.me.parabola.imgfmt.app.BufferedImgFileReader;
 import uk.me.parabola.imgfmt.app.ImgFile;
 import uk.me.parabola.imgfmt.app.ImgFileReader;
 import uk.me.parabola.imgfmt.app.Label;
+import uk.me.parabola.imgfmt.app.MappedImgFileReader;
 import uk.me.parabola.imgfmt.app.Section;
 import uk.me.parabola.imgfmt.app.labelenc.CharacterDecoder;
 import uk.me.parabola.imgfmt.app.labelenc.CodeFunctions;
 import uk.me.parabola.imgfmt.app.labelenc.DecodedText;
+import uk.me.parabola.imgfmt.app.labelenc.LabelDictionary;
 import uk.me.parabola.imgfmt.app.trergn.Subdivision;
 import uk.me.parabola.imgfmt.fs.ImgChannel;
 import uk.me.parabola.log.Logger;
@@ -66,7 +67,7 @@ public class LBLFileReader extends ImgFile {
 	public LBLFileReader(ImgChannel chan, boolean fullData, int gmpOffset) {
 		setHeader(header);
 
-		setReader(new BufferedImgFileReader(chan, gmpOffset));
+		setReader(MappedImgFileReader.create(chan, gmpOffset));
 		header.readHeader(getReader());
 		if (!fullData)
 			return;
@@ -300,7 +301,7 @@ public class LBLFileReader extends ImgFile {
 	 */
 	private int saveLabel(int labelOffset, int currentOffset, int multiplier) {
 		DecodedText encText = textDecoder.getText();
-		String text = encText.getText();
+		String text = LabelDictionary.canonical(encText.getText());
 
 		Label label = new Label(text);
 		assert (labelOffset & (multiplier - 1)) == 0;
@@ -60,51 +60,66 @@ public class MapReader implements Closeable {
 	private final Deque<Closeable> toClose = new ArrayDeque<>();
 
 	public MapReader(String filename) throws FileNotFoundException {
-		FileSystem fs = ImgFS.openFs(filename);
-		saveForClose(fs);
-
-		List<DirectoryEntry> entries = fs.list();
+		this(filename, true);
+	}
 
-		// Find the TRE entry
-		String mapname = null;
-		for (DirectoryEntry ent : entries) {
-			if ("TRE".equals(ent.getExt())) {
-				mapname = ent.getName();
-				break;
+	/**
+	 * Open the map.
+	 * @param filename The img file.
+	 * @param mapped False if the file must not be mapped into memory, see
+	 * {@link ImgFS#openFs(String, boolean)}.
+	 * @throws FileNotFoundException If the file cannot be read or contains no map.
+	 */
+	public MapReader(String filename, boolean mapped) throws FileNotFoundException {
+		FileSystem fs = ImgFS.openFs(filename, mapped);
+		saveForClose(fs);
+		try {
+			List<DirectoryEntry> entries = fs.list();
+
+			// Find the TRE entry
+			String mapname = null;
+			for (DirectoryEntry ent : entries) {
+				if ("TRE".equals(ent.getExt())) {
+					mapname = ent.getName();
+					break;
+				}
 			}
-		}
-
-		if (mapname == null)
-			throw new FileNotFoundException("No TRE entry in img file");
-
-		ImgChannel chan = fs.open(mapname + ".TRE", "r");
-		treFile = new TREFileReader(chan);
-		saveForClose(treFile, chan);
-
-		chan = fs.open(mapname + ".RGN", "r");
-		rgnFile = new RGNFileReader(chan);
-		saveForClose(rgnFile, chan);
 
-		chan = fs.open(mapname + ".LBL", "r");
-		lblFile = new LBLFileReader(chan);
-		saveForClose(lblFile, chan);
+			if (mapname == null)
+				throw new FileNotFoundException("No TRE entry in img file");
+
+			ImgChannel chan = fs.open(mapname + ".TRE", "r");
+			treFile = new TREFileReader(chan);
+			saveForClose(treFile, chan);
+
+			chan = fs.open(mapname + ".RGN", "r");
+			rgnFile = new RGNFileReader(chan);
+			saveForClose(rgnFile, chan);
+
+			chan = fs.open(mapname + ".LBL", "r");
+			lblFile = new LBLFileReader(chan);
+			saveForClose(lblFile, chan);
+
+			// The NET file is optional
+			NETFileReader nr;
+			try {
+				chan = fs.open(mapname + ".NET", "r");
+				nr = new NETFileReader(chan);
+				nr.setLabels(lblFile);
+				nr.setCities(lblFile.getCities());
+				nr.setZips(lblFile.getZips());
+				saveForClose(nr);
+			} catch (FileNotFoundException e) {
+				nr = null;
+			}
+			netFile = nr;
 
-		// The NET file is optional
-		NETFileReader nr;
-		try {
-			chan = fs.open(mapname + ".NET", "r");
-			nr = new NETFileReader(chan);
-			nr.setLabels(lblFile);
-			nr.setCities(lblFile.getCities());
-			nr.setZips(lblFile.getZips());
-			saveForClose(nr);
-		} catch (FileNotFoundException e) {
-			nr = null;
+			rgnFile.setNetFile(netFile);
+			rgnFile.setLblFile(lblFile);
+		} catch (FileNotFoundException | RuntimeException e) {
+			toClose.forEach(Utils::closeFile);
+			throw e;
 		}
-		netFile = nr;
-
-		rgnFile.setNetFile(netFile);
-		rgnFile.setLblFile(lblFile);
 	}
 
 	/**
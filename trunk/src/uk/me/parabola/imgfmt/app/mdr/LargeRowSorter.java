@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.mdr;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import uk.me.parabola.imgfmt.app.srt.Sort;
+import uk.me.parabola.imgfmt.app.srt.SortKey;
+
+/**
+ * Sorts the row numbers of records that are stored in columns, the same way
+ * as {@link LargeListSorter} sorts a list of records. The sort is stable.
+ */
+abstract class LargeRowSorter {
+	private final Sort sort;
+
+	LargeRowSorter(Sort sort) {
+		this.sort = sort;
+	}
+
+	/**
+	 * Sort a part of the array in place.
+	 * @param rows The row numbers.
+	 * @param start position of the first row to sort
+	 * @param len number of rows to sort
+	 */
+	void sort(int[] rows, int start, int len) {
+		mergeSort(0, rows, start, len);
+	}
+
+	private void mergeSort(int depth, int[] rows, int start, int len) {
+		// we split if the number is very high and recursion is not too deep
+		if (len > 1_000_000 && depth < 3) {
+			mergeSort(depth + 1, rows, start, len / 2); // left
+			mergeSort(depth + 1, rows, start + len / 2, len - len / 2); // right
+			merge(rows, start, len);
+		} else {
+			// sort one chunk
+			Map<String, byte[]> cache = new HashMap<>();
+			List<SortKey<Void>> keys = new ArrayList<>(len);
+			for (int i = start; i < start + len; i++)
+				keys.add(makeKey(rows[i], sort, cache));
+			cache = null; // release memory
+
+			int[] order = new int[len];
+			for (int i = 0; i < len; i++)
+				order[i] = i;
+			IntArrays.mergeSort(order, (i1, i2) -> keys.get(i1).compareTo(keys.get(i2)));
+
+			int[] sorted = new int[len];
+			for (int i = 0; i < len; i++)
+				sorted[i] = rows[start + order[i]];
+			System.arraycopy(sorted, 0, rows, start, len);
+		}
+	}
+
+	private void merge(int[] rows, int start, int len) {
+		int pos1 = start;
+		int pos2 = start + len / 2;
+		int stop1 = start + len / 2;
+		int stop2 = start + len;
+		int[] merged = new int[len];
+		int n = 0;
+		SortKey<Void> sk1 = null;
+		SortKey<Void> sk2 = null;
+		while (pos1 < stop1 && pos2 < stop2) {
+			if (sk1 == null)
+				sk1 = makeKey(rows[pos1], sort, null);
+			if (sk2 == null)
+				sk2 = makeKey(rows[pos2], sort, null);
+			if (sk1.compareTo(sk2) <= 0) {
+				merged[n++] = rows[pos1++];
+				sk1 = null;
+			} else {
+				merged[n++] = rows[pos2++];
+				sk2 = null;
+			}
+		}
+		while (pos1 < stop1)
+			merged[n++] = rows[pos1++];
+		while (pos2 < stop2)
+			merged[n++] = rows[pos2++];
+		assert n == len;
+		System.arraycopy(merged, 0, rows, start, len);
+	}
+
+	protected abstract SortKey<Void> makeKey(int row, Sort sort, Map<String, byte[]> cache);
+}
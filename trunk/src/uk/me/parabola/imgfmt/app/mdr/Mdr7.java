@@ -13,13 +13,13 @@
 package uk.me.parabola.imgfmt.app.mdr;
 
 import java.text.Collator;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.AbstractList;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import uk.me.parabola.imgfmt.MapFailedException;
 import uk.me.parabola.imgfmt.app.ImgFileWriter;
 import uk.me.parabola.imgfmt.app.srt.Sort;
@@ -44,10 +44,10 @@ public class Mdr7 extends MdrMapSection {
 	private final boolean isMulti;
 	private final boolean splitName;
 
-	private Set<Mdr7Record> roadsPerMap= new HashSet<>();
-	private ArrayList<Mdr7Record> allStreets = new ArrayList<>();
-	private ArrayList<Mdr7Record> streets = new ArrayList<>();
-	private int lastMaxIndex = -1;
+	private Mdr7Store store;
+	// Rows of the store. The records are only created when they are used.
+	private IntArrayList allStreets = new IntArrayList();
+	private IntArrayList streets = new IntArrayList();
 
 	private int partialInfoSize;
 	private Set<String> exclNames;
@@ -64,6 +64,7 @@ public class Mdr7 extends MdrMapSection {
 		exclNames = config.getMdr7Excl();
 		codepage = sort.getCodepage();
 		isMulti = sort.isMulti();
+		store = new Mdr7Store(config.getMdr7HeapLimit(), config.getOutputDir());
 	}
 
 	public void addStreet(int mapId, String name, int lblOffset, int strOff, Mdr5Record mdrCity) {
@@ -95,15 +96,7 @@ public class Mdr7 extends MdrMapSection {
 		if (prefix >= MAX_NAME_OFFSET || suffix >= MAX_NAME_OFFSET)
 			return;
 
-		Mdr7Record st = new Mdr7Record();
-		st.setMapIndex(mapId);
-		st.setLabelOffset(lblOffset);
-		st.setStringOffset(strOff);
-		st.setName(name);
-		st.setCity(mdrCity);
-		st.setPrefixOffset((byte) prefix);
-		st.setSuffixOffset((byte) suffix);
-		storeMdr7(st);
+		store.add(mapId, lblOffset, strOff, name, mdrCity, 0, 0, prefix, suffix);
 
 		if (!splitName)
 			return;
@@ -130,18 +123,8 @@ public class Mdr7 extends MdrMapSection {
 			}
 
 			if (start && inWord && outOffset > 0) {
-				st = new Mdr7Record();
-				st.setMapIndex(mapId);
-				st.setLabelOffset(lblOffset);
-				st.setStringOffset(strOff);
-				st.setName(name);
-				st.setCity(mdrCity);
-				st.setNameOffset((byte) nameOffset);
-				st.setOutNameOffset((byte) outOffset);
-				st.setPrefixOffset((byte) prefix);
-				st.setSuffixOffset((byte) suffix);
-				if (!exclNames.contains(st.getPartialName()))
-					storeMdr7(st);
+				if (!exclNames.contains(Mdr7Record.getPartialName(name, nameOffset, prefix, suffix)))
+					store.add(mapId, lblOffset, strOff, name, mdrCity, nameOffset, outOffset, prefix, suffix);
 
 				start = false;
 			}
@@ -152,22 +135,6 @@ public class Mdr7 extends MdrMapSection {
 		}
 	}
 
-	/**
-	 * Store in array if not already done
-	 * @param st the mdr7 record
-	 */
-	private void storeMdr7(Mdr7Record st) {
-		if (lastMaxIndex != st.getMapIndex()) {
-			// we process all roads of one map tile sequentially, so we can clear the set with each new map tile
-			lastMaxIndex = st.getMapIndex();
-			roadsPerMap.clear(); 
-		}
-		
-		if (roadsPerMap.add(st)) {
-			allStreets.add(st);
-		}
-	}
-
 	/**
 	 * Return the number of bytes that the given character will consume in the output encoded
 	 * format.
@@ -204,79 +171,81 @@ public class Mdr7 extends MdrMapSection {
 	@Override
 	protected void preWriteImpl() {
 		
-		LargeListSorter<Mdr7Record> partialSorter = new LargeListSorter<Mdr7Record>(sort) {
+		LargeRowSorter partialSorter = new LargeRowSorter(sort) {
 			@Override
-			protected SortKey<Mdr7Record> makeKey(Mdr7Record r, Sort sort, Map<String, byte[]> cache) {
-				return sort.createSortKey(r, r.getPartialName(), 0, cache); // first sort by partial name only
+			protected SortKey<Void> makeKey(int row, Sort sort, Map<String, byte[]> cache) {
+				return sort.createSortKey(null, store.getPartialName(row), 0, cache); // first sort by partial name only
 			}
 		};
 		
-		ArrayList<Mdr7Record> sorted = new ArrayList<>(allStreets);
-		allStreets.clear();
-		partialSorter.sort(sorted);
-		// list is now sorted by partial name only, we have to group by name and map index now
+		int[] sorted = new int[store.size()];
+		for (int row = 0; row < sorted.length; row++)
+			sorted[row] = row;
+		partialSorter.sort(sorted, 0, sorted.length);
+		// rows are now sorted by partial name only, we have to group by name and map index now
 		String lastPartial = null;
-		List<Mdr7Record> samePartial = new ArrayList<>();
+		int groupStart = 0;
 		Collator collator = sort.getCollator();
 		collator.setStrength(Collator.SECONDARY);
-		for (int i = 0; i < sorted.size(); i++) {
-			Mdr7Record r = sorted.get(i);
-			String partial = r.getPartialName();
+		for (int i = 0; i < sorted.length; i++) {
+			String partial = store.getPartialName(sorted[i]);
 			if (lastPartial == null || collator.compare(partial, lastPartial) != 0) {
-				groupByNameAndMap(samePartial);
-				samePartial.clear();
+				groupByNameAndMap(sorted, groupStart, i - groupStart);
+				groupStart = i;
 			}
-			samePartial.add(r);
 			lastPartial = partial;
 		}
-		groupByNameAndMap(samePartial);
+		groupByNameAndMap(sorted, groupStart, sorted.length - groupStart);
 		
-		allStreets.trimToSize();
-		streets.trimToSize();
+		allStreets.trim();
+		streets.trim();
 	}
 
 	/**
-	 * Group a list of roads with the same partial name.
-	 * @param samePartial
+	 * Group the rows of roads with the same partial name.
+	 * @param rows the sorted rows
+	 * @param start the first row with the partial name
+	 * @param len the number of rows with the partial name
 	 */
-	private void groupByNameAndMap(List<Mdr7Record> samePartial) {
-		if (samePartial.isEmpty())
+	private void groupByNameAndMap(int[] rows, int start, int len) {
+		if (len == 0)
 			return;
 		
 		// Basecamp needs the records grouped by partial name, full name, and map index.
 		// This sometimes presents search results in the wrong order. The partial sort fields allow to
 		// tell the right order.
 		
-		LargeListSorter<Mdr7Record> fullNameSorter = new LargeListSorter<Mdr7Record>(sort) {
+		LargeRowSorter fullNameSorter = new LargeRowSorter(sort) {
 			@Override
-			protected SortKey<Mdr7Record> makeKey(Mdr7Record r, Sort sort, Map<String, byte[]> cache) {
-				return sort.createSortKey(r, r.getName(), r.getMapIndex(), cache);
+			protected SortKey<Void> makeKey(int row, Sort sort, Map<String, byte[]> cache) {
+				return sort.createSortKey(null, store.getName(row), store.getMapIndex(row), cache);
 			}
 		};
 		
 		
-		fullNameSorter.sort(samePartial);
-		Mdr7Record last = null;
+		fullNameSorter.sort(rows, start, len);
+		int last = -1;
 		int recordNumber = streets.size();
 		
-		// list is now sorted by partial name, name, and map index
+		// rows are now sorted by partial name, name, and map index
 		// De-duplicate the street names so that there is only one entry
 		// per map for the same name.
-		for (int i = 0; i < samePartial.size(); i++) {
-			Mdr7Record r = samePartial.get(i);
-			if (last != null && r.getMapIndex() == last.getMapIndex() && r.getName().equals(last.getName())) {
+		for (int i = start; i < start + len; i++) {
+			int row = rows[i];
+			if (last >= 0 && store.getMapIndex(row) == store.getMapIndex(last)
+					&& store.getName(row).equals(store.getName(last))) {
 				// This has the same name (and map number) as the previous one.
 				// Save the pointer to that one
 				// which is going into the file.
-				r.setIndex(recordNumber);
+				store.setIndex(row, recordNumber);
 			} else {
 				recordNumber++;
-				r.setIndex(recordNumber);
-				streets.add(r);
+				store.setIndex(row, recordNumber);
+				streets.add(row);
 			}
-			if (r.getCity() != null)
-				allStreets.add(r);
-			last = r;
+			if (store.getCity(row) != null)
+				allStreets.add(row);
+			last = row;
 		}
 	}
 
@@ -286,7 +255,8 @@ public class Mdr7 extends MdrMapSection {
 		Collator collator = sort.getCollator();
 		collator.setStrength(Collator.SECONDARY); 
 		Mdr7Record last = null;
-		for (Mdr7Record s : streets) {
+		for (int i = 0; i < streets.size(); i++) {
+			Mdr7Record s = new Mdr7Record(store, streets.getInt(i));
 			addIndexPointer(s.getMapIndex(), s.getIndex());
 
 			putMapIndex(writer, s.getMapIndex());
@@ -357,17 +327,20 @@ public class Mdr7 extends MdrMapSection {
 
 	@Override
 	protected void releaseMemory() {
+		// the records are still used by other sections, only the temporary file is removed
+		store.close();
+		store = null;
 		allStreets = null;
 		streets = null;
 	}
 
 
 	public List<Mdr7Record> getStreets() {
-		return Collections.unmodifiableList(allStreets);
+		return new StreetList(store, allStreets);
 	}
 	
 	public List<Mdr7Record> getSortedStreets() {
-		return Collections.unmodifiableList(streets);
+		return new StreetList(store, streets);
 	}
 
 	
@@ -375,7 +348,29 @@ public class Mdr7 extends MdrMapSection {
 	 * Free as much memory as possible.
 	 */
 	public void trim() {
-		allStreets.trimToSize();
-		roadsPerMap = new HashSet<>();
+		store.trim();
+	}
+
+	/**
+	 * A list of rows of the store, the records are created when they are read.
+	 */
+	private static class StreetList extends AbstractList<Mdr7Record> implements RandomAccess {
+		private final Mdr7Store store;
+		private final IntArrayList rows;
+
+		StreetList(Mdr7Store store, IntArrayList rows) {
+			this.store = store;
+			this.rows = rows;
+		}
+
+		@Override
+		public Mdr7Record get(int index) {
+			return new Mdr7Record(store, rows.getInt(index));
+		}
+
+		@Override
+		public int size() {
+			return rows.size();
+		}
 	}
 }
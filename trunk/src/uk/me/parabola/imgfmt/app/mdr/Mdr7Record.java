@@ -15,84 +15,55 @@ package uk.me.parabola.imgfmt.app.mdr;
 import java.text.Collator;
 
 /**
- * Holds details of a single street.
+ * Holds details of a single street. The values are held in a {@link Mdr7Store},
+ * this is a view of one row. The views are created when they are used, they
+ * are not kept by {@link Mdr7}.
  * @author Steve Ratcliffe
  */
-public class Mdr7Record extends RecordBase implements NamedRecord {
-	private int labelOffset;
-	private int stringOffset;
-	private String name;
-	private int index;
-	private Mdr5Record city;
-
-	// For searching on partial names
-	private byte nameOffset; // offset into the name where matching should start
-	private byte outNameOffset; // offset into the encoded output name
-	private byte prefixOffset;  // offset after 0x1e prefix
-	private byte suffixOffset;  // offset just before 0x1f suffix
+public class Mdr7Record implements NamedRecord {
+	private final Mdr7Store store;
+	private final int row;
 
-	public int getLabelOffset() {
-		return labelOffset;
+	Mdr7Record(Mdr7Store store, int row) {
+		this.store = store;
+		this.row = row;
 	}
 
-	public void setLabelOffset(int labelOffset) {
-		this.labelOffset = labelOffset;
+	@Override
+	public int getMapIndex() {
+		return store.getMapIndex(row);
 	}
 
-	public int getStringOffset() {
-		return stringOffset;
+	public int getLabelOffset() {
+		return store.getLabelOffset(row);
 	}
 
-	public void setStringOffset(int stringOffset) {
-		this.stringOffset = stringOffset;
+	public int getStringOffset() {
+		return store.getStringOffset(row);
 	}
 
 	public String getName() {
-		return name;
-	}
-
-	public void setName(String name) {
-		this.name = name;
+		return store.getName(row);
 	}
 
 	public void setIndex(int index) {
-		this.index = index;
+		store.setIndex(row, index);
 	}
 
 	public int getIndex() {
-		return index;
-	}
-
-	public void setCity(Mdr5Record city) {
-		this.city = city;
+		return store.getIndex(row);
 	}
 
 	public Mdr5Record getCity() {
-		return city;
+		return store.getCity(row);
 	}
 
 	public int getNameOffset() {
-		return nameOffset & 0xff;
-	}
-
-	public void setNameOffset(byte nameOffset) {
-		this.nameOffset = nameOffset;
+		return store.getNameOffset(row);
 	}
 
 	public byte getOutNameOffset() {
-		return outNameOffset;
-	}
-
-	public void setOutNameOffset(byte outNameOffset) {
-		this.outNameOffset = outNameOffset;
-	}
-
-	public void setPrefixOffset(byte prefixOffset) {
-		this.prefixOffset = prefixOffset;
-	}
-
-	public void setSuffixOffset(byte suffixOffset) {
-		this.suffixOffset = suffixOffset;
+		return (byte) store.getOutNameOffset(row);
 	}
 
 	/**
@@ -104,72 +75,38 @@ public class Mdr7Record extends RecordBase implements NamedRecord {
 	 * @return A substring of name, starting at the nameOffset value.
 	 */
 	public String getPartialName() {
+		return store.getPartialName(row);
+	}
+
+	static String getPartialName(String name, int nameOffset, int prefixOffset, int suffixOffset) {
 		if (nameOffset == 0 && prefixOffset == 0 && suffixOffset == 0)
 			return name;
-		else if ((suffixOffset & 0xff) > 0)
-			return name.substring((nameOffset & 0xff) + (prefixOffset & 0xff), (suffixOffset & 0xff));
+		else if (suffixOffset > 0)
+			return name.substring(nameOffset + prefixOffset, suffixOffset);
 		else
-			return name.substring((nameOffset & 0xff) + (prefixOffset & 0xff));
+			return name.substring(nameOffset + prefixOffset);
 	}
 
 	public String getSuffix() {
-		if(suffixOffset == 0)
+		int suffixOffset = store.getSuffixOffset(row);
+		if (suffixOffset == 0)
 			return "";
-		return name.substring(suffixOffset & 0xff);
+		return getName().substring(suffixOffset);
 	}
 	
 	public String getPrefix() {
-		if(prefixOffset== 0)
+		int prefixOffset = store.getPrefixOffset(row);
+		if (prefixOffset == 0)
 			return "";
-		return name.substring(0, prefixOffset & 0xff);
+		return getName().substring(0, prefixOffset);
 	}
 	
 	public String toString() {
-		return name + " in " + city.getName();
+		return getName() + " in " + getCity().getName();
 	}
 
 	public String getInitialPart() {
-		return name.substring(0, (nameOffset & 0xff) + (prefixOffset & 0xff));
-	}
-
-	@Override
-	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + labelOffset;
-		result = prime * result + nameOffset;
-		result = prime * result + outNameOffset;
-		result = prime * result + prefixOffset;
-		result = prime * result + stringOffset; // XXX probably not needed
-		result = prime * result + suffixOffset;
-		result = prime * result + getMapIndex();
-		return result;
-	}
-
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
-			return false;
-		Mdr7Record other = (Mdr7Record) obj;
-		if (labelOffset != other.labelOffset)
-			return false;
-		if (getMapIndex() != other.getMapIndex())
-			return false;
-		if (nameOffset != other.nameOffset)
-			return false;
-		if (outNameOffset != other.outNameOffset)
-			return false;
-		if (prefixOffset != other.prefixOffset)
-			return false;
-		if (stringOffset != other.stringOffset) // XXX probably not needed
-			return false;
-		if (suffixOffset != other.suffixOffset)
-			return false;
-		return (city == other.getCity()); 
+		return getName().substring(0, getNameOffset() + store.getPrefixOffset(row));
 	}
 
 	/**
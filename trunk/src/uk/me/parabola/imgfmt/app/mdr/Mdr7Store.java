@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.mdr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.me.parabola.imgfmt.MapFailedException;
+import uk.me.parabola.log.Logger;
+
+/**
+ * The street records of mdr7, stored in columns of ints instead of one
+ * object per record. The names and cities are stored once and referenced
+ * by number.
+ * <p>
+ * The rows are held in chunks, each chunk has one block per column. The
+ * chunks are on the heap until the heap limit is reached, after that they
+ * are mapped from a temporary file.
+ *
+ * @see Mdr7Record
+ */
+final class Mdr7Store {
+	private static final Logger log = Logger.getLogger(Mdr7Store.class);
+
+	private static final int MAP = 0;
+	private static final int LABEL = 1;
+	private static final int STRING = 2;
+	private static final int NAME = 3;
+	private static final int CITY = 4;
+	// name offset, out name offset, prefix offset, suffix offset; one byte each
+	private static final int OFFSETS = 5;
+	private static final int INDEX = 6;
+	private static final int NUM_COLUMNS = 7;
+
+	private static final int CHUNK_SHIFT = 16;
+	private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+	private static final int CHUNK_BYTES = CHUNK_ROWS * NUM_COLUMNS * 4;
+
+	private static final int INITIAL_TABLE_SIZE = 1024;
+
+	private final long heapLimit;
+	private final File tempDir;
+
+	private final List<IntBuffer> chunks = new ArrayList<>();
+	private int size;
+	private long heapBytes;
+
+	private File tempFile;
+	private FileChannel tempChannel;
+	private long tempSize;
+
+	private final List<String> names = new ArrayList<>();
+	private Map<String, Integer> nameIds = new HashMap<>();
+	// city number 0 is no city
+	private final List<Mdr5Record> cities = new ArrayList<>();
+	private Map<Mdr5Record, Integer> cityIds = new IdentityHashMap<>();
+
+	// The rows of the current map, to find duplicates. Open addressing, holds row + 1.
+	private int lastMapIndex = -1;
+	private int[] mapRows = new int[INITIAL_TABLE_SIZE];
+	private int mapRowCount;
+
+	/**
+	 * @param heapLimit The number of bytes that the rows may use on the heap.
+	 * @param tempDir The directory for the temporary file, null for the default.
+	 */
+	Mdr7Store(long heapLimit, File tempDir) {
+		this.heapLimit = heapLimit;
+		this.tempDir = tempDir;
+		cities.add(null);
+	}
+
+	/**
+	 * Add a street, unless the same street was already added for this map.
+	 * All the streets of one map must be added before those of the next one.
+	 *
+	 * @return True if the street was added.
+	 */
+	boolean add(int mapIndex, int labelOffset, int stringOffset, String name, Mdr5Record city,
+			int nameOffset, int outNameOffset, int prefixOffset, int suffixOffset) {
+		if (mapIndex != lastMapIndex) {
+			lastMapIndex = mapIndex;
+			if (mapRows.length > INITIAL_TABLE_SIZE)
+				mapRows = new int[INITIAL_TABLE_SIZE];
+			else
+				Arrays.fill(mapRows, 0);
+			mapRowCount = 0;
+		}
+
+		int cityId = (city == null) ? 0 : cityIds.computeIfAbsent(city, c -> {
+			cities.add(c);
+			return cities.size() - 1;
+		});
+		int offsets = (nameOffset & 0xff) | (outNameOffset & 0xff) << 8
+				| (prefixOffset & 0xff) << 16 | (suffixOffset & 0xff) << 24;
+
+		int mask = mapRows.length - 1;
+		int slot = hash(labelOffset, stringOffset, cityId, offsets) & mask;
+		for (int r = mapRows[slot]; r != 0; r = mapRows[slot]) {
+			IntBuffer chunk = chunks.get((r - 1) >>> CHUNK_SHIFT);
+			int pos = (r - 1) & CHUNK_MASK;
+			if (chunk.get(LABEL * CHUNK_ROWS + pos) == labelOffset
+					&& chunk.get(STRING * CHUNK_ROWS + pos) == stringOffset
+					&& chunk.get(CITY * CHUNK_ROWS + pos) == cityId
+					&& chunk.get(OFFSETS * CHUNK_ROWS + pos) == offsets)
+				return false;
+			slot = (slot + 1) & mask;
+		}
+
+		int row = size;
+		if ((row & CHUNK_MASK) == 0)
+			chunks.add(newChunk());
+		IntBuffer chunk = chunks.get(row >>> CHUNK_SHIFT);
+		int pos = row & CHUNK_MASK;
+		chunk.put(MAP * CHUNK_ROWS + pos, mapIndex);
+		chunk.put(LABEL * CHUNK_ROWS + pos, labelOffset);
+		chunk.put(STRING * CHUNK_ROWS + pos, stringOffset);
+		chunk.put(NAME * CHUNK_ROWS + pos, nameIds.computeIfAbsent(name, n -> {
+			names.add(n);
+			return names.size() - 1;
+		}));
+		chunk.put(CITY * CHUNK_ROWS + pos, cityId);
+		chunk.put(OFFSETS * CHUNK_ROWS + pos, offsets);
+		size++;
+
+		mapRows[slot] = row + 1;
+		if (++mapRowCount * 2 > mapRows.length)
+			growMapRows();
+		return true;
+	}
+
+	private static int hash(int labelOffset, int stringOffset, int cityId, int offsets) {
+		int h = labelOffset;
+		h = 31 * h + stringOffset;
+		h = 31 * h + cityId;
+		h = 31 * h + offsets;
+		h *= 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+
+	private void growMapRows() {
+		int[] old = mapRows;
+		mapRows = new int[old.length * 2];
+		int mask = mapRows.length - 1;
+		for (int r : old) {
+			if (r == 0)
+				continue;
+			int row = r - 1;
+			int slot = hash(getLabelOffset(row), getStringOffset(row), get(CITY, row), get(OFFSETS, row)) & mask;
+			while (mapRows[slot] != 0)
+				slot = (slot + 1) & mask;
+			mapRows[slot] = r;
+		}
+	}
+
+	private IntBuffer newChunk() {
+		if (heapBytes + CHUNK_BYTES <= heapLimit) {
+			heapBytes += CHUNK_BYTES;
+			return IntBuffer.allocate(CHUNK_BYTES / 4);
+		}
+		try {
+			if (tempChannel == null) {
+				tempFile = File.createTempFile("mdr7", ".tmp", tempDir);
+				tempFile.deleteOnExit();
+				tempChannel = new RandomAccessFile(tempFile, "rw").getChannel();
+				log.info("mdr7 heap limit reached, using", tempFile);
+			}
+			IntBuffer chunk = tempChannel.map(FileChannel.MapMode.READ_WRITE, tempSize, CHUNK_BYTES)
+					.order(ByteOrder.nativeOrder()).asIntBuffer();
+			tempSize += CHUNK_BYTES;
+			return chunk;
+		} catch (IOException e) {
+			throw new MapFailedException("Could not create temporary file for mdr7: " + e.getMessage());
+		}
+	}
+
+	private int get(int column, int row) {
+		return chunks.get(row >>> CHUNK_SHIFT).get(column * CHUNK_ROWS + (row & CHUNK_MASK));
+	}
+
+	int size() {
+		return size;
+	}
+
+	int getMapIndex(int row) {
+		return get(MAP, row);
+	}
+
+	int getLabelOffset(int row) {
+		return get(LABEL, row);
+	}
+
+	int getStringOffset(int row) {
+		return get(STRING, row);
+	}
+
+	String getName(int row) {
+		return names.get(get(NAME, row));
+	}
+
+	Mdr5Record getCity(int row) {
+		return cities.get(get(CITY, row));
+	}
+
+	String getPartialName(int row) {
+		int offsets = get(OFFSETS, row);
+		return Mdr7Record.getPartialName(getName(row), offsets & 0xff, (offsets >>> 16) & 0xff, offsets >>> 24);
+	}
+
+	int getNameOffset(int row) {
+		return get(OFFSETS, row) & 0xff;
+	}
+
+	int getOutNameOffset(int row) {
+		return (get(OFFSETS, row) >>> 8) & 0xff;
+	}
+
+	int getPrefixOffset(int row) {
+		return (get(OFFSETS, row) >>> 16) & 0xff;
+	}
+
+	int getSuffixOffset(int row) {
+		return get(OFFSETS, row) >>> 24;
+	}
+
+	int getIndex(int row) {
+		return get(INDEX, row);
+	}
+
+	void setIndex(int row, int index) {
+		chunks.get(row >>> CHUNK_SHIFT).put(INDEX * CHUNK_ROWS + (row & CHUNK_MASK), index);
+	}
+
+	/**
+	 * Drop what is only needed while adding streets.
+	 */
+	void trim() {
+		nameIds = new HashMap<>();
+		cityIds = new IdentityHashMap<>();
+		mapRows = new int[INITIAL_TABLE_SIZE];
+		mapRowCount = 0;
+		lastMapIndex = -1;
+	}
+
+	/**
+	 * Close and remove the temporary file. The rows that are mapped from it
+	 * can still be read.
+	 */
+	void close() {
+		if (tempChannel == null)
+			return;
+		try {
+			tempChannel.close();
+		} catch (IOException e) {
+			log.warn("Could not close", tempFile, e.getMessage());
+		}
+		tempChannel = null;
+		// not possible on all systems while the file is mapped, it is then removed on exit
+		tempFile.delete();
+	}
+}
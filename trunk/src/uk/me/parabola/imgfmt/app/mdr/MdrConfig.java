@@ -45,6 +45,7 @@ public class MdrConfig {
 	private Set<String> mdr7Excl = Collections.emptySet();
 	private Set<String> mdr7Del = Collections.emptySet();
 	private Set<Integer> poiExclTypes = Collections.emptySet();
+	private long mdr7HeapLimit = Long.MAX_VALUE;
 	
 	public MdrConfig() {
 		
@@ -59,6 +60,7 @@ public class MdrConfig {
 		mdr7Del = base.getMdr7Del();
 		mdr7Excl = base.getMdr7Excl();
 		poiExclTypes = base.getPoiExclTypes();
+		mdr7HeapLimit = base.getMdr7HeapLimit();
 	}
 
 	/**
@@ -193,10 +195,24 @@ public class MdrConfig {
 		return Collections.unmodifiableSet(poiExclTypes);
 	}
 
+	/**
+	 * @return The number of bytes that the mdr7 street records may use on the heap.
+	 */
+	public long getMdr7HeapLimit() {
+		return mdr7HeapLimit;
+	}
+
+	public void setMdr7HeapLimit(long mdr7HeapLimit) {
+		this.mdr7HeapLimit = mdr7HeapLimit;
+	}
+
 	public void setIndexOptions(CommandArgs args) {
 		setSplitName(args.get("split-name-index", false));
 		mdr7Excl = args.argToSet("mdr7-excl", null);
 		mdr7Del = args.argToSet("mdr7-del", null);
 		setPoiExcl(args.argToList("poi-excl-index", null));
+		int limit = args.get("mdr7-heap-limit", -1);
+		if (limit >= 0)
+			setMdr7HeapLimit(limit * 1024L * 1024L);
 	}
 }
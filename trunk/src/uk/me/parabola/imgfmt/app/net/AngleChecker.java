@@ -13,10 +13,10 @@
 package uk.me.parabola.imgfmt.app.net;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import uk.me.parabola.log.Logger;
 import uk.me.parabola.util.EnhancedProperties;
@@ -130,11 +130,11 @@ public class AngleChecker {
 		cycleMap = props.getProperty("cycle-map", false);
 	}
 
-	public void check(Map<Integer, RouteNode> nodes) {
+	public void check(Collection<RouteNode> nodes) {
 		if (!ignoreSharpAngles){
 			byte sharpAnglesCheckMask = cycleMap ? (byte) (0xff & ~AccessTagsAndBits.FOOT) : AccessTagsAndBits.BIKE;
 
-			for (RouteNode node : nodes.values()){
+			for (RouteNode node : nodes){
 				fixSharpAngles(node, sharpAnglesCheckMask);				
 			}
 		}
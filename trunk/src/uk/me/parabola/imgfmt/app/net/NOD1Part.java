@@ -17,10 +17,15 @@
 package uk.me.parabola.imgfmt.app.net;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import uk.me.parabola.imgfmt.app.Area;
 import uk.me.parabola.imgfmt.app.Coord;
@@ -86,6 +91,14 @@ public class NOD1Part {
 	private static final int MAX_NODES_SIZE = 0x2000;
 	private int nodesSize;
 
+	// the two halves of a part with at least this number of nodes are subdivided in parallel
+	private static final int MIN_NODES_FOR_PARALLEL = 2000;
+	private int minNodesForParallel = MIN_NODES_FOR_PARALLEL;
+	// the nodes of the unbounded part, only used to check if a part is closed
+	private Set<RouteNode> rootNodes;
+	// true if all arcs of restrictions of the nodes start at nodes of this part
+	private boolean closed = true;
+
 	public class BBox {
 		int maxLat, minLat, maxLon, minLon;
 		boolean empty;
@@ -122,7 +135,11 @@ public class NOD1Part {
 		}
 	
 		boolean contains(Coord co) {
-			return contains(new BBox(co));
+			// same as contains(new BBox(co)) without creating the object
+			int lat = co.getLatitude();
+			int lon = co.getLongitude();
+			return minLat <= lat && lat + 1 <= maxLat
+				&& minLon <= lon && lon + 1 <= maxLon;
 		}
 
 		void extend(BBox bbox) {
@@ -143,7 +160,20 @@ public class NOD1Part {
 		}
 
 		void extend(Coord co) {
-			extend(new BBox(co));
+			int lat = co.getLatitude();
+			int lon = co.getLongitude();
+			if (empty) {
+				empty = false;
+				minLat = lat;
+				maxLat = lat + 1;
+				minLon = lon;
+				maxLon = lon + 1;
+			} else {
+				minLat = Math.min(minLat, lat);
+				maxLat = Math.max(maxLat, lat + 1);
+				minLon = Math.min(minLon, lon);
+				maxLon = Math.max(maxLon, lon + 1);
+			}
 		}
 
 		BBox[] splitLat() {
@@ -205,9 +235,19 @@ public class NOD1Part {
 	 * The bounding box is used to decide which arcs
 	 * are internal.
 	 */
-	private NOD1Part(BBox bbox) {
+	private NOD1Part(BBox bbox, Set<RouteNode> rootNodes, int minNodesForParallel) {
 		log.info("creating new NOD1Part:", bbox);
 		this.bbox = bbox;
+		this.rootNodes = rootNodes;
+		this.minNodesForParallel = minNodesForParallel;
+	}
+
+	/**
+	 * Change the number of nodes from which on the halves of a part are
+	 * subdivided in parallel, to test both ways.
+	 */
+	void setMinNodesForParallel(int minNodes) {
+		this.minNodesForParallel = minNodes;
 	}
 
 	/**
@@ -242,6 +282,10 @@ public class NOD1Part {
 				for (int i = 0; i < arcs.size(); i++){
 					RouteArc arc = arcs.get(i);
 					if (arc.getSource() != node){
+						// a node is in this part if it is in the unbounded part and in the bbox
+						if (closed && (rootNodes == null || !bbox.contains(arc.getSource().getCoord())
+								|| !rootNodes.contains(arc.getSource())))
+							closed = false;
 						tabA.addArc(arc);
 						RouteNode dest = arc.getDest();
 						if (!arc.isInternal())
@@ -262,7 +306,13 @@ public class NOD1Part {
 	 * Subdivide this part recursively until it satisfies the constraints.
 	 */
 	public List<RouteCenter> subdivide() {
-		return subdivideHelper(0);
+		if (nodes.size() >= minNodesForParallel) {
+			rootNodes = Collections.newSetFromMap(new IdentityHashMap<>(nodes.size()));
+			rootNodes.addAll(nodes);
+		}
+		List<RouteCenter> centers = subdivideHelper(0);
+		rootNodes = null;
+		return centers;
 	}
 
 	/**
@@ -296,7 +346,7 @@ public class NOD1Part {
 		NOD1Part[] parts = new NOD1Part[2];
 
 		for (int i = 0; i < split.length; i++)
-			parts[i] = new NOD1Part(split[i]);
+			parts[i] = new NOD1Part(split[i], rootNodes, minNodesForParallel);
 		
 		
 		for (RouteNode node : nodes) {
@@ -305,13 +355,21 @@ public class NOD1Part {
 				i++;
 			parts[i].addNode(node);
 		}
+		boolean parallel = nodes.size() >= minNodesForParallel && parts[0].closed && parts[1].closed;
 		this.tabA = null;
 		this.destNodes = null;
 		this.nodes = null;
-		for (NOD1Part part : parts)
-			if(!part.bboxActual.empty)
-				centers.addAll(part.subdivideHelper(depth + 1));
-
+		if (parallel) {
+			// addNode() may change the arcs of restrictions, so this is only done when both
+			// parts use only their own arcs. The result is the same as in the sequential case.
+			Arrays.stream(parts).parallel().filter(part -> !part.bboxActual.empty)
+					.map(part -> part.subdivideHelper(depth + 1))
+					.collect(Collectors.toList()).forEach(centers::addAll);
+		} else {
+			for (NOD1Part part : parts)
+				if(!part.bboxActual.empty)
+					centers.addAll(part.subdivideHelper(depth + 1));
+		}
 		return centers;
 	}
 
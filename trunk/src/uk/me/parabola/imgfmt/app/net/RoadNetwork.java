@@ -19,22 +19,21 @@ package uk.me.parabola.imgfmt.app.net;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.stream.IntStream;
 
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import uk.me.parabola.imgfmt.app.Coord;
 import uk.me.parabola.imgfmt.app.CoordNode;
 import uk.me.parabola.log.Logger;
 import uk.me.parabola.util.EnhancedProperties;
-import uk.me.parabola.util.MultiHashMap;
 
 /**
  * This holds the road network.  That is all the roads and the nodes
@@ -47,7 +46,12 @@ public class RoadNetwork {
 	private static final Logger log = Logger.getLogger(RoadNetwork.class);
 
 	private static final int MAX_RESTRICTIONS_ARCS = 7;
-	private final Map<Integer, RouteNode> nodes = new LinkedHashMap<>();
+	// the sizes of at least this number of routing islands are calculated in parallel
+	private static final int MIN_ISLANDS_FOR_PARALLEL = 100;
+	// maps the id of the CoordNode to the RouteNode
+	private final Int2ObjectOpenHashMap<RouteNode> nodes = new Int2ObjectOpenHashMap<>();
+	// the nodes in the order of creation
+	private final List<RouteNode> nodeList = new ArrayList<>();
 
 	// boundary nodes
 	// a node should be in here if the nodes boundary flag is set
@@ -61,8 +65,6 @@ public class RoadNetwork {
 	private boolean routable;
 	private boolean reportRoutingIslands;
 	private long maxSumRoadLengths;
-	/** for route island search */
-	private int visitId;  
 
 	public void config(EnhancedProperties props) {
 		reportSimilarArcs = props.getProperty("report-similar-arcs", false);
@@ -224,7 +226,13 @@ public class RoadNetwork {
 	} 
 	
 	private RouteNode getOrAddNode(int id, Coord coord) {
-		return nodes.computeIfAbsent(id, key -> new RouteNode(coord));
+		RouteNode node = nodes.get(id);
+		if (node == null) {
+			node = new RouteNode(coord);
+			nodes.put(id, node);
+			nodeList.add(node);
+		}
+		return node;
 	}
 
 	public List<RoadDef> getRoadDefs() {
@@ -232,7 +240,7 @@ public class RoadNetwork {
 	}
 
 	/**
-	 * Split the network into RouteCenters, calls nodes.clear().
+	 * Split the network into RouteCenters, clears the node map and list.
 	 *
 	 * The resulting centers must satisfy several constraints,
 	 * documented in NOD1Part.
@@ -242,8 +250,11 @@ public class RoadNetwork {
 			return;
 		assert centers.isEmpty() : "already subdivided into centers";
 
-		List<RouteNode> nodeList = new ArrayList<>(nodes.values());
-		nodes.clear(); // return to GC
+		List<RouteNode> nodeList = new ArrayList<>(this.nodeList);
+		// return to GC
+		nodes.clear();
+		nodes.trim();
+		this.nodeList.clear();
 
 		nodeList.forEach(this::performChecks);
 
@@ -276,13 +287,13 @@ public class RoadNetwork {
 	public List<RouteCenter> getCenters() {
 		if (routable && centers.isEmpty()){
 			checkRoutingIslands();
-			for (RouteNode n : nodes.values()) {
+			for (RouteNode n : nodeList) {
 				if (n.isBoundary()) {
 					boundary.add(n);
 				}
 			}
 			
-			angleChecker.check(nodes);
+			angleChecker.check(nodeList);
 			addArcsToMajorRoads();
 			
 			// set node-class for nodes with no arcs to the highest class of a road referring to that node
@@ -310,11 +321,12 @@ public class RoadNetwork {
 		long t1 = System.currentTimeMillis();
 
 		// calculate all islands
-		List<List<RouteNode>> islands = searchIslands();
+		RouteGraph graph = new RouteGraph(nodeList);
+		List<int[]> islands = searchIslands(graph);
 		long t2 = System.currentTimeMillis();
 		log.info("Search for routing islands found", islands.size(), "islands in", (t2 - t1), "ms");
 		if (!islands.isEmpty()) {
-			analyseIslands(islands);
+			analyseIslands(graph, islands);
 		}
 		if (maxSumRoadLengths > 0) {
 			long t3 = System.currentTimeMillis();
@@ -323,79 +335,98 @@ public class RoadNetwork {
 	}
 
 
-	private List<List<RouteNode>> searchIslands() {
-		final int myVisitId = ++visitId;
-		List<List<RouteNode>> islands = new ArrayList<>();
-		for (RouteNode firstNode : nodes.values()) {
-			if (firstNode.getVisitID() != myVisitId) {
-				List<RouteNode> island = new ArrayList<>();
-				firstNode.visitNet(myVisitId, island);
-				// we ignore islands which have boundary nodes
-				if (island.stream().noneMatch(RouteNode::isBoundary)) {
-					islands.add(island);
-				}
+	/**
+	 * @return the indexes in the graph of the nodes of each island
+	 */
+	private static List<int[]> searchIslands(RouteGraph graph) {
+		log.info("Searching routing islands in graph with", graph.numNodes(), "nodes and", graph.numArcs(), "arcs");
+		List<int[]> islands = new ArrayList<>();
+		for (int[] part : graph.getConnectedParts()) {
+			// we ignore islands which have boundary nodes
+			if (Arrays.stream(part).noneMatch(i -> graph.getNode(i).isBoundary())) {
+				islands.add(part);
 			}
 		}
 		return islands;
 	}
 	
-	private void analyseIslands (List<List<RouteNode>> islands) {
-		// index : maps first node in road to the road 
-		MultiHashMap<RouteNode, RoadDef> nodeToRoadMap = new MultiHashMap<>();
-		roadDefs.forEach(rd -> {
-			if (rd.getNode() != null) {
-				nodeToRoadMap.add(rd.getNode(), rd);
+	private void analyseIslands(RouteGraph graph, List<int[]> islands) {
+		// index : maps first node in road to the roads, as linked lists in the order of roadDefs
+		int[] firstRoad = new int[graph.numNodes()];
+		Arrays.fill(firstRoad, -1);
+		int[] nextRoad = new int[roadDefs.size()];
+		for (int r = roadDefs.size() - 1; r >= 0; r--) {
+			RouteNode node = roadDefs.get(r).getNode();
+			if (node != null) {
+				int i = node.getGraphIndex();
+				if (i < graph.numNodes() && graph.getNode(i) == node) {
+					nextRoad[r] = firstRoad[i];
+					firstRoad[i] = r;
+				}
 			}
+		}
+		
+		// compute size of each island as sum of road lengths
+		List<Set<RoadDef>> visitedRoads = new ArrayList<>(Collections.nCopies(islands.size(), null));
+		long[] sumOfRoadLengths = new long[islands.size()];
+		IntStream range = IntStream.range(0, islands.size());
+		if (islands.size() >= MIN_ISLANDS_FOR_PARALLEL)
+			range = range.parallel();
+		range.forEach(k -> {
+			Set<RoadDef> roads = new HashSet<>();
+			sumOfRoadLengths[k] = calcIslandSize(graph, islands.get(k), firstRoad, nextRoad, roads);
+			visitedRoads.set(k, roads);
 		});
 		
 		boolean cleanNodes = false;
-		for (List<RouteNode> island : islands) {
-			// compute size of island as sum of road lengths
-			Set<RoadDef> visitedRoads = new HashSet<>();
-			long sumOfRoadLengths = calcIslandSize(island, nodeToRoadMap, visitedRoads);
+		for (int k = 0; k < islands.size(); k++) {
+			int[] island = islands.get(k);
 			if (reportRoutingIslands)
-				log.diagnostic("Routing island " + visitedRoads.iterator().next() +  " at " + island.get(0).getCoord() + " with " + island.size() +
-					" routing node(s) and total length of " + sumOfRoadLengths + "m");
-			if (sumOfRoadLengths < maxSumRoadLengths) {
+				log.diagnostic("Routing island " + visitedRoads.get(k).iterator().next() +  " at " + graph.getNode(island[0]).getCoord() + " with " + island.length +
+					" routing node(s) and total length of " + sumOfRoadLengths[k] + "m");
+			if (sumOfRoadLengths[k] < maxSumRoadLengths) {
 				// set discarded flag for all nodes of the island
-				island.forEach(RouteNode::discard);
-				visitedRoads.forEach(rd -> rd.skipAddToNOD(true));
+				for (int i : island)
+					graph.getNode(i).discard();
+				visitedRoads.get(k).forEach(rd -> rd.skipAddToNOD(true));
 				cleanNodes = true;
 			}
 		}
 		
 		if (cleanNodes) {
 			// remove discarded nodes from map nodes
-			Iterator<Entry<Integer, RouteNode>> iter = nodes.entrySet().iterator();
-			while (iter.hasNext()) {
-				RouteNode n = iter.next().getValue();
+			nodeList.removeIf(n -> {
 				if (n.isDiscarded()) {
-					iter.remove();
+					nodes.remove(n.getCoord().getId());
+					return true;
 				}
-			}
+				return false;
+			});
 		}
 	}
 	
 	/**
 	 * Calculate sum of road lengths for the routing island described by the routing nodes.
-	 * @param islandNodes the nodes that form the island
-	 * @param nodeToRoadMap maps first routing node in RoadDef to RoadDef 
+	 * @param graph the graph used to find the island
+	 * @param islandNodes the indexes of the nodes that form the island
+	 * @param firstRoad index of the first RoadDef that starts at a node or -1
+	 * @param nextRoad index of the next RoadDef that starts at the same node or -1
 	 * @param visitedRoads set that will be filled with the roads seen in this island 
 	 * @return the rounded sum of lengths in meters 
 	 */
-	private static long calcIslandSize(Collection<RouteNode> islandNodes, MultiHashMap<RouteNode, RoadDef> nodeToRoadMap,
+	private long calcIslandSize(RouteGraph graph, int[] islandNodes, int[] firstRoad, int[] nextRoad,
 			Set<RoadDef> visitedRoads) {
 		double sumLen = 0;
-		for (RouteNode node : islandNodes) {
-			for (RouteArc arc : node.arcsIteration()) {
+		for (int i : islandNodes) {
+			for (RouteArc arc : graph.getNode(i).arcsIteration()) {
 				if (arc.isDirect() && arc.isForward()) {
 					visitedRoads.add(arc.getRoadDef());
 				}
 			}
 			// we also have to check the first node of a each road, there might
 			// be no arc for it in the node
-			for (RoadDef rd : nodeToRoadMap.get(node)) {
-				visitedRoads.add(rd);
+			for (int r = firstRoad[i]; r >= 0; r = nextRoad[r]) {
+				visitedRoads.add(roadDefs.get(r));
 			}
 		}
 		for (RoadDef rd : visitedRoads) {
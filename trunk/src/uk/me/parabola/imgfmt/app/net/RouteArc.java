@@ -52,12 +52,14 @@ public class RouteArc {
 	private final RouteNode dest;
 
 	// The index in Table A describing this arc.
-	private int indexA;
+	private short indexA;
 	// The index in Table B that this arc goes via, if external.
-	private int indexB;
+	private short indexB;
 	
-	private int flagA;
-	private int flagB;
+	// the flag bytes are stored in bytes to keep the object small,
+	// use & 0xff when reading them
+	private byte flagA;
+	private byte flagB;
 
 	private final boolean haveCurve;
 	private final int length;
@@ -203,7 +205,7 @@ public class RouteArc {
 	 * Set this arc's index into Table A.
 	 */
 	public void setIndexA(int indexA) {
-		this.indexA = indexA;
+		this.indexA = (short) indexA;
 	}
 
 	/**
@@ -220,7 +222,7 @@ public class RouteArc {
 	 */
 	public void setIndexB(int indexB) {
 		assert !isInternal() : "Trying to set index on internal arc.";
-		this.indexB = indexB;
+		this.indexB = (short) indexB;
 	}
 
 	/**
@@ -282,7 +284,7 @@ public class RouteArc {
 		
 		offset = writer.position();
 		if(log.isDebugEnabled())
-			log.debug("writing arc at", offset, ", flagA=", Integer.toHexString(flagA));
+			log.debug("writing arc at", offset, ", flagA=", Integer.toHexString(flagA & 0xff));
 
 		// fetch destination class -- will have been set correctly by now
 		setDestinationClass(getArcDestClass());
@@ -290,18 +292,18 @@ public class RouteArc {
 		// determine how to write length and curve bit
 		int[] lendat = encodeLength();
 
-		writer.put1u(flagA);
+		writer.put1u(flagA & 0xff);
 		if (isInternal()) {
 			// space for 14 bit node offset, written in writeSecond.
-			writer.put1u(flagB);
+			writer.put1u(flagB & 0xff);
 			writer.put1u(0);
 		} else {
 			if(indexB < 0 || indexB >= 0x3f) {
-				writer.put1u(flagB | 0x3f);
+				writer.put1u((flagB & 0xff) | 0x3f);
 				writer.put1u(indexB);
 			}
 			else
-				writer.put1u(flagB | indexB);
+				writer.put1u((flagB & 0xff) | indexB);
 		}
 		
 		 // only write out the local net index if it is the first arc or else if newDir is set.
@@ -339,7 +341,7 @@ public class RouteArc {
 			return;
 
 		writer.position(offset + 1L);
-		int val = flagB << 8;
+		int val = (flagB & 0xff) << 8;
 		int diff = dest.getOffsetNod1() - source.getOffsetNod1();
 		assert diff < 0x2000 && diff >= -0x2000
 			: "relative pointer too large for 14 bits (source offset = " + source.getOffsetNod1() + ", dest offset = " + dest.getOffsetNod1() + ")";
@@ -174,6 +174,18 @@ public class RouteCenter {
 		return area;
 	}
 
+	List<RouteNode> getNodes() {
+		return nodes;
+	}
+
+	TableA getTableA() {
+		return tabA;
+	}
+
+	TableB getTableB() {
+		return tabB;
+	}
+
 	public String reportSizes() {
 		int nodesSize = 0;
 		for(RouteNode n : nodes)
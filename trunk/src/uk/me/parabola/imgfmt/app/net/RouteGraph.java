@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.net;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * A compact copy of the connections between the nodes of a road network.
+ * The nodes are numbered in the order of the given list, the destinations
+ * of the arcs of node i are stored in arcDest[arcStart[i]] to
+ * arcDest[arcStart[i+1]-1].
+ * The graph doesn't change when arcs are added to or removed from the nodes.
+ */
+class RouteGraph {
+	// graphs with at least this number of nodes are created and searched in parallel
+	private static final int MIN_NODES_FOR_PARALLEL = 10000;
+
+	private final List<RouteNode> nodes;
+	private final int[] arcStart;
+	private final int[] arcDest;
+
+	/**
+	 * Create the graph. The destination of each arc must be in the list.
+	 * @param nodes the nodes of the network
+	 */
+	RouteGraph(List<RouteNode> nodes) {
+		this.nodes = nodes;
+		int n = nodes.size();
+		arcStart = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			RouteNode node = nodes.get(i);
+			node.setGraphIndex(i);
+			arcStart[i + 1] = arcStart[i] + node.getArcs().size();
+		}
+		arcDest = new int[arcStart[n]];
+		nodeRange().forEach(i -> {
+			int pos = arcStart[i];
+			for (RouteArc arc : nodes.get(i).getArcs())
+				arcDest[pos++] = arc.getDest().getGraphIndex();
+		});
+	}
+
+	/**
+	 * @return the indexes of all nodes, parallel if the graph is big
+	 */
+	private IntStream nodeRange() {
+		IntStream range = IntStream.range(0, nodes.size());
+		return nodes.size() >= MIN_NODES_FOR_PARALLEL ? range.parallel() : range;
+	}
+
+	public int numNodes() {
+		return nodes.size();
+	}
+
+	public int numArcs() {
+		return arcDest.length;
+	}
+
+	public RouteNode getNode(int index) {
+		return nodes.get(index);
+	}
+
+	/**
+	 * Find the parts of the network which are not connected with each other.
+	 * Arcs are treated as undirected because each direct arc has a reverse arc.
+	 * The parts are found with a union-find on the arcs, a part is always linked
+	 * to the one with the lower first node, so the result doesn't depend on
+	 * the order in which the arcs are processed.
+	 * @return the indexes of the nodes for each part, in the order of the node
+	 * list. The parts are sorted by their first node.
+	 */
+	public List<int[]> getConnectedParts() {
+		int n = nodes.size();
+		// parent[i] <= i, the root of a part is its first node
+		AtomicIntegerArray parent = new AtomicIntegerArray(n);
+		nodeRange().forEach(i -> parent.set(i, i));
+		nodeRange().forEach(i -> {
+			for (int k = arcStart[i]; k < arcStart[i + 1]; k++) {
+				// the reverse arc gives the same link
+				if (arcDest[k] < i)
+					union(parent, i, arcDest[k]);
+			}
+		});
+		int[] roots = new int[n];
+		nodeRange().forEach(i -> roots[i] = find(parent, i));
+
+		int[] sizes = new int[n];
+		for (int root : roots)
+			sizes[root]++;
+		int[] partIndex = new int[n];
+		List<int[]> parts = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			int root = roots[i];
+			if (root == i) {
+				partIndex[i] = parts.size();
+				parts.add(new int[sizes[i]]);
+				sizes[i] = 0; // used as fill position
+			}
+			parts.get(partIndex[root])[sizes[root]++] = i;
+		}
+		return parts;
+	}
+
+	private static int find(AtomicIntegerArray parent, int node) {
+		int x = node;
+		while (true) {
+			int p = parent.get(x);
+			if (p == x)
+				return x;
+			// path splitting. A node that is no longer a root only points to nodes
+			// of the same part, so it doesn't matter if another thread changed it already
+			int gp = parent.get(p);
+			if (gp != p)
+				parent.lazySet(x, gp);
+			x = p;
+		}
+	}
+
+	private static void union(AtomicIntegerArray parent, int node1, int node2) {
+		while (true) {
+			int r1 = find(parent, node1);
+			int r2 = find(parent, node2);
+			if (r1 == r2)
+				return;
+			// link the higher root to the lower one, fails if it is no longer a root
+			if (r1 < r2 ? parent.compareAndSet(r2, r2, r1) : parent.compareAndSet(r1, r1, r2))
+				return;
+		}
+	}
+}
@@ -14,10 +14,8 @@
  */
 package uk.me.parabola.imgfmt.app.net;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
 import java.util.logging.Level;
@@ -59,8 +57,8 @@ public class RouteNode implements Comparable<RouteNode> {
 
 	// arcs from this node
 	private final List<RouteArc> arcs = new ArrayList<>(4);
-	// restrictions at (via) this node
-	private final List<RouteRestriction> restrictions = new ArrayList<>();
+	// restrictions at (via) this node, most nodes have none
+	private List<RouteRestriction> restrictions = Collections.emptyList();
 
 	private int flags;
 
@@ -108,6 +106,8 @@ public class RouteNode implements Comparable<RouteNode> {
 	}
 
 	public void addRestriction(RouteRestriction restr) {
+		if (restrictions.isEmpty())
+			restrictions = new ArrayList<>(2);
 		restrictions.add(restr);
 		flags |= F_RESTRICTIONS;
 	}
@@ -578,26 +578,15 @@ public class RouteNode implements Comparable<RouteNode> {
 		return result;
 	}
 
-	/** used to find routing island, but may also be used for other checks */
-	private int visitId;
-	
-	public int getVisitID() {
-		return visitId;
-	}
-
-	public void visitNet(int visitId, List<RouteNode> visited) {
-		if (this.visitId != visitId) {
-			Deque<RouteNode> toVisit = new ArrayDeque<>();
-			toVisit.add(this);
-			while(!toVisit.isEmpty()) {
-				RouteNode n = toVisit.pop();
-				if (n.visitId != visitId) {
-					n.arcs.forEach(a -> toVisit.addLast(a.getDest()));
-					visited.add(n);
-					n.visitId = visitId;
-				}
-			}
-		}
+	/** the index of this node in the last created {@link RouteGraph} */
+	private int graphIndex;
+
+	int getGraphIndex() {
+		return graphIndex;
+	}
+
+	void setGraphIndex(int graphIndex) {
+		this.graphIndex = graphIndex;
 	}
 
 
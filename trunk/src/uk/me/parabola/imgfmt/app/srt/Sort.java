@@ -18,6 +18,7 @@ import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.text.CollationKey;
@@ -26,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import uk.me.parabola.imgfmt.ExitException;
 import uk.me.parabola.imgfmt.app.Label;
@@ -53,6 +55,7 @@ import uk.me.parabola.imgfmt.app.Label;
 public class Sort {
 	private static final byte[] ZERO_KEY = new byte[4];
 	private static final Integer NO_ORDER = 0;
+	private static final int KEY_CACHE_SIZE = 1 << 18;
 
 	private int codepage;
 	private int id1; // Unknown - identifies the sort
@@ -74,6 +77,12 @@ public class Sort {
 
 	private int maxPrimary = 0;  // max seen while loading resource/sort/cp*.txt file. == 10690 for cp65001.txt on 18Oct2021
 
+	// The keys of the strings, used when the caller doesn't have its own cache. Shared by all threads.
+	private final Map<String, byte[]> keyCache = new ConcurrentHashMap<>();
+	// The encoder is not thread safe and the key is built in a buffer that is reused, so one per thread.
+	// They are shared by all the sorts, a new sort is created for each tile.
+	private static final ThreadLocal<KeyBuffers> keyBuffers = ThreadLocal.withInitial(KeyBuffers::new);
+
 	public Sort() {
 		pages[0] = new Page();
 	}
@@ -92,23 +101,17 @@ public class Sort {
 		int numExp = (flags >> 4) & 0xf;
 		if (numExp + 1 > maxExpSize)
 			maxExpSize = numExp + 1;
+		keyCache.clear();
 	}
 
 	public char[] encode(String s) {
-		char[] chars = null;
-		try {
-			if (isMulti()) {
-				chars = s.toCharArray();
-			} else {
-				ByteBuffer out = encoder.encode(CharBuffer.wrap(s));
-				byte[] bval = out.array();
-				chars = new char[bval.length];
-				for (int i = 0; i < bval.length; i++)
-					chars[i] = (char) (bval[i] & 0xff);
-			}
-		} catch (CharacterCodingException e) {
-		}
-		return chars;
+		if (isMulti())
+			return s.toCharArray();
+		KeyBuffers kb = keyBuffers.get();
+		int len = kb.encode(s, charset);
+		if (len < 0)
+			return null;
+		return Arrays.copyOf(kb.chars, len);
 	}
 	
 	/**
@@ -168,6 +171,7 @@ public class Sort {
 				}
 			}
 		}
+		keyCache.clear();
 	}
 
 	/**
@@ -206,34 +210,34 @@ public class Sort {
 		if (s.length() == 0)
 			return new SrtSortKey<>(object, ZERO_KEY, second);
 		
-		// If there is a cache then look up and return the key.
-		// This is primarily for memory management, not for speed.
-		byte[] key;
-		if (cache != null) {
-			key = cache.get(s);
-			if (key != null)
-				return new SrtSortKey<>(object, key, second);
+		// Look up the key in the cache of the caller or the one of the sort.
+		// This is for memory management and for speed, the same names are
+		// found in many tiles.
+		if (cache == null) {
+			cache = keyCache;
+			if (cache.size() >= KEY_CACHE_SIZE)
+				cache.clear();
 		}
-
-		try {
-			char[] chars;
-			if (isMulti()) {
-				chars = s.toCharArray();
-			} else {
-				ByteBuffer out = encoder.encode(CharBuffer.wrap(s));
-				byte[] bval = out.array();
-				chars = new char[bval.length];
-				for (int i = 0; i < bval.length; i++)
-					chars[i] = (char) (bval[i] & 0xff);
-			}
-			key = makeKey(chars);
-			if (cache != null)
-				cache.put(s, key);
-
+		byte[] key = cache.get(s);
+		if (key != null)
 			return new SrtSortKey<>(object, key, second);
-		} catch (CharacterCodingException e) {
-			return new SrtSortKey<>(object, ZERO_KEY);
+
+		KeyBuffers kb = keyBuffers.get();
+		int len;
+		char[] chars;
+		if (isMulti()) {
+			chars = s.toCharArray();
+			len = chars.length;
+		} else {
+			len = kb.encode(s, charset);
+			if (len < 0)
+				return new SrtSortKey<>(object, ZERO_KEY);
+			chars = kb.chars;
 		}
+		key = makeKey(chars, len, kb);
+		cache.put(s, key);
+
+		return new SrtSortKey<>(object, key, second);
 	}
 
 	/**
@@ -258,7 +262,7 @@ public class Sort {
 		}
 
 		char[] encText = label.getEncText();
-		key = makeKey(encText);
+		key = makeKey(encText, encText.length, keyBuffers.get());
 		if (cache != null)
 			cache.put(label, key);
 
@@ -320,7 +324,7 @@ public class Sort {
 			encText = newEncText;
 		}
 		 
-		key = makeKey(encText);
+		key = makeKey(encText, encText.length, keyBuffers.get());
 		if (cache != null)
 			cache.put(label, key);
 
@@ -353,48 +357,72 @@ public class Sort {
 	}
 
 	/**
-	 * Create the key and trim it to the needed length if that saves memory.
+	 * Create the key in the buffer of the thread and copy it to an array of the needed length.
 	 * @param chars character array
+	 * @param len the number of characters to use
+	 * @param kb the buffers of this thread
 	 * @return byte array 
 	 */
-	private byte[] makeKey(char[] chars) {
+	private byte[] makeKey(char[] chars, int len, KeyBuffers kb) {
+		byte[] buf = kb.keyBuffer(maxKeyLength(len));
+		int needed = fillCompleteKey(chars, len, buf);
+
+		// The keys used to be allocated with a minimal size which was only increased to the
+		// maximum size if needed. If that size was not more than 8 bytes bigger than the key
+		// the key was not trimmed, the trailing zero bytes are part of the comparison.
+		// This is kept so that the sort order is exactly the same.
+		int size = (len + 1 + 2) * 4;
+		if (needed > size)
+			size = maxKeyLength(len);
+		int neededBytes = (needed + 7) & ~7;
+		if (neededBytes < size)
+			size = needed;
+		byte[] key = new byte[size];
+		System.arraycopy(buf, 0, key, 0, needed);
+		return key;
+	}
+
+	/**
+	 * @param len The number of characters.
+	 * @return The size of a buffer that is big enough for the sort key of any string
+	 * with that many characters.
+	 */
+	public int maxKeyLength(int len) {
 		// In theory you could have a string where every character expands into maxExpSize separate characters
-		// in the key.  However if we allocate enough space to deal with the worst case, then we waste a
-		// vast amount of memory. So allocate a minimal amount of space, try it and if it fails reallocate the
-		// maximum amount.
-		//
-		// We need +1 for the null bytes, we also +2 for a couple of expanded characters. For a complete
-		// german map this was always enough in tests.
-		byte[] key = new byte[(chars.length + 1 + 2) * 4];
-		int needed;
+		// in the key. We need +1 for the null bytes.
+		return (len + 1) * 4 * maxExpSize;
+	}
+
+	/**
+	 * Write the sort key for some characters into a buffer provided by the caller. Nothing is allocated,
+	 * so this can be used when many keys are needed only for a short time.
+	 *
+	 * @param chars The characters in the code page of this sort, as returned by {@link #encode}.
+	 * @param len The number of characters to use.
+	 * @param outKey The buffer for the key. If it is at least {@link #maxKeyLength} bytes long it is
+	 * always big enough.
+	 * @return The length of the key or -1 if the buffer is too small.
+	 */
+	public int fillSortKey(char[] chars, int len, byte[] outKey) {
 		try {
-			needed = fillCompleteKey(chars, key);
+			return fillCompleteKey(chars, len, outKey);
 		} catch (ArrayIndexOutOfBoundsException e) {
-			// Ok try again with the max possible key size allocated.
-			key = new byte[(chars.length+1) * 4 * maxExpSize];
-			needed = fillCompleteKey(chars, key);
-		}
-		// check if we can save bytes by copying
-		int neededBytes = needed;
-		int padding2 = 8 - (needed & 7);
-		if (padding2 != 8)
-			neededBytes += padding2;
-		if (neededBytes < key.length)
-			key = Arrays.copyOf(key, needed);
-		return key;
+			return -1;
+		}
 	}
  	
 	/**
 	 * Fill in the key from the given byte string.
 	 *
 	 * @param bVal The string for which we are creating the sort key.
+	 * @param len The number of characters in bVal to use.
 	 * @param key The sort key. This will be filled in.
 	 * @return the needed number of bytes in case the buffer was large enough
 	 */
-	private int fillCompleteKey(char[] bVal, byte[] key) {
-		int start = fillKey(Collator.PRIMARY, bVal, key, 0);
-		start = fillKey(Collator.SECONDARY, bVal, key, start);
-		return fillKey(Collator.TERTIARY, bVal, key, start);
+	private int fillCompleteKey(char[] bVal, int len, byte[] key) {
+		int start = fillKey(Collator.PRIMARY, bVal, len, key, 0);
+		start = fillKey(Collator.SECONDARY, bVal, len, key, start);
+		return fillKey(Collator.TERTIARY, bVal, len, key, start);
 	}
 
 	private static int writeSort(int strength, int pos, byte[] outKey, int start) {
@@ -408,13 +436,15 @@ public class Sort {
 	 * Fill in the output key for a given strength.
 	 *
 	 * @param input The input string in a particular 8 bit codepage.
+	 * @param len The number of characters in input to use.
 	 * @param outKey The output sort key.
 	 * @param start The index into the output key to start at.
 	 * @return The next position in the output key.
 	 */
-	private int fillKey(int type, char[] input, byte[] outKey, int start) {
+	private int fillKey(int type, char[] input, int len, byte[] outKey, int start) {
 		int index = start;
-		for (char c : input) {
+		for (int ci = 0; ci < len; ci++) {
+			char c = input[ci];
 
 			if (!hasPage(c >>> 8)) {
 				if (isMulti() && type == Collator.PRIMARY) // attempt to avoid conflict with defined sorts. Be consistent with SrtCollator
@@ -507,6 +537,7 @@ public class Sort {
 
 		encoder = charset.newEncoder();
 		encoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		keyCache.clear();
 	}
 
 	public String getDescription() {
@@ -576,6 +607,7 @@ public class Sort {
 
 	public void setMulti(boolean multi) {
 		this.multi = multi;
+		keyCache.clear();
 	}
 
 	public boolean isMulti() {
@@ -895,6 +927,7 @@ public class Sort {
 	public void setExpansions(List<CodePosition> expansionList) {
 		expansions.clear();
 		expansions.addAll(expansionList);
+		keyCache.clear();
 	}
 
 	public int getHeaderLen() {
@@ -915,4 +948,58 @@ public class Sort {
 		this.header3Len = header3Len;
 	}
 
+	/**
+	 * The buffers that are used to create the keys. They are reused for all
+	 * the keys of a thread. They don't refer to the sort, so that the sorts
+	 * of the finished tiles are not kept by the threads.
+	 */
+	private static class KeyBuffers {
+		private Charset encoderCharset;
+		private CharsetEncoder enc;
+		private ByteBuffer bytes = ByteBuffer.allocate(256);
+		private char[] chars = new char[256];
+		private byte[] key = new byte[1024];
+
+		/**
+		 * Encode the string in the code page of the sort, the result is in chars.
+		 * @param charset The charset of the sort.
+		 * @return The number of characters or -1 if the string cannot be encoded.
+		 */
+		int encode(String s, Charset charset) {
+			if (enc == null || encoderCharset != charset) {
+				encoderCharset = charset;
+				enc = charset.newEncoder();
+				enc.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			}
+			int size = (int) (s.length() * enc.maxBytesPerChar()) + 16;
+			if (bytes.capacity() < size)
+				bytes = ByteBuffer.allocate(size);
+			while (true) {
+				bytes.clear();
+				enc.reset();
+				CoderResult cr = enc.encode(CharBuffer.wrap(s), bytes, true);
+				if (cr.isUnderflow())
+					cr = enc.flush(bytes);
+				if (cr.isUnderflow())
+					break;
+				if (!cr.isOverflow())
+					return -1;
+				bytes = ByteBuffer.allocate(bytes.capacity() * 2);
+			}
+
+			int len = bytes.position();
+			if (chars.length < len)
+				chars = new char[len];
+			byte[] bval = bytes.array();
+			for (int i = 0; i < len; i++)
+				chars[i] = (char) (bval[i] & 0xff);
+			return len;
+		}
+
+		byte[] keyBuffer(int size) {
+			if (key.length < size)
+				key = new byte[size];
+			return key;
+		}
+	}
 }
@@ -24,24 +24,41 @@ import java.util.Arrays;
 class SrtSortKey<T> implements SortKey<T> {
 	private final T orig;
 	private final byte[] key;
+	// the first 8 bytes of the key, most keys differ here
+	private final long prefix;
 	private int second;
 
 	public SrtSortKey(T orig, byte[] key) {
-		this.orig = orig;
-		this.key = key;
+		this(orig, key, 0);
 	}
 
 	public SrtSortKey(T orig, byte[] key, int second) {
 		this.orig = orig;
 		this.key = key;
 		this.second = second;
+		this.prefix = prefix(key);
+	}
+
+	private static long prefix(byte[] key) {
+		if (key.length < 8)
+			return 0;
+		long val = 0;
+		for (int i = 0; i < 8; i++)
+			val = (val << 8) | (key[i] & 0xff);
+		return val;
 	}
 
 	public int compareTo(SortKey<T> o) {
 		SrtSortKey<T> other = (SrtSortKey<T>) o;
 		if (key != other.key) {
 			int length = Math.min(this.key.length, other.key.length);
-			for (int i = 0; i < length; i++) {
+			int i = 0;
+			if (length >= 8) {
+				if (prefix != other.prefix)
+					return Long.compareUnsigned(prefix, other.prefix) < 0 ? -1 : 1;
+				i = 8;
+			}
+			for (; i < length; i++) {
 				int k1 = this.key[i] & 0xff;
 				int k2 = other.key[i] & 0xff;
 				if (k1 < k2) {
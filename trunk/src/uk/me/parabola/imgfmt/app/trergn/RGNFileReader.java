@@ -18,12 +18,12 @@ import java.util.List;
 
 import uk.me.parabola.imgfmt.Utils;
 import uk.me.parabola.imgfmt.app.BitReader;
-import uk.me.parabola.imgfmt.app.BufferedImgFileReader;
 import uk.me.parabola.imgfmt.app.Coord;
 import uk.me.parabola.imgfmt.app.CoordNode;
 import uk.me.parabola.imgfmt.app.ImgFileReader;
 import uk.me.parabola.imgfmt.app.ImgReader;
 import uk.me.parabola.imgfmt.app.Label;
+import uk.me.parabola.imgfmt.app.MappedImgFileReader;
 import uk.me.parabola.imgfmt.app.lbl.LBLFileReader;
 import uk.me.parabola.imgfmt.app.lbl.POIRecord;
 import uk.me.parabola.imgfmt.app.net.NETFileReader;
@@ -56,7 +56,7 @@ public class RGNFileReader extends ImgReader {
 		rgnHeader = new RGNHeader();
 		setHeader(rgnHeader);
 
-		setReader(new BufferedImgFileReader(chan));
+		setReader(MappedImgFileReader.create(chan));
 		rgnHeader.readHeader(getReader());
 	}
 
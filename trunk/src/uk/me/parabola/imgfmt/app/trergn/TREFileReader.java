@@ -16,10 +16,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 import uk.me.parabola.imgfmt.app.Area;
-import uk.me.parabola.imgfmt.app.BufferedImgFileReader;
 import uk.me.parabola.imgfmt.app.ImgFileReader;
 import uk.me.parabola.imgfmt.app.ImgReader;
 import uk.me.parabola.imgfmt.app.Label;
+import uk.me.parabola.imgfmt.app.MappedImgFileReader;
 import uk.me.parabola.imgfmt.app.Section;
 import uk.me.parabola.imgfmt.app.labelenc.CharacterDecoder;
 import uk.me.parabola.imgfmt.app.labelenc.CodeFunctions;
@@ -57,7 +57,7 @@ public class TREFileReader extends ImgReader {
 	public TREFileReader(ImgChannel chan, int gmpOffset) {
 		setHeader(header);
 
-		setReader(new BufferedImgFileReader(chan, gmpOffset));
+		setReader(MappedImgFileReader.create(chan, gmpOffset));
 		header.readHeader(getReader());
 		tre7Magic = header.getTre7Magic();
 		readMapLevels();
@@ -16,6 +16,7 @@
  */
 package uk.me.parabola.imgfmt.fs;
 
+import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
 
 /**
@@ -42,4 +43,15 @@ public interface ImgChannel extends  ByteChannel {
 	 * @param pos The position to set.
 	 */
 	public void position(long pos);
+
+	/**
+	 * Get the whole content of the file as a read only buffer without
+	 * copying it, if this is possible.
+	 *
+	 * @return A buffer with position 0 and the size of the file as limit,
+	 * or null if the file cannot be accessed in this way.
+	 */
+	default ByteBuffer mapReadOnly() {
+		return null;
+	}
 }
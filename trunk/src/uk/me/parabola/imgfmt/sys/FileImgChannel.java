@@ -49,6 +49,10 @@ public class FileImgChannel implements ImgChannel {
 		this.channel = channel;
 	}
 
+	FileChannel getChannel() {
+		return channel;
+	}
+
 	public int read(ByteBuffer dst) throws IOException {
 		int n = channel.read(dst);
 		if (n > 0)
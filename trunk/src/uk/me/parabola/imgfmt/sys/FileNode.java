@@ -25,6 +25,9 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.NonReadableChannelException;
 import java.nio.channels.NonWritableChannelException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import uk.me.parabola.imgfmt.Sized;
 import uk.me.parabola.imgfmt.fs.ImgChannel;
@@ -53,6 +56,12 @@ public class FileNode implements ImgChannel, FileLink {
 	private byte xorByte;
 	private Closeable outerClose;
 
+	// The mapped content of the whole img file, if available
+	private ByteBuffer mappedImg;
+
+	// A copy that is running in the background
+	private Future<?> pendingTransfer;
+
 	/**
 	 * Creates a new file in the file system.  You can treat this just like
 	 * a regular file and write or read from it.
@@ -111,6 +120,7 @@ public class FileNode implements ImgChannel, FileLink {
 		open = false;
 		readable = false;
 		writeable = false;
+		mappedImg = null;
 	}
 
 	/**
@@ -339,6 +349,203 @@ public class FileNode implements ImgChannel, FileLink {
 		this.xorByte = xorByte;
 	}
 
+	/**
+	 * Set the read only mapping of the whole img file. It is used by
+	 * {@link #mapReadOnly()}.
+	 * @param mappedImg The mapped img file.
+	 */
+	void setMappedImg(ByteBuffer mappedImg) {
+		this.mappedImg = mappedImg;
+	}
+
+	/**
+	 * The file is available as a slice of the mapped img file if it was opened
+	 * for reading only and all its blocks are contiguous, which is the case for
+	 * the files written by mkgmap.
+	 */
+	@Override
+	public ByteBuffer mapReadOnly() {
+		if (mappedImg == null)
+			return null;
+		long start = contiguousStart();
+		long size = dirent.getSize();
+		if (start < 0 || start + size > mappedImg.capacity())
+			return null;
+		ByteBuffer buf = mappedImg.duplicate();
+		buf.limit((int) (start + size));
+		buf.position((int) start);
+		return buf.slice();
+	}
+
+	/**
+	 * Get the position of this file in the underlying file if it can be read
+	 * directly from there.
+	 *
+	 * @return The position or -1 if the file is not opened for reading only,
+	 * the bytes are xor'ed or the blocks of the file are not contiguous.
+	 */
+	private long contiguousStart() {
+		if (writeable || !readable || xorByte != 0)
+			return -1;
+
+		long blockSize = blockManager.getBlockSize();
+		int numBlocks = (int) ((dirent.getSize() + blockSize - 1) / blockSize);
+		int first = dirent.getPhysicalBlock(0);
+		if (numBlocks == 0 || first == 0xffff)
+			return -1;
+		for (int i = 1; i < numBlocks; i++) {
+			if (dirent.getPhysicalBlock(i) != first + i)
+				return -1;
+		}
+		return first * blockSize;
+	}
+
+	/**
+	 * Copy the complete content of another file into this file, which must
+	 * still be empty. The blocks for the whole file are allocated first and the
+	 * content is transferred with {@link FileChannel#transferTo} from the file
+	 * that holds the source, so the bytes are not copied through the heap.
+	 *
+	 * @param src The file to copy, either a file in another img file or
+	 * a regular file.
+	 * @return The number of bytes copied or -1 if this is not possible for the
+	 * given source. The caller has to copy the file by reading and writing then.
+	 * @throws IOException If there is an error reading or writing.
+	 */
+	public long transferFrom(ImgChannel src) throws IOException {
+		if (!isEmptyForWrite())
+			return -1;
+
+		FileChannel srcFile;
+		long srcStart;
+		long size;
+		if (src instanceof FileNode) {
+			FileNode node = (FileNode) src;
+			srcFile = node.file;
+			srcStart = node.contiguousStart();
+			size = node.getSize();
+		} else if (src instanceof FileImgChannel) {
+			srcFile = ((FileImgChannel) src).getChannel();
+			srcStart = 0;
+			size = srcFile.size();
+		} else {
+			return -1;
+		}
+		if (srcStart < 0 || size > Integer.MAX_VALUE)
+			return -1;
+
+		int[] blocks = allocateBlocks((int) size);
+
+		// Transfer each run of contiguous blocks at once, normally there is only one.
+		int blockSize = blockManager.getBlockSize();
+		long done = 0;
+		int i = 0;
+		while (i < blocks.length) {
+			int runStart = i;
+			while (i + 1 < blocks.length && blocks[i + 1] == blocks[i] + 1)
+				i++;
+			i++;
+			long count = Math.min((long) (i - runStart) * blockSize, size - done);
+			long outPos = (long) blocks[runStart] * blockSize;
+			file.position(outPos);
+			long n = 0;
+			while (n < count) {
+				long nt = srcFile.transferTo(srcStart + done + n, count - n, file);
+				if (nt <= 0)
+					throw new IOException("Transferred nothing");
+				n += nt;
+			}
+			file.position(outPos + count);
+			done += count;
+		}
+		return size;
+	}
+
+	/**
+	 * Like {@link #transferFrom(ImgChannel)}, but if the source can be mapped
+	 * (see {@link ImgChannel#mapReadOnly()}) only the blocks are allocated now
+	 * and the content is written by a task of the given executor. The blocks
+	 * are the same as with a direct copy and the writes don't use the
+	 * position of the underlying file, so any number of files can be copied
+	 * at the same time. The file system waits for the tasks before it is
+	 * closed.
+	 *
+	 * @param src The file to copy.
+	 * @param executor Runs the copy.
+	 * @return The number of bytes that are copied or -1 if this is not possible.
+	 * @throws IOException If there is an error reading or writing.
+	 */
+	public long transferFrom(ImgChannel src, ExecutorService executor) throws IOException {
+		if (!isEmptyForWrite())
+			return -1;
+		ByteBuffer buf = src.mapReadOnly();
+		if (buf == null)
+			return transferFrom(src);
+
+		int size = buf.remaining();
+		int[] blocks = allocateBlocks(size);
+		int blockSize = blockManager.getBlockSize();
+		// the file position is needed to complete the last block when this file is closed
+		int last = blocks.length - 1;
+		if (last >= 0)
+			file.position((long) blocks[last] * blockSize + (size - last * blockSize));
+
+		pendingTransfer = executor.submit(() -> {
+			for (int i = 0; i < blocks.length; i++) {
+				ByteBuffer part = buf.duplicate();
+				part.position(i * blockSize);
+				part.limit(Math.min(size, (i + 1) * blockSize));
+				long outPos = (long) blocks[i] * blockSize;
+				while (part.hasRemaining())
+					outPos += file.write(part, outPos);
+			}
+			return null;
+		});
+		return size;
+	}
+
+	/**
+	 * Wait until the copy that was started by {@link #transferFrom(ImgChannel, ExecutorService)}
+	 * is finished.
+	 *
+	 * @throws IOException If the copy failed.
+	 */
+	void awaitTransfer() throws IOException {
+		if (pendingTransfer == null)
+			return;
+		try {
+			pendingTransfer.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while copying " + dirent.getFullName(), e);
+		} catch (ExecutionException e) {
+			throw new IOException("Could not copy " + dirent.getFullName(), e.getCause());
+		} finally {
+			pendingTransfer = null;
+		}
+	}
+
+	private boolean isEmptyForWrite() {
+		return open && writeable && position == 0 && dirent.getPhysicalBlock(0) == 0xffff;
+	}
+
+	/**
+	 * Allocate all blocks for a file of the given size and set the size.
+	 * @return The allocated blocks.
+	 */
+	private int[] allocateBlocks(int size) {
+		int blockSize = blockManager.getBlockSize();
+		int numBlocks = (size + blockSize - 1) / blockSize;
+		int[] blocks = new int[numBlocks];
+		for (int i = 0; i < numBlocks; i++) {
+			blocks[i] = blockManager.allocate();
+			dirent.addBlock(blocks[i]);
+		}
+		position = size;
+		dirent.setSize(size);
+		return blocks;
+	}
+
 	public String toString() {
 		return String.format("%s %d", dirent.getFullName(), getSize());
 	}
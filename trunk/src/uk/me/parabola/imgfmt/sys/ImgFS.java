@@ -77,6 +77,11 @@ public class ImgFS implements FileSystem {
 	// if non-zero, all bytes are XORed with this
 	private byte xorByte;
 
+	// The read only mapping of the whole file, shared by all files opened for reading
+	private ByteBuffer mappedFile;
+	private boolean mappingTried;
+	private boolean mappingAllowed = true;
+
 	/**
 	 * Private constructor, use the static {@link #createFs} and {@link #openFs}
 	 * routines to make a filesystem.
@@ -133,16 +138,32 @@ public class ImgFS implements FileSystem {
 	 * read.
 	 */
 	public static FileSystem openFs(String name) throws FileNotFoundException {
+		return openFs(name, true);
+	}
+
+	/**
+	 * Open an existing IMG file system.
+	 * @param name The file name to open.
+	 * @param mapped False if the file must not be mapped into memory, for
+	 * example because it is deleted later in the run. A mapping is only
+	 * released by the garbage collector and some systems don't allow to
+	 * delete a mapped file.
+	 * @return A File system that can be used lookup the internal files.
+	 * @throws FileNotFoundException When the file doesn't exist or can't be
+	 * read.
+	 */
+	public static FileSystem openFs(String name, boolean mapped) throws FileNotFoundException {
 		try {
 			FileChannel chan = FileChannel.open(Paths.get(name), StandardOpenOption.READ);
-			return openFs(name, chan);
+			return openFs(name, chan, mapped);
 		} catch (IOException e) {
 			throw new FileNotFoundException("Failed to create or open file " + name);
 		}
 	}
 
-	private static FileSystem openFs(String name, FileChannel chan) throws FileNotFoundException {
+	private static FileSystem openFs(String name, FileChannel chan, boolean mapped) throws FileNotFoundException {
 		ImgFS fs = new ImgFS(chan);
+		fs.mappingAllowed = mapped;
 
 		try {
 			fs.readInitFS(chan);
@@ -187,6 +208,8 @@ public class ImgFS implements FileSystem {
 			FileNode fn = new FileNode(file, ent, "r");
 			if(xorByte != 0)
 				fn.setXorByte(xorByte);
+			else
+				fn.setMappedImg(getMappedFile());
 			return fn;
 		} else if (mode.indexOf('w') >= 0) {
 			Dirent ent;
@@ -252,6 +275,18 @@ public class ImgFS implements FileSystem {
 		for (FileNode n : openNodes) {
 			n.close();
 		}
+		// wait for the copies that are running in the background
+		IOException copyFailed = null;
+		for (FileNode n : openNodes) {
+			try {
+				n.awaitTransfer();
+			} catch (IOException e) {
+				if (copyFailed == null)
+					copyFailed = e;
+			}
+		}
+		if (copyFailed != null)
+			throw copyFailed;
 
 		header.createHeader(param);
 		header.setNumBlocks(totalBlocks);
@@ -315,6 +350,29 @@ public class ImgFS implements FileSystem {
 		return sizeInBlocks;
 	}
 
+	/**
+	 * Map the whole file once, the files in it are slices of this mapping.
+	 * This avoids a separate mapping for each file.
+	 *
+	 * @return The mapped file or null if the file is not opened read only
+	 * or it cannot be mapped.
+	 */
+	private ByteBuffer getMappedFile() {
+		if (mappingTried)
+			return mappedFile;
+		mappingTried = true;
+		if (!readOnly || !mappingAllowed)
+			return null;
+		try {
+			long size = file.size();
+			if (size <= Integer.MAX_VALUE)
+				mappedFile = file.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		} catch (IOException e) {
+			log.debug("could not map file", e.getMessage());
+		}
+		return mappedFile;
+	}
+
 	/**
 	 * Close the filesystem.  Any saved data is flushed out.  It is better
 	 * to explicitly sync the data out first, to be sure that it has worked.
@@ -326,6 +384,8 @@ public class ImgFS implements FileSystem {
 		} catch (IOException e) {
 			log.debug("could not sync filesystem");
 		} finally {
+			// the buffer is unmapped when it is no longer referenced
+			mappedFile = null;
 			try {
 				file.close();
 			} catch (IOException e) {
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+import java.util.logging.LogRecord;
+
+/**
+ * A handler that passes the records to another handler in a background
+ * thread. The threads that log only put the record into a ring buffer
+ * and don't have to wait for the file or console to be written, nor for
+ * each other.
+ *
+ * Configured in the logging configuration file, for example:
+ * <pre>
+ * handlers: uk.me.parabola.log.AsyncHandler
+ * uk.me.parabola.log.AsyncHandler.target=java.util.logging.FileHandler
+ * uk.me.parabola.log.AsyncHandler.capacity=8192
+ * </pre>
+ * The target handler is configured with its own properties as usual.
+ *
+ * If the buffer is full a logging thread waits until there is space,
+ * no message is lost.
+ */
+public class AsyncHandler extends Handler {
+	private static final int DEFAULT_CAPACITY = 8192;
+	private static final LogRecord FLUSH = new LogRecord(Level.OFF, "flush");
+
+	private final Handler target;
+	private final BlockingQueue<LogRecord> queue;
+	private final Thread writer;
+	// the source is found from the stack, so this must be done by the thread that logs
+	private final boolean inferCaller;
+
+	private final Object flushLock = new Object();
+	private long flushRequested;
+	private long flushDone;
+
+	private volatile boolean closed;
+
+	/**
+	 * Create the handler from the logging configuration.
+	 */
+	public AsyncHandler() {
+		this(createTarget(), getCapacity());
+		String level = LogManager.getLogManager().getProperty(AsyncHandler.class.getName() + ".level");
+		if (level != null)
+			setLevel(Level.parse(level.trim()));
+	}
+
+	public AsyncHandler(Handler target, int capacity) {
+		this.target = target;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.inferCaller = !(target.getFormatter() instanceof UsefulFormatter);
+
+		writer = new Thread(this::run, "mkgmap-log");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	private static Handler createTarget() {
+		String name = LogManager.getLogManager().getProperty(AsyncHandler.class.getName() + ".target");
+		if (name == null)
+			name = java.util.logging.ConsoleHandler.class.getName();
+		try {
+			return (Handler) Class.forName(name.trim()).getConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IllegalArgumentException("Cannot create log handler " + name, e);
+		}
+	}
+
+	private static int getCapacity() {
+		String val = LogManager.getLogManager().getProperty(AsyncHandler.class.getName() + ".capacity");
+		if (val == null)
+			return DEFAULT_CAPACITY;
+		try {
+			return Math.max(1, Integer.parseInt(val.trim()));
+		} catch (NumberFormatException e) {
+			return DEFAULT_CAPACITY;
+		}
+	}
+
+	public void publish(LogRecord record) {
+		if (closed || record == null || !isLoggable(record))
+			return;
+		if (inferCaller)
+			record.getSourceClassName();
+		try {
+			queue.put(record);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run() {
+		try {
+			while (true) {
+				LogRecord record = queue.take();
+				if (record == FLUSH) {
+					target.flush();
+					synchronized (flushLock) {
+						flushDone++;
+						flushLock.notifyAll();
+					}
+					if (closed && queue.isEmpty())
+						return;
+				} else {
+					write(record);
+				}
+			}
+		} catch (InterruptedException e) {
+			// closing, the rest is written by close
+		}
+	}
+
+	private void write(LogRecord record) {
+		try {
+			target.publish(record);
+		} catch (RuntimeException e) {
+			reportError(null, e, ErrorManager.WRITE_FAILURE);
+		}
+	}
+
+	/**
+	 * Wait until all the records that are in the buffer are written.
+	 */
+	public void flush() {
+		if (!writer.isAlive()) {
+			drain();
+			return;
+		}
+		long ticket;
+		synchronized (flushLock) {
+			ticket = ++flushRequested;
+		}
+		try {
+			queue.put(FLUSH);
+			synchronized (flushLock) {
+				while (flushDone < ticket && writer.isAlive())
+					flushLock.wait(100);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public void close() {
+		if (closed)
+			return;
+		closed = true;
+		flush();
+		writer.interrupt();
+		try {
+			writer.join(1000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		drain();
+		target.close();
+	}
+
+	/**
+	 * Write the records that are still in the buffer in the calling thread.
+	 */
+	private void drain() {
+		List<LogRecord> rest = new ArrayList<>();
+		queue.drainTo(rest);
+		for (LogRecord r : rest) {
+			if (r != FLUSH)
+				write(r);
+		}
+		target.flush();
+	}
+}
@@ -21,6 +21,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Properties;
+import java.util.function.Supplier;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
@@ -31,9 +32,21 @@ import java.util.logging.LogManager;
  * to make easier logging without having to do string concatenation in the
  * regular code.
  *
+ * Messages with up to four parts should be logged with the methods that
+ * take a fixed number of arguments, so that no array is created if the
+ * message is not logged. If a part is expensive to create, pass a lambda to
+ * the methods that take a {@link Supplier}.
+ *
+ * Without a logging configuration only severe messages are logged and this is
+ * known when the class is loaded, so the checks of the debug and info methods
+ * are constant and removed by the compiler.
+ *
  * @author Steve Ratcliffe
  */
 public class Logger {
+	/** True if the levels are set by a configuration file given with -Dlog.config */
+	private static final boolean CONFIGURED = System.getProperty("log.config") != null;
+
 	private final java.util.logging.Logger log;
 	private final boolean addPrefix;
 	public static final Logger defaultLogger = new Logger(java.util.logging.Logger.GLOBAL_LOGGER_NAME, false);
@@ -72,6 +85,10 @@ public class Logger {
 		return getLogger(name);
 	}
 
+	/**
+	 * Read the logging configuration from a file. Messages below warnings
+	 * are only logged if there was also a configuration at startup.
+	 */
 	public static void resetLogging(String filename) {
 		initLoggingFromFile(filename);
 	}
@@ -126,15 +143,22 @@ public class Logger {
 	}
 
 	public boolean isLoggable(Level level) {
+		if (!CONFIGURED && level.intValue() < Level.WARNING.intValue())
+			return false;
 		return log.isLoggable(level);
 	}
 
 	public boolean isDebugEnabled() {
-		return log.isLoggable(Level.FINE);
+		return CONFIGURED && log.isLoggable(Level.FINE);
 	}
 
 	public boolean isInfoEnabled() {
-		return log.isLoggable(Level.INFO);
+		return CONFIGURED && log.isLoggable(Level.INFO);
+	}
+
+	private boolean isWarnEnabled() {
+		// the default logger shows warnings without a configuration
+		return (CONFIGURED || !addPrefix) && log.isLoggable(Level.WARNING);
 	}
 
 	/**
@@ -148,10 +172,34 @@ public class Logger {
 	 * @param o The object to be logged.
 	 */
 	public void debug(Object o) {
-		if (log.isLoggable(Level.FINE))
+		if (isDebugEnabled())
 			log.fine(tagMessage(o == null? "null" : o.toString()));
 	}
 
+	public void debug(Object o1, Object o2) {
+		if (isDebugEnabled())
+			log.fine(tagMessage(o1 + " " + o2));
+	}
+
+	public void debug(Object o1, Object o2, Object o3) {
+		if (isDebugEnabled())
+			log.fine(tagMessage(o1 + " " + o2 + " " + o3));
+	}
+
+	public void debug(Object o1, Object o2, Object o3, Object o4) {
+		if (isDebugEnabled())
+			log.fine(tagMessage(o1 + " " + o2 + " " + o3 + " " + o4));
+	}
+
+	/**
+	 * Debug message that is only created if it is logged.
+	 * @param msg Creates the message.
+	 */
+	public void debug(Supplier<?> msg) {
+		if (isDebugEnabled())
+			log.fine(tagMessage(String.valueOf(msg.get())));
+	}
+
 	/**
 	 * Log a message that consists of a variable number of arguments.  The
 	 * arguments are simply concatenated with a space between them.
@@ -162,37 +210,77 @@ public class Logger {
 	 * @param olist The list of objects to log as one message.
 	 */
 	public void debug(Object ... olist) {
-		if (log.isLoggable(Level.FINE))
+		if (isDebugEnabled())
 			arrayFormat(Level.FINE, olist);
 	}
 
 	public void info(Object o) {
-		if (log.isLoggable(Level.INFO))
+		if (isInfoEnabled())
 			log.info(tagMessage(o == null? "null" : o.toString()));
 	}
 
+	public void info(Object o1, Object o2) {
+		if (isInfoEnabled())
+			log.info(tagMessage(o1 + " " + o2));
+	}
+
+	public void info(Object o1, Object o2, Object o3) {
+		if (isInfoEnabled())
+			log.info(tagMessage(o1 + " " + o2 + " " + o3));
+	}
+
+	public void info(Object o1, Object o2, Object o3, Object o4) {
+		if (isInfoEnabled())
+			log.info(tagMessage(o1 + " " + o2 + " " + o3 + " " + o4));
+	}
+
+	public void info(Supplier<?> msg) {
+		if (isInfoEnabled())
+			log.info(tagMessage(String.valueOf(msg.get())));
+	}
+
 	public void info(Object ... olist) {
-		if (log.isLoggable(Level.INFO))
+		if (isInfoEnabled())
 			arrayFormat(Level.INFO, olist);
 	}
 
 	public void infof(String fmt, Object... args) {
-		if (log.isLoggable(Level.INFO))
+		if (isInfoEnabled())
 			printf(Level.INFO, fmt, args);
 	}
 
 	public void warn(Object o) {
-		if (log.isLoggable(Level.WARNING))
+		if (isWarnEnabled())
 			log.warning(tagMessage(o == null? "null" : o.toString()));
 	}
 
+	public void warn(Object o1, Object o2) {
+		if (isWarnEnabled())
+			log.warning(tagMessage(o1 + " " + o2));
+	}
+
+	public void warn(Object o1, Object o2, Object o3) {
+		if (isWarnEnabled())
+			log.warning(tagMessage(o1 + " " + o2 + " " + o3));
+	}
+
+	public void warn(Object o1, Object o2, Object o3, Object o4) {
+		if (isWarnEnabled())
+			log.warning(tagMessage(o1 + " " + o2 + " " + o3 + " " + o4));
+	}
+
+	public void warn(Supplier<?> msg) {
+		if (isWarnEnabled())
+			log.warning(tagMessage(String.valueOf(msg.get())));
+	}
+
 	public void warn(Object ... olist) {
-		if (log.isLoggable(Level.WARNING))
+		if (isWarnEnabled())
 			arrayFormat(Level.WARNING, olist);
 	}
 
 	public void warnf(String fmt, Object... args) {
-		if (log.isLoggable(Level.WARNING))
+		if (isWarnEnabled())
 			printf(Level.WARNING, fmt, args);
 	}
 
@@ -228,12 +316,12 @@ public class Logger {
 	}
 
 	public void log(Level level, Object o) {
-		if (log.isLoggable(level))
+		if (isLoggable(level))
 			log.log(level, tagMessage(o == null? "null" : o.toString()));
 	}
 
 	public void log(Level level, Object ... olist) {
-		if (log.isLoggable(level))
+		if (isLoggable(level))
 			arrayFormat(level, olist);
 	}
 	
@@ -116,6 +116,7 @@ import uk.me.parabola.mkgmap.reader.overview.OverviewMapDataSource;
 import uk.me.parabola.util.Configurable;
 import uk.me.parabola.util.EnhancedProperties;
 import uk.me.parabola.util.Java2DConverter;
+import uk.me.parabola.util.PhaseStatistics;
 import uk.me.parabola.util.ShapeSplitter;
 
 /**
@@ -296,6 +297,7 @@ public class MapBuilder implements Configurable {
 	 * @param map The map.
 	 * @param src The map data.
 	 */
+	@SuppressWarnings("try")
 	public void makeMap(Map map, LoadableMapDataSource src) {
 
 		RGNFile rgnFile = map.getRgnFile();
@@ -316,7 +318,9 @@ public class MapBuilder implements Configurable {
 
 		if (map.getNodFile() != null) {
 			// make sure that island detection is done before we write any map data so that NOD flags are properly set 
-			src.getRoadNetwork().getCenters();
+			try (PhaseStatistics.Phase p = PhaseStatistics.phase("route-network")) {
+				src.getRoadNetwork().getCenters();
+			}
 		}
 		normalizeCountries(src);
 		
@@ -325,7 +329,9 @@ public class MapBuilder implements Configurable {
 		processPOIs(map, src);
 		processOverviews(map, src);
 		processInfo(map, src);
-		makeMapAreas(map, src);
+		try (PhaseStatistics.Phase p = PhaseStatistics.phase("map-areas")) {
+			makeMapAreas(map, src);
+		}
 		 
 		if (driveOnLeft == null && src instanceof MapperBasedMapDataSource) {
 			// source can give info about driving side
@@ -337,29 +343,41 @@ public class MapBuilder implements Configurable {
 
 		treFile.setLastRgnPos(rgnFile.position() - RGNHeader.HEADER_LEN);
 
-		rgnFile.write();
-		treFile.write(rgnFile.haveExtendedTypes());
-		lblFile.write();
-		lblFile.writePost();
+		try (PhaseStatistics.Phase p = PhaseStatistics.phase("write-rgn")) {
+			rgnFile.write();
+			treFile.write(rgnFile.haveExtendedTypes());
+			lblFile.write();
+			lblFile.writePost();
+		}
 
 		if (netFile != null) {
 			RoadNetwork network = src.getRoadNetwork();
 			netFile.setNetwork(network.getRoadDefs());
 			NODFile nodFile = map.getNodFile();
 			if (nodFile != null) {
-				nodFile.setNetwork(network.getCenters(), network.getRoadDefs(), network.getBoundary());
-				nodFile.setDriveOnLeft(driveOnLeft);
-				nodFile.write();
+				try (PhaseStatistics.Phase p = PhaseStatistics.phase("write-nod")) {
+					nodFile.setNetwork(network.getCenters(), network.getRoadDefs(), network.getBoundary());
+					nodFile.setDriveOnLeft(driveOnLeft);
+					nodFile.write();
+				}
+			}
+			try (PhaseStatistics.Phase p = PhaseStatistics.phase("write-net")) {
+				netFile.write(lblFile.numCities(), lblFile.numZips());
 			}
-			netFile.write(lblFile.numCities(), lblFile.numZips());
 
 			if (nodFile != null) {
-				nodFile.writePost();
+				try (PhaseStatistics.Phase p = PhaseStatistics.phase("write-nod")) {
+					nodFile.writePost();
+				}
+			}
+			try (PhaseStatistics.Phase p = PhaseStatistics.phase("write-net")) {
+				netFile.writePost(rgnFile.getWriter());
 			}
-			netFile.writePost(rgnFile.getWriter());
 		}
 		warnAbout3ByteImgRefs();
-		buildDem(map, src);
+		try (PhaseStatistics.Phase p = PhaseStatistics.phase("dem")) {
+			buildDem(map, src);
+		}
 		treFile.writePost();
 	}
 
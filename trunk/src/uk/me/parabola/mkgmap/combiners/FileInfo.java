@@ -221,7 +221,8 @@ public class FileInfo {
 	 */
 	private static FileInfo imgInfo(String inputName) throws FileNotFoundException {
 
-		try (FileSystem imgFs = ImgFS.openFs(inputName)) {
+		// the overview work files may be deleted at the end, so they are not mapped
+		try (FileSystem imgFs = ImgFS.openFs(inputName, !OverviewBuilder.isOverviewImg(inputName))) {
 			FileSystemParam params = imgFs.fsparam();
 			log.info("Desc", params.getMapDescription());
 			log.info("Blocksize", params.getBlockSize());
@@ -480,7 +481,7 @@ public class FileInfo {
 	
 	public MapReader getMapReader() throws FileNotFoundException {
 		if (mapReader == null)
-			mapReader = new MapReader(filename);
+			mapReader = new MapReader(filename, !OverviewBuilder.isOverviewImg(filename));
 		return mapReader;
 	}
 	
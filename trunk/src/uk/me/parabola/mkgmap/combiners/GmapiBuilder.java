@@ -21,9 +21,17 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -64,6 +72,9 @@ public class GmapiBuilder implements Combiner {
 	private boolean forceWrite;
 	private String mustWritePattern;
 
+	// the img files are unzipped in parallel
+	private ExecutorService pool;
+	private final List<Future<Void>> pending = new ArrayList<>();
 
 	public GmapiBuilder(Map<String, Combiner> combinerMap, Map<String, String> sourceMap) {
 		this.combinerMap = combinerMap;
@@ -86,6 +97,12 @@ public class GmapiBuilder implements Combiner {
 		forceWrite = args.exists("gmapi");
 		
 		mustWritePattern = args.get("gmapi-minimal", null);
+
+		int threads = args.getProperties().getProperty("max-jobs", 0);
+		if (threads <= 0)
+			threads = Runtime.getRuntime().availableProcessors();
+		if (threads > 1)
+			pool = Executors.newFixedThreadPool(threads);
 	}
 
 	/**
@@ -103,16 +120,55 @@ public class GmapiBuilder implements Combiner {
 			productMap.put(productId, new ProductInfo(productId, info.getSeriesName(), info.getOverviewName()));
 
 		// Unzip the image into the product tile directory.
+		if (info.isImg()) {
+			if (forceWrite || shouldWrite(info))
+				submit(() -> unzipImg(fn, mapname, productId));
+		}
+		else if (info.getKind() == FileKind.TYP_KIND)
+			typFile = info.getFilename();
+	}
+
+	/**
+	 * Run the task in the pool or directly if there is no pool.
+	 */
+	private void submit(IOTask task) {
+		Callable<Void> callable = () -> {
+			task.run();
+			return null;
+		};
+		if (pool == null) {
+			FutureTask<Void> future = new FutureTask<>(callable);
+			future.run();
+			pending.add(future);
+		} else {
+			pending.add(pool.submit(callable));
+		}
+		// report errors as early as possible
+		while (!pending.isEmpty() && pending.get(0).isDone())
+			waitFor(pending.remove(0));
+	}
+
+	private static void waitFor(Future<Void> future) {
 		try {
-			if (info.isImg()) {
-				if (forceWrite || shouldWrite(info))
-					unzipImg(fn, mapname, productId);
-			}
-			else if (info.getKind() == FileKind.TYP_KIND)
-				typFile = info.getFilename();
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ExitException("Interrupted while saving gmapi data", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new ExitException("Error saving gmapi data", cause);
+		}
+	}
 
-		} catch (IOException e) {
-			throw new ExitException("Error saving gmapi data", e);
+	private void waitForAll() {
+		try {
+			while (!pending.isEmpty())
+				waitFor(pending.remove(0));
+		} finally {
+			pending.forEach(f -> f.cancel(false));
+			pending.clear();
 		}
 	}
 
@@ -138,6 +194,17 @@ public class GmapiBuilder implements Combiner {
 	 * doing.
 	 */
 	public void onFinish() {
+		try {
+			finishFiles();
+			waitForAll();
+			writeXmlFile(gmapDir);
+		} finally {
+			if (pool != null)
+				pool.shutdown();
+		}
+	}
+
+	private void finishFiles() {
 		try {
 			if (combinerMap.containsKey("mdx")) {
 				File file = new File(getFilenameFor("mdx"));
@@ -145,7 +212,8 @@ public class GmapiBuilder implements Combiner {
 			}
 			if (combinerMap.containsKey("mdr")) {
 				File file = new File(getFilenameFor("mdr"));
-				unzipImg(file.getCanonicalPath(), gmapDir.resolve(nameWithoutExtension(file)));
+				String mdrPath = file.getCanonicalPath();
+				submit(() -> unzipImg(mdrPath, gmapDir.resolve(nameWithoutExtension(file))));
 			}
 
 			if (typFile != null) {
@@ -155,11 +223,9 @@ public class GmapiBuilder implements Combiner {
 
 			for (ProductInfo info : productMap.values()) {
 				finishTdbFile(info);
-				unzipImg(getFilenameFor("img"), info.overviewName, info.id);
+				String overviewImg = getFilenameFor("img");
+				submit(() -> unzipImg(overviewImg, info.overviewName, info.id));
 			}
-
-			writeXmlFile(gmapDir);
-
 		} catch (IOException e) {
 			throw new ExitException("Error building gmapi data", e);
 		}
@@ -187,26 +253,33 @@ public class GmapiBuilder implements Combiner {
 		unzipImg(srcImgName, destDir);
 	}
 
-	private void unzipImg(String srcImgName, Path destDir) throws IOException {
-		FileSystem fs = ImgFS.openFs(srcImgName);
-		for (DirectoryEntry ent : fs.list()) {
-			String fullname = ent.getFullName();
+	private static void unzipImg(String srcImgName, Path destDir) throws IOException {
+		try (FileSystem fs = ImgFS.openFs(srcImgName)) {
+			for (DirectoryEntry ent : fs.list()) {
+				String fullname = ent.getFullName();
 
-			try (ImgChannel f = fs.open(fullname, "r")) {
-				String name = displayName(fullname);
-				if (Objects.equals(name, "."))
-					continue;
+				try (ImgChannel f = fs.open(fullname, "r")) {
+					String name = displayName(fullname);
+					if (Objects.equals(name, "."))
+						continue;
 
-				Files.createDirectories(destDir);
-				Path out = destDir.resolve(name);
-				copyToFile(f, out);
+					Files.createDirectories(destDir);
+					Path out = destDir.resolve(name);
+					copyToFile(f, out);
+				}
 			}
 		}
 	}
 
 	private static void copyToFile(ImgChannel f, Path dest) {
-		ByteBuffer buf = ByteBuffer.allocate(8 * 1024);
+		ByteBuffer mapped = f.mapReadOnly();
+		ByteBuffer buf = mapped != null ? null : ByteBuffer.allocate(8 * 1024);
 		try (ByteChannel outchan = Files.newByteChannel(dest, CREATE, WRITE, TRUNCATE_EXISTING)) {
+			if (mapped != null) {
+				while (mapped.hasRemaining())
+					outchan.write(mapped);
+				return;
+			}
 			while (f.read(buf) > 0) {
 				buf.flip();
 				outchan.write(buf);
@@ -299,6 +372,13 @@ public class GmapiBuilder implements Combiner {
 		writer.writeCharacters("\n");
 	}
 
+	/**
+	 * A task that may throw an IOException.
+	 */
+	private interface IOTask {
+		void run() throws IOException;
+	}
+
 	private static class ProductInfo {
 
 		private final String seriesName;
@@ -20,10 +20,15 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import uk.me.parabola.imgfmt.FileExistsException;
 import uk.me.parabola.imgfmt.FileNotWritableException;
@@ -41,6 +46,7 @@ import uk.me.parabola.imgfmt.mps.MpsFileReader;
 import uk.me.parabola.imgfmt.mps.ProductBlock;
 import uk.me.parabola.imgfmt.sys.FileImgChannel;
 import uk.me.parabola.imgfmt.sys.FileLink;
+import uk.me.parabola.imgfmt.sys.FileNode;
 import uk.me.parabola.imgfmt.sys.ImgFS;
 import uk.me.parabola.log.Logger;
 import uk.me.parabola.mkgmap.CommandArgs;
@@ -60,9 +66,11 @@ import uk.me.parabola.mkgmap.CommandArgs;
  * @author Steve Ratcliffe
  */
 public class GmapsuppBuilder implements Combiner {
+	private static final Logger log = Logger.getLogger(GmapsuppBuilder.class);
 	private static final String GMAPSUPP = "gmapsupp.img";
 
 	private final Map<String, FileInfo> files = new LinkedHashMap<>();
+	private final List<FileCopier> copiers = new ArrayList<>();
 
 	// all these need to be set in the init routine from arguments.
 	private String areaName;
@@ -83,6 +91,9 @@ public class GmapsuppBuilder implements Combiner {
 
 	private FileSystem imgFs;
 
+	// the MDR files and the copies of the sub-files are created in parallel
+	private ExecutorService pool;
+
 	public void init(CommandArgs args) {
 		areaName = args.get("area-name", null);
 		mapsetName = args.get("mapset-name", "OSM map set");
@@ -92,6 +103,11 @@ public class GmapsuppBuilder implements Combiner {
 		productVersion = args.get("product-version", 100);
 		mdrConfig = new MdrConfig();
 		mdrConfig.setIndexOptions(args);
+		int threads = args.getProperties().getProperty("max-jobs", 0);
+		if (threads <= 0)
+			threads = Runtime.getRuntime().availableProcessors();
+		if (threads > 1)
+			pool = Executors.newFixedThreadPool(threads);
 
 		try {
 			imgFs = createGmapsupp();
@@ -169,10 +185,7 @@ public class GmapsuppBuilder implements Combiner {
 	 * reading all the sub files and copying them into the gmapsupp file.
 	 */
 	public void onFinish() {
-
-		for (MdrBuilder mdrBuilder : mdrBuilderMap.values()) {
-			mdrBuilder.onFinishForDevice();
-		}
+		finishMdrFiles();
 
 		try {
 
@@ -184,10 +197,51 @@ public class GmapsuppBuilder implements Combiner {
 		} catch (FileNotWritableException e) {
 			Logger.defaultLogger.error("Could not create gmapsupp file");
 		} finally {
+			// the files are copied when the file system is closed
+			long start = System.nanoTime();
 			Utils.closeFile(imgFs);
+			reportCopyRate(System.nanoTime() - start);
+			if (pool != null)
+				pool.shutdown();
+		}
+	}
+
+	/**
+	 * Create the content of the MDR files. The families don't depend on each
+	 * other, so this is done in parallel when there is more than one.
+	 */
+	private void finishMdrFiles() {
+		if (pool == null || mdrBuilderMap.size() < 2) {
+			mdrBuilderMap.values().forEach(MdrBuilder::onFinishForDevice);
+			return;
+		}
+		List<Future<?>> futures = new ArrayList<>();
+		for (MdrBuilder mdrBuilder : mdrBuilderMap.values())
+			futures.add(pool.submit(mdrBuilder::onFinishForDevice));
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MapFailedException("Interrupted while creating the MDR files", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				throw new MapFailedException("Could not create the MDR files", cause);
+			}
 		}
 	}
 
+	private void reportCopyRate(long nanos) {
+		long bytes = 0;
+		for (FileCopier fc : copiers)
+			bytes += fc.getBytesCopied();
+		double mb = bytes / (1024.0 * 1024.0);
+		double secs = Math.max(nanos, 1) / 1e9;
+		log.info(String.format("%s: copied %.1f MB in %.3f s (%.1f MB/s)", GMAPSUPP, mb, secs, mb / secs));
+	}
+
 	/**
 	 * Write the SRT file.
 	 *
@@ -270,8 +324,9 @@ public class GmapsuppBuilder implements Combiner {
 		}
 	}
 
-	private static void addImg(FileSystem outfs, FileInfo info) {
-		FileCopier fc = new FileCopier(info.getFilename());
+	private void addImg(FileSystem outfs, FileInfo info) {
+		FileCopier fc = new FileCopier(info.getFilename(), pool);
+		copiers.add(fc);
 		List<SubFileInfo> subFiles = info.subFiles();
 
 		for (SubFileInfo sf : subFiles) {
@@ -286,9 +341,10 @@ public class GmapsuppBuilder implements Combiner {
 		}
 	}
 
-	private static void addFile(FileSystem outfs, FileInfo info) {
+	private void addFile(FileSystem outfs, FileInfo info) {
 		String filename = info.getFilename();
-		FileCopier fc = new FileCopier(filename);
+		FileCopier fc = new FileCopier(filename, pool);
+		copiers.add(fc);
 
 		try {
 			ImgChannel chan = outfs.create(createImgFilename(filename));
@@ -402,14 +458,22 @@ public class GmapsuppBuilder implements Combiner {
  *
  * Each sub file has to be copied separately to a different 'file'.  This class makes sure
  * that the source file is only opened once.
+ *
+ * The blocks of the whole target file are allocated at once and the content
+ * is transferred directly between the underlying files where possible.
+ * When a pool is given, the content of sub-files from img files is written
+ * by the pool, the file system waits for this before it is closed.
  */
 class FileCopier {
 	private final String filename;
+	private final ExecutorService pool;
 	private FileSystem fs;
 	private int refCount;
+	private long bytesCopied;
 
-	public FileCopier(String filename) {
+	public FileCopier(String filename, ExecutorService pool) {
 		this.filename = filename;
+		this.pool = pool;
 	}
 
 	Closeable add(String name, ImgChannel fout) {
@@ -453,12 +517,27 @@ class FileCopier {
 		}
 	}
 
-	private static void copyFile(ImgChannel fin, ImgChannel fout) throws IOException {
-		ByteBuffer buf = ByteBuffer.allocate(1024);
-		while (fin.read(buf) > 0) {
+	private void copyFile(ImgChannel fin, ImgChannel fout) throws IOException {
+		if (fout instanceof FileNode) {
+			FileNode node = (FileNode) fout;
+			long n = pool == null ? node.transferFrom(fin) : node.transferFrom(fin, pool);
+			if (n >= 0) {
+				bytesCopied += n;
+				return;
+			}
+		}
+
+		ByteBuffer buf = ByteBuffer.allocate(0x10000);
+		int n;
+		while ((n = fin.read(buf)) > 0) {
+			bytesCopied += n;
 			buf.flip();
 			fout.write(buf);
 			buf.compact();
 		}
 	}
+
+	long getBytesCopied() {
+		return bytesCopied;
+	}
 }
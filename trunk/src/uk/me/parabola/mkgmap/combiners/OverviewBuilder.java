@@ -14,9 +14,19 @@ package uk.me.parabola.mkgmap.combiners;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
 import uk.me.parabola.imgfmt.ExitException;
 import uk.me.parabola.imgfmt.FileExistsException;
 import uk.me.parabola.imgfmt.FileNotWritableException;
@@ -68,6 +78,9 @@ public class OverviewBuilder implements Combiner {
 	private boolean hasBackground;
 	private EnhancedProperties overviewProps = new EnhancedProperties();
 	private int maxRes = 16; // we can write a 0x4a polygon for planet in res 16.
+	// the elements of the *.img files are read in parallel but added in the order of the files
+	private ExecutorService readPool;
+	private final Deque<Future<OverviewPart>> pendingParts = new ArrayDeque<>();
 
 	public OverviewBuilder() {
 		this.overviewSource = new OverviewMapDataSource();
@@ -80,6 +93,16 @@ public class OverviewBuilder implements Combiner {
 		
 		outputDir = args.getOutputDir();
 		overviewProps = new EnhancedProperties(args.getProperties());
+		int threads = args.getProperties().getProperty("max-jobs", 0);
+		if (threads <= 0)
+			threads = Runtime.getRuntime().availableProcessors();
+		if (threads > 1) {
+			readPool = Executors.newFixedThreadPool(threads, r -> {
+				Thread t = new Thread(r, "overview-reader");
+				t.setDaemon(true);
+				return t;
+			});
+		}
 	}
 
 	public void onMapEnd(FileInfo finfo) {
@@ -89,11 +112,25 @@ public class OverviewBuilder implements Combiner {
 		try {
 			readFileIntoOverview(finfo);
 		} catch (FileNotFoundException e) {
+			stopReading();
 			throw new MapFailedException("Could not read detail map " + finfo.getFilename(), e);
+		} catch (RuntimeException e) {
+			// no overview map is written after an error, don't wait for the other files
+			stopReading();
+			throw e;
 		}
 	}
 
 	public void onFinish() {
+		try {
+			addPendingParts(true);
+		} catch (RuntimeException e) {
+			stopReading();
+			throw e;
+		} finally {
+			if (readPool != null)
+				readPool.shutdown();
+		}
 		if (!hasBackground) {
 			List<MapShape> shapes = overviewSource.getShapes();
 			int inx = shapes.size();
@@ -219,7 +256,8 @@ public class OverviewBuilder implements Combiner {
 		}
 
 		try {
-			mapReader = new MapReader(filename);
+			// the work files are small and may be deleted when the overview map is written
+			mapReader = new MapReader(filename, !isOverviewImg(filename));
 
 			if (encodingType == null){
 				encodingType = mapReader.getEncodingType();
@@ -266,26 +304,119 @@ public class OverviewBuilder implements Combiner {
 				wantedLevels = mapLevels;
 				maxRes = wantedLevels[wantedLevels.length-1].getBits();
 			}
-			addMapCoverageArea(finfo);
+			MapShape coverage = addMapCoverageArea(finfo);
+			OverviewPart part = new OverviewPart(coverage);
 			if (isOverviewImg(filename)){
-				readPoints(mapReader);
-				readLines(mapReader);
-				readShapes(mapReader);
+				// the reader is closed by the task
+				final MapReader reader = mapReader;
+				final Area sourceBounds = overviewSource.getBounds();
+				mapReader = null;
+				submit(reader, () -> {
+					try {
+						readPoints(reader, sourceBounds, part);
+						readLines(reader, part);
+						readShapes(reader, part);
+						return part;
+					} finally {
+						Utils.closeFile(reader);
+					}
+				});
+			} else {
+				pendingParts.add(CompletableFuture.completedFuture(part));
 			}
 		} catch (FileNotFoundException e) {
 			throw new ExitException("Could not open " + filename + " when creating overview file");
 		} finally {
 			Utils.closeFile(mapReader);
 		}
+		addPendingParts(false);
+	}
+
+	private void submit(MapReader reader, Callable<OverviewPart> task) {
+		ReadTask future = new ReadTask(reader, task);
+		if (readPool == null)
+			future.run();
+		else
+			readPool.execute(future);
+		pendingParts.add(future);
+	}
+
+	/**
+	 * Cancel the files that are still read and stop the threads.
+	 */
+	private void stopReading() {
+		if (readPool != null) {
+			// the tasks that were not started must close their reader here
+			for (Runnable task : readPool.shutdownNow())
+				Utils.closeFile(((ReadTask) task).reader);
+		}
+		pendingParts.forEach(future -> future.cancel(true));
+		pendingParts.clear();
+	}
+
+	/**
+	 * Add the elements that were read to the overview map. The order is 
+	 * the order of the files so that the result doesn't depend on the
+	 * timing of the threads.
+	 * @param wait if true, wait for all files, else add only the parts 
+	 * which are finished and not preceded by an unfinished one. 
+	 */
+	private void addPendingParts(boolean wait) {
+		while (!pendingParts.isEmpty() && (wait || pendingParts.peek().isDone())) {
+			OverviewPart part;
+			try {
+				part = pendingParts.poll().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MapFailedException("Interrupted while reading the overview data", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				throw new MapFailedException("Could not read the overview data", cause);
+			}
+			part.points.forEach(overviewSource::addPoint);
+			part.lines.forEach(overviewSource::addLine);
+			part.shapes.forEach(overviewSource::addShape);
+			if (part.hasBackground)
+				hasBackground = true;
+		}
+	}
+
+	/**
+	 * Reads the elements of one file. The reader is closed by the task.
+	 */
+	private static class ReadTask extends FutureTask<OverviewPart> {
+		private final MapReader reader;
+
+		ReadTask(MapReader reader, Callable<OverviewPart> task) {
+			super(task);
+			this.reader = reader;
+		}
+	}
+
+	/**
+	 * The elements of one file.
+	 */
+	private static class OverviewPart {
+		private final List<MapPoint> points = new ArrayList<>();
+		private final List<MapLine> lines = new ArrayList<>();
+		private final List<MapShape> shapes = new ArrayList<>();
+		private boolean hasBackground;
+
+		OverviewPart(MapShape coverage) {
+			shapes.add(coverage);
+		}
 	}
 
 	/**
 	 * Read the points from the .img file and add them to the overview map.
 	 *
 	 * @param mapReader Map reader on the detailed .img file.
+	 * @param sourceBounds points outside of these bounds are dropped
+	 * @param part the collected elements of the file
 	 */
-	private void readPoints(MapReader mapReader) {
-		Area sourceBounds = overviewSource.getBounds();
+	private void readPoints(MapReader mapReader, Area sourceBounds, OverviewPart part) {
 		Zoom[] levels = mapReader.getLevels();
 		for (int l = 1; l < levels.length; l++){
 			int min = levels[l].getLevel();
@@ -308,7 +439,7 @@ public class OverviewBuilder implements Combiner {
 				mp.setMaxResolution(res); 
 				mp.setMinResolution(res);  
 				mp.setLocation(point.getLocation());
-				overviewSource.addPoint(mp);
+				part.points.add(mp);
 			}
 		}
 	}
@@ -317,8 +448,9 @@ public class OverviewBuilder implements Combiner {
 	 * Read the lines from the .img file and add them to the overview map.
 	 *
 	 * @param mapReader Map reader on the detailed .img file.
+	 * @param part the collected elements of the file
 	 */
-	private void readLines(MapReader mapReader) {
+	private void readLines(MapReader mapReader, OverviewPart part) {
 		Zoom[] levels = mapReader.getLevels();
 		for (int l = 1; l < levels.length; l++){
 			int min = levels[l].getLevel();
@@ -344,7 +476,7 @@ public class OverviewBuilder implements Combiner {
 				ml.setMinResolution(res);  
 				ml.setPoints(points);
 
-				overviewSource.addLine(ml);
+				part.lines.add(ml);
 			}
 		}
 	}
@@ -353,8 +485,9 @@ public class OverviewBuilder implements Combiner {
 	 * Read the polygons from the .img file and add them to the overview map.
 	 *
 	 * @param mapReader Map reader on the detailed .img file.
+	 * @param part the collected elements of the file
 	 */
-	private void readShapes(MapReader mapReader) {
+	private void readShapes(MapReader mapReader, OverviewPart part) {
 		Zoom[] levels = mapReader.getLevels();
 		for (int l = 1; l < levels.length; l++){
 			int min = levels[l].getLevel();
@@ -364,7 +497,7 @@ public class OverviewBuilder implements Combiner {
 				if (log.isDebugEnabled())
 					log.debug("got polygon", shape);
 				if (shape.getType() == 0x4b){
-					hasBackground = true;
+					part.hasBackground = true;
 				}
 				MapShape ms = new MapShape();
 
@@ -382,7 +515,7 @@ public class OverviewBuilder implements Combiner {
 				ms.setMinResolution(res);  
 				ms.setPoints(points);
 
-				overviewSource.addShape(ms);
+				part.shapes.add(ms);
 			}
 		}
 	}
@@ -395,8 +528,9 @@ public class OverviewBuilder implements Combiner {
 	 * and check/decrease resolution if necessary
 	 *
 	 * @param finfo Information about a detail map.
+	 * @return the shape which shows the covered area, it is not yet added
 	 */
-	private void addMapCoverageArea(FileInfo finfo) {
+	private MapShape addMapCoverageArea(FileInfo finfo) {
 		Area bounds = finfo.getBounds();
 		List<Coord> points = bounds.toCoords();
 		points.forEach(overviewSource::addToBounds);
@@ -408,8 +542,7 @@ public class OverviewBuilder implements Combiner {
 		bg.setPoints(points);
 		bg.setMinResolution(0);
 		bg.setName(finfo.getDescription() + '\u001d' + finfo.getMapname());
-		
-		overviewSource.addShape(bg); 
+		return bg;
 	}
 
 	public Area getBounds() {
@@ -49,6 +49,8 @@ public class ShapeMergeFilter{
 	private final boolean orderByDecreasingArea;
 	private final int maxPoints;
 	private final boolean ignoreRes;
+	/** groups of similar shapes are only merged in parallel if there are at least this many shapes */
+	private static final int MIN_SHAPES_FOR_PARALLEL = 2000;
 
 	/**
 	 * Create the shape filter with the given attributes. It will ignore shapes
@@ -96,32 +98,46 @@ public class ShapeMergeFilter{
 		
 		Comparator<MapShape> comparator = new MapShapeComparator(orderByDecreasingArea);
 		usableShapes.sort(comparator);
+		// collect groups of similar shapes, shapes in different groups are never merged
+		List<List<MapShape>> groups = new ArrayList<>();
 		int p1 = 0;
 		MapShape s1 = usableShapes.get(0);
 		for (int i = 1; i < usableShapes.size(); i++) {
 			if (comparator.compare(s1, usableShapes.get(i)) == 0)
 				continue;
-			mergeSimilar(usableShapes.subList(p1, i), mergedShapes);
+			groups.add(new ArrayList<>(usableShapes.subList(p1, i)));
 			s1 = usableShapes.get(i);
 			p1 = i;
 		}
 		if (p1 < usableShapes.size())
-			mergeSimilar(usableShapes.subList(p1, usableShapes.size()), mergedShapes);
+			groups.add(new ArrayList<>(usableShapes.subList(p1, usableShapes.size())));
+		
+		if (groups.size() > 1 && usableShapes.size() >= MIN_SHAPES_FOR_PARALLEL) {
+			// the groups are independent, merge them in parallel but keep the order of the results
+			final String threadTag = log.threadTag();
+			List<List<MapShape>> results = groups.parallelStream().map(similar -> {
+				log.threadTag(threadTag);
+				return mergeSimilar(similar);
+			}).collect(Collectors.toList());
+			results.forEach(mergedShapes::addAll);
+		} else {
+			groups.forEach(similar -> mergedShapes.addAll(mergeSimilar(similar)));
+		}
 		return mergedShapes;
 	}
 	
 	/**
 	 * Merge similar shapes.
 	 * @param similar list of similar shapes
-	 * @param mergedShapes list to which the shapes are added 
+	 * @return list of merged shapes 
 	 */
-	private void mergeSimilar(List<MapShape> similar, List<MapShape> mergedShapes) {
+	private List<MapShape> mergeSimilar(List<MapShape> similar) {
 		if (similar.size() == 1) {
-			mergedShapes.addAll(similar);
-			return;
+			return similar;
 		}
 		
 		final int partSize = 8192;
+		List<MapShape> mergedShapes = new ArrayList<>();
 		// sorting is meant to reduce the self intersections created by merging
 		similar.sort((o1,o2) -> o1.getBounds().getCenter().compareTo(o2.getBounds().getCenter()));
 		List<ShapeHelper> list = new ArrayList<>();
@@ -168,6 +184,7 @@ public class ShapeMergeFilter{
 			}
 			mergedShapes.add(newShape);
 		}
+		return mergedShapes;
 	}
 
 	/**
@@ -270,48 +287,55 @@ public class ShapeMergeFilter{
 	}
 
 	/**
-	 * Calculate matrix of shapes which share node
+	 * Calculate matrix of shapes which share node.
+	 * The shapes are indexed by the identity of their points, so only shapes
+	 * which really touch each other are compared. The {@link Coord} instances are not
+	 * modified, they might be shared with shapes that are merged in other threads.
 	 * @param similarShapes
 	 * @return list of sets with indexes of shared nodes, empty for shapes which cannot be merged
 	 */
 	private List<BitSet> createMatrix(List<ShapeHelper> similarShapes) {
-		// abuse highway count to find identical points in different shapes
-		similarShapes.forEach(sh -> sh.getPoints().forEach(Coord::resetHighwayCount));
-		similarShapes.forEach(sh -> sh.getPoints().forEach(Coord::incHighwayCount));
-		// decrement counter for duplicated start/end node
-		similarShapes.forEach(sh -> sh.getPoints().get(0).decHighwayCount());
-		
-		// points with count > 1 are probably shared by different shapes, collect the shapes
-		IdentityHashMap<Coord, BitSet> coord2Shape = new IdentityHashMap<>();
-		final List<BitSet>candidates = new ArrayList<>(similarShapes.size());
+		// collect the shapes for each point, ignore the duplicated start/end node
+		IdentityHashMap<Coord, IntArrayList> coord2Shapes = new IdentityHashMap<>();
 		for (int i = 0; i < similarShapes.size(); i++) {
-			candidates.add(new BitSet());
+			List<Coord> points = similarShapes.get(i).getPoints();
+			for (int k = 1; k < points.size(); k++) {
+				coord2Shapes.computeIfAbsent(points.get(k), c -> new IntArrayList(2)).add(i);
+			}
 		}
-		for (int i = 0; i < similarShapes.size(); i++) {
-			ShapeHelper sh0 = similarShapes.get(i);
-			List<Coord> sharedPoints = sh0.getPoints().stream().filter(p -> p.getHighwayCount() > 1)
-					.collect(Collectors.toList());
-			if (sh0.getPoints().get(0).getHighwayCount() > 1)
-				sharedPoints.remove(0);
-			if (sharedPoints.isEmpty() || (sh0.getPoints().size() - sharedPoints.size() > maxPoints)) {
+		
+		// points used more than once are probably shared by different shapes
+		final int n = similarShapes.size();
+		List<List<IntArrayList>> sharedPerShape = new ArrayList<>(n);
+		BitSet usable = new BitSet(n);
+		for (int i = 0; i < n; i++) {
+			List<Coord> points = similarShapes.get(i).getPoints();
+			List<IntArrayList> shared = new ArrayList<>();
+			for (int k = 1; k < points.size(); k++) {
+				IntArrayList users = coord2Shapes.get(points.get(k));
+				if (users.size() > 1)
+					shared.add(users);
+			}
+			sharedPerShape.add(shared);
+			if (shared.isEmpty() || (points.size() - shared.size() > maxPoints)) {
 				// merge will not work
 				continue;
 			}
-
-			BitSet curr = candidates.get(i);
+			usable.set(i);
+		}
+		
+		final List<BitSet> candidates = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			BitSet curr = new BitSet();
+			candidates.add(curr);
+			if (!usable.get(i))
+				continue;
 			curr.set(i);
-
-			for (Coord c : sharedPoints) {
-				BitSet set = coord2Shape.get(c);
-				if (set == null) {
-					set = new BitSet();
-					coord2Shape.put(c, set);
-				} else {
-					final int row = i;
-					set.stream().forEach(j -> candidates.get(j).set(row));
-					curr.or(set);
+			for (IntArrayList users : sharedPerShape.get(i)) {
+				for (int j : users) {
+					if (usable.get(j))
+						curr.set(j);
 				}
-				set.set(i);
 			}
 		}
 		return candidates;
@@ -334,7 +358,8 @@ public class ShapeMergeFilter{
 		List<ShapeHelper> result = new ArrayList<>(list.size() + 1);
 		ShapeHelper shNew = new ShapeHelper(toAdd);
 		for (ShapeHelper shOld : list) {
-			ShapeHelper mergeRes = tryMerge(shOld, shNew);
+			// shapes with a common point have intersecting bounding boxes
+			ShapeHelper mergeRes = shOld.bboxIntersects(shNew) ? tryMerge(shOld, shNew) : shOld;
 			if (mergeRes == shOld){
 				result.add(shOld);
 				continue;
@@ -436,20 +461,14 @@ public class ShapeMergeFilter{
 			IntArrayList s2PositionsToCheck) {
 		Map<Coord, Integer> s2PosMap = new IdentityHashMap<>(s2.size() - 1);
 		
-		for (int i = 0; i+1 < s1.size(); i++){
-		    Coord co = s1.get(i);
-		    co.setPartOfShape2(false);
-		}
 		for (int i = 0; i+1 < s2.size(); i++){
-		    Coord co = s2.get(i);
-		    co.setPartOfShape2(true);
-		    s2PosMap.put(co, i); 
+		    s2PosMap.put(s2.get(i), i); 
 		}
 		
 		int start = 0;
 		while(start < s1.size()){
 			Coord co = s1.get(start);
-			if (!co.isPartOfShape2())
+			if (!s2PosMap.containsKey(co))
 				break;
 			start++;
 		}
@@ -461,10 +480,9 @@ public class ShapeMergeFilter{
 			Coord co = s1.get(pos);
 			if (++tested >= s1.size())
 				break;
-			if (co.isPartOfShape2()){
+			Integer posInSh2 = s2PosMap.get(co);
+			if (posInSh2 != null){
 				s1PositionsToCheck.add(pos);
-				Integer posInSh2 = s2PosMap.get(co);
-				assert posInSh2 != null;
 				s2PositionsToCheck.add(posInSh2.intValue());
 			}
 			pos++;
@@ -613,21 +631,47 @@ public class ShapeMergeFilter{
 		private final List<Coord> points;
 		long id;
 		long areaTestVal;
+		// bounding box in high precision units
+		private int minLat = Integer.MAX_VALUE;
+		private int minLon = Integer.MAX_VALUE;
+		private int maxLat = Integer.MIN_VALUE;
+		private int maxLon = Integer.MIN_VALUE;
 
 		public ShapeHelper(List<Coord> merged) {
 			this.points = merged;
 			areaTestVal = calcAreaSizeTestVal(points);
+			for (Coord co : points) {
+				int lat = co.getHighPrecLat();
+				int lon = co.getHighPrecLon();
+				minLat = Math.min(minLat, lat);
+				maxLat = Math.max(maxLat, lat);
+				minLon = Math.min(minLon, lon);
+				maxLon = Math.max(maxLon, lon);
+			}
 		}
 
 		public ShapeHelper(ShapeHelper other) {
 			this.points = other.points;
 			this.areaTestVal = other.areaTestVal;
 			this.id = other.id;
+			this.minLat = other.minLat;
+			this.minLon = other.minLon;
+			this.maxLat = other.maxLat;
+			this.maxLon = other.maxLon;
 		}
 
 		public List<Coord> getPoints() {
 			return points;
 		}
+
+		/**
+		 * @param other another shape
+		 * @return false if the shapes cannot have a common point
+		 */
+		public boolean bboxIntersects(ShapeHelper other) {
+			return minLat <= other.maxLat && maxLat >= other.minLat 
+					&& minLon <= other.maxLon && maxLon >= other.minLon;
+		}
 	}
 	
 	public static final long SINGLE_POINT_AREA = 1L << Coord.DELTA_SHIFT * 1L << Coord.DELTA_SHIFT;
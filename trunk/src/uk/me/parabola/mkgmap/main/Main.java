@@ -71,6 +71,7 @@ import uk.me.parabola.mkgmap.reader.osm.StyleInfo;
 import uk.me.parabola.mkgmap.scan.SyntaxException;
 import uk.me.parabola.mkgmap.srt.SrtTextReader;
 import uk.me.parabola.util.EnhancedProperties;
+import uk.me.parabola.util.PhaseStatistics;
 
 /**
  * The new main program.  There can be many file names to process and there can
@@ -95,6 +96,8 @@ public class Main implements ArgumentProcessor {
 	private ExecutorService threadPool;
 	// default number of threads
 	private int maxJobs = 0;
+	private String phaseReportFile;
+	private TileCache tileCache;
 
 	private boolean createTdbFiles = false;
 	private boolean tdbBuilderAdded = false;
@@ -281,6 +284,7 @@ public class Main implements ArgumentProcessor {
 			return;
 		
 		final MapProcessor mp = mapMaker(ext);
+		final TileCache cache = mp instanceof MapMaker && !filename.startsWith("test-map:") ? tileCache : null;
 
 		args.setSort(getSort(args));
 
@@ -288,7 +292,7 @@ public class Main implements ArgumentProcessor {
 		FilenameTask task = new FilenameTask(() -> {
 			log.threadTag(filename);
 			if (filename.startsWith("test-map:") || new File(filename).exists()){
-				String output = mp.makeMap(args, filename);
+				String output = cache != null ? cache.makeMap(args, filename, (MapMaker) mp) : mp.makeMap(args, filename);
 				log.debug("adding output name", output);
 				log.threadTag(null);
 				return output;
@@ -358,6 +362,13 @@ public class Main implements ArgumentProcessor {
 					Logger.defaultLogger.warn("It is recommended that max-jobs be no greater that the number of processor cores");
 			}
 			break;
+		case "tile-cache":
+			tileCache = val.isEmpty() ? null : new TileCache(val);
+			break;
+		case "phase-report":
+			phaseReportFile = val;
+			PhaseStatistics.setEnabled(true);
+			break;
 		case "version":
 			informationDisplayed = true;
 			System.err.println("Mkgmap version " + Version.VERSION);
@@ -587,6 +598,12 @@ public class Main implements ArgumentProcessor {
 			}
 		}
 		Logger.defaultLogger.write("Number of MapFailedExceptions: " + numMapFailedExceptions);
+		if (tileCache != null)
+			Logger.defaultLogger.write("Tile cache: " + tileCache.getHits() + " hits, " + tileCache.getMisses() + " misses");
+		if (phaseReportFile != null) {
+			PhaseStatistics.writeReport(phaseReportFile);
+			PhaseStatistics.setEnabled(false);
+		}
 		if ((taskCount > threadCount + 1) && (maxJobs == 0) && (threadCount < runtime.availableProcessors())) {
 			Logger.defaultLogger.warn("To reduce the run time, consider increasing the amnount of memory available for use by mkgmap by using the Java -Xmx flag to set the memory to more than " + 100* (1 + ((runtime.maxMemory() * runtime.availableProcessors()) / (threadCount * 1024 * 1024 * 100))) + " MB, providing this is less than the amount of physical memory installed.");
 		}
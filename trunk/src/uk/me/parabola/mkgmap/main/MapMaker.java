@@ -34,6 +34,7 @@ import uk.me.parabola.mkgmap.build.MapBuilder;
 import uk.me.parabola.mkgmap.combiners.OverviewBuilder;
 import uk.me.parabola.mkgmap.general.LoadableMapDataSource;
 import uk.me.parabola.mkgmap.reader.MapReader;
+import uk.me.parabola.util.PhaseStatistics;
 
 /**
  * Main routine for the command line map-making utility.
@@ -49,17 +50,31 @@ public class MapMaker implements MapProcessor {
 		this.createOverviewFiles = createOverviewFiles;
 	}
 
+	boolean isCreateOverviewFiles() {
+		return createOverviewFiles;
+	}
+
+	@SuppressWarnings("try")
 	public String makeMap(CommandArgs args, String filename) {
 		if (new File(filename).isDirectory()) {
 			Logger.defaultLogger.error("Need a single file, not a directory: " + filename);
 			return filename;
 		}
+		PhaseStatistics.startTile(args.getMapname());
 		try {
-			LoadableMapDataSource src = loadFromFile(args, filename);
+			LoadableMapDataSource src;
+			try (PhaseStatistics.Phase p = PhaseStatistics.phase("load")) {
+				src = loadFromFile(args, filename);
+			}
 			sort = args.getSort();
 			if (createOverviewFiles){
 				if (src.overviewMapLevels() != null){
-					makeMap(args, src, OverviewBuilder.OVERVIEW_PREFIX);
+					PhaseStatistics.startTile(OverviewBuilder.OVERVIEW_PREFIX + args.getMapname());
+					try {
+						makeMap(args, src, OverviewBuilder.OVERVIEW_PREFIX);
+					} finally {
+						PhaseStatistics.endTile();
+					}
 				} else {
 					String fname = OverviewBuilder.getOverviewImgName(args.getMapname());
 					
@@ -74,6 +89,8 @@ public class MapMaker implements MapProcessor {
 		} catch (FileNotFoundException e) {
 			Logger.defaultLogger.error("Could not open file: " + filename);
 			return filename;
+		} finally {
+			PhaseStatistics.endTile();
 		}
 	}
 
@@ -96,6 +113,7 @@ public class MapMaker implements MapProcessor {
 	 * @param mapNamePrefix prefix for output file (e.g. ovm_ for overview map component files)
 	 * @return The output filename for the map.
 	 */
+	@SuppressWarnings("try")
 	private String makeMap(CommandArgs args, LoadableMapDataSource src, String mapNamePrefix) {
 
 		if (src.getBounds().isEmpty())
@@ -111,12 +129,16 @@ public class MapMaker implements MapProcessor {
 
 			MapBuilder builder = new MapBuilder(OverviewBuilder.OVERVIEW_PREFIX.equals(mapNamePrefix), false);
 			builder.config(args.getProperties());
-			builder.makeMap(map, src);
+			try (PhaseStatistics.Phase p = PhaseStatistics.phase("build")) {
+				builder.makeMap(map, src);
+			}
 
 			// Collect information on map complete.
 			String outName = map.getFilename();
 			log.info("finished making map", outName, "closing");
-			map.close();
+			try (PhaseStatistics.Phase p = PhaseStatistics.phase("close")) {
+				map.close();
+			}
 			return outName;
 		} catch (FileExistsException e) {
 			Logger.defaultLogger.error(e.getMessage());
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import uk.me.parabola.imgfmt.ExitException;
+import uk.me.parabola.imgfmt.Utils;
+import uk.me.parabola.log.Logger;
+import uk.me.parabola.mkgmap.CommandArgs;
+import uk.me.parabola.mkgmap.Version;
+import uk.me.parabola.mkgmap.combiners.OverviewBuilder;
+import uk.me.parabola.util.EnhancedProperties;
+
+/**
+ * A cache for the img files of the tiles. The key of a tile is a fingerprint
+ * of everything that is used to build it:
+ * <ul>
+ * <li>the mkgmap version and the jar file,
+ * <li>the content of the input file,
+ * <li>the options for the tile, except for those that don't change the
+ * content of the tile like max-jobs or output-dir,
+ * <li>the files and directories that are given in option values, e.g. the
+ * style, bounds, precomp-sea or the DEM directories. For these only the names,
+ * sizes and modification times of the files are used, so that big directories
+ * don't have to be read on each run.
+ * </ul>
+ * The cache directory contains one directory per key with the img file
+ * of the tile and the overview work file (ovm_*.img), if there is one.
+ */
+public class TileCache {
+	private static final Logger log = Logger.getLogger(TileCache.class);
+
+	/** Options which don't change the content of a tile. */
+	private static final Set<String> IGNORED_OPTIONS = new HashSet<>(Arrays.asList(
+			"tile-cache", "max-jobs", "output-dir", "verbose", "phase-report", "keep-going",
+			"number-of-files", "gmapsupp", "gmapi", "gmapi-minimal", "nsis", "remove-ovm-work-files"));
+
+	private final Path cacheDir;
+	private final String codeFingerprint;
+
+	// the fingerprints of the files given in options, these are calculated once per run
+	private final Map<String, String> pathFingerprints = new ConcurrentHashMap<>();
+
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+
+	public TileCache(String dirName) {
+		this.cacheDir = Paths.get(dirName);
+		try {
+			Files.createDirectories(cacheDir);
+		} catch (IOException e) {
+			throw new ExitException("Cannot create tile cache directory " + dirName, e);
+		}
+		this.codeFingerprint = Version.VERSION + ' ' + codeSourceFingerprint();
+	}
+
+	/**
+	 * Build the tile or take it from the cache.
+	 *
+	 * @param args The options for the tile.
+	 * @param filename The input file.
+	 * @param builder Builds the tile if it is not in the cache.
+	 * @return The name of the img file of the tile.
+	 */
+	public String makeMap(CommandArgs args, String filename, MapMaker builder) {
+		boolean createOverviewFiles = builder.isCreateOverviewFiles();
+		String key;
+		try {
+			key = calcKey(args, filename, createOverviewFiles);
+		} catch (IOException e) {
+			log.warn("Tile cache: could not calculate key for", filename, e.getMessage());
+			return builder.makeMap(args, filename);
+		}
+
+		String imgName = args.getMapname() + ".img";
+		String ovmName = OverviewBuilder.getOverviewImgName(imgName);
+		Path entry = cacheDir.resolve(key.substring(0, 2)).resolve(key);
+		Path outDir = Paths.get(args.getOutputDir());
+
+		if (Files.isRegularFile(entry.resolve(imgName))) {
+			try {
+				copy(entry.resolve(imgName), outDir.resolve(imgName));
+				Path ovm = entry.resolve(ovmName);
+				if (Files.isRegularFile(ovm))
+					copy(ovm, outDir.resolve(ovmName));
+				else if (createOverviewFiles)
+					Files.deleteIfExists(outDir.resolve(ovmName));
+				hits.incrementAndGet();
+				log.info("Tile cache: using", entry, "for", filename);
+				return Utils.joinPath(args.getOutputDir(), imgName);
+			} catch (IOException e) {
+				log.warn("Tile cache: could not use entry", entry, e.getMessage());
+			}
+		}
+
+		misses.incrementAndGet();
+		String output = builder.makeMap(args, filename);
+		if (output != null && new File(output).getName().equals(imgName) && new File(output).isFile())
+			store(entry, Paths.get(output), createOverviewFiles ? outDir.resolve(ovmName) : null);
+		return output;
+	}
+
+	/**
+	 * Save the files of a tile. They are copied to a temporary directory first,
+	 * which is renamed, so that there are never incomplete entries, even when
+	 * two processes use the same cache.
+	 */
+	private static void store(Path entry, Path img, Path ovm) {
+		Path tmp = null;
+		try {
+			Files.createDirectories(entry.getParent());
+			tmp = Files.createTempDirectory(entry.getParent(), "tmp");
+			copy(img, tmp.resolve(img.getFileName()));
+			if (ovm != null && Files.isRegularFile(ovm))
+				copy(ovm, tmp.resolve(ovm.getFileName()));
+			if (!Files.exists(entry))
+				Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			log.warn("Tile cache: could not store", img, e.getMessage());
+		} finally {
+			if (tmp != null && Files.exists(tmp))
+				deleteDir(tmp);
+		}
+	}
+
+	private static void copy(Path from, Path to) throws IOException {
+		Files.copy(from, to, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static void deleteDir(Path dir) {
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+			for (Path f : files)
+				Files.delete(f);
+			Files.delete(dir);
+		} catch (IOException e) {
+			log.warn("Tile cache: could not remove", dir, e.getMessage());
+		}
+	}
+
+	/**
+	 * Calculate the key for a tile.
+	 * @return The key as hex string.
+	 * @throws IOException If the input file cannot be read.
+	 */
+	String calcKey(CommandArgs args, String filename, boolean createOverviewFiles) throws IOException {
+		MessageDigest md = newDigest();
+		update(md, codeFingerprint);
+		update(md, "overview-files=" + createOverviewFiles);
+		update(md, "input=" + contentDigest(Paths.get(filename)));
+
+		EnhancedProperties props = args.getProperties();
+		List<String> names = new ArrayList<>(props.stringPropertyNames());
+		Collections.sort(names);
+		for (String name : names) {
+			if (IGNORED_OPTIONS.contains(name))
+				continue;
+			String val = props.getProperty(name);
+			update(md, name + '=' + val);
+			for (String part : val.split(",")) {
+				String fp = pathFingerprint(part.trim());
+				if (fp != null)
+					update(md, fp);
+			}
+		}
+		return toHex(md.digest());
+	}
+
+	/**
+	 * @return The fingerprint of a file or directory or null if the
+	 * value is not the name of an existing file.
+	 */
+	private String pathFingerprint(String value) {
+		if (value.isEmpty())
+			return null;
+		Path path;
+		try {
+			path = Paths.get(value);
+		} catch (RuntimeException e) {
+			return null;
+		}
+		if (!Files.exists(path))
+			return null;
+		return pathFingerprints.computeIfAbsent(path.toAbsolutePath().normalize().toString(), p -> {
+			MessageDigest md = newDigest();
+			try (Stream<Path> files = Files.walk(path)) {
+				files.filter(Files::isRegularFile).sorted().forEach(f -> {
+					try {
+						update(md, path.relativize(f) + " " + Files.size(f) + " " + Files.getLastModifiedTime(f).toMillis());
+					} catch (IOException e) {
+						update(md, f.toString());
+					}
+				});
+			} catch (IOException e) {
+				update(md, p);
+			}
+			return toHex(md.digest());
+		});
+	}
+
+	private static String contentDigest(Path file) throws IOException {
+		MessageDigest md = newDigest();
+		byte[] buf = new byte[64 * 1024];
+		try (InputStream is = Files.newInputStream(file)) {
+			int n;
+			while ((n = is.read(buf)) > 0)
+				md.update(buf, 0, n);
+		}
+		return toHex(md.digest());
+	}
+
+	/**
+	 * The jar file or class directory of mkgmap, so that a new build is
+	 * not using the tiles of an old build with the same version.
+	 */
+	private String codeSourceFingerprint() {
+		CodeSource cs = TileCache.class.getProtectionDomain().getCodeSource();
+		if (cs == null || cs.getLocation() == null)
+			return "";
+		try {
+			Path path = Paths.get(cs.getLocation().toURI());
+			String fp = pathFingerprint(path.toString());
+			return fp == null ? "" : fp;
+		} catch (URISyntaxException | RuntimeException e) {
+			return "";
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new ExitException("SHA-256 not available", e);
+		}
+	}
+
+	private static void update(MessageDigest md, String s) {
+		md.update(s.getBytes(StandardCharsets.UTF_8));
+		md.update((byte) 0);
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes)
+			sb.append(String.format("%02x", b));
+		return sb.toString();
+	}
+
+	public int getHits() {
+		return hits.get();
+	}
+
+	public int getMisses() {
+		return misses.get();
+	}
+}
@@ -81,6 +81,7 @@ import uk.me.parabola.mkgmap.reader.osm.Way;
 import uk.me.parabola.util.ElementQuadTree;
 import uk.me.parabola.util.EnhancedProperties;
 import uk.me.parabola.util.MultiHashMap;
+import uk.me.parabola.util.PhaseStatistics;
 
 /**
  * Convert from OSM to the mkgmap intermediate format using a style.
@@ -942,6 +943,7 @@ public class StyledConverter implements OsmConverter {
 	}
 	
 	@Override
+	@SuppressWarnings("try")
 	public void end() {
 		style.reportStats();
 		driveOnLeft = calcDrivingSide();
@@ -991,7 +993,9 @@ public class StyledConverter implements OsmConverter {
 		}
 		deletedRoads.clear();
 		modifiedRoads.clear(); 
-		mergeRoads();
+		try (PhaseStatistics.Phase p = PhaseStatistics.phase("road-merge")) {
+			mergeRoads();
+		}
 		
 		resetHighwayCounts();
 		setHighwayCounts();
@@ -1010,7 +1014,9 @@ public class StyledConverter implements OsmConverter {
 			if (cw.isValid())
 				addRoad(cw);
 		}
-		housenumberGenerator.generate(lineAdder);
+		try (PhaseStatistics.Phase p = PhaseStatistics.phase("housenumbers")) {
+			housenumberGenerator.generate(lineAdder);
+		}
 		housenumberGenerator = null;
 		
 		if (routable)
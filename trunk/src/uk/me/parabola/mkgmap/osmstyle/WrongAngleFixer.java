@@ -58,8 +58,11 @@ public class WrongAngleFixer {
 	private static final double MAX_BEARING_ERROR = 15;
 	private static final double MAX_BEARING_ERROR_HALF = MAX_BEARING_ERROR / 2;
 	private static final double MAX_DIFF_ANGLE_STRAIGHT_LINE = 3;
+	/** check the centres in parallel if there are at least this many */
+	private static final int MIN_CENTERS_FOR_PARALLEL = 2000;
 	
 	private final Area bbox;
+	private int minCentersForParallel = MIN_CENTERS_FOR_PARALLEL;
 	private static final String DEBUG_PATH = null;
 	private int pass;
 	private boolean extraPass;
@@ -85,6 +88,14 @@ public class WrongAngleFixer {
 		}
 	}
 
+	/**
+	 * Change the number of centres from which on they are checked in parallel,
+	 * to test both ways.
+	 */
+	void setMinCentersForParallel(int minCenters) {
+		this.minCentersForParallel = minCenters;
+	}
+
 	/**
 	 * Find wrong angles caused by rounding to map units. Try to fix them by
 	 * moving, removing or merging points. 
@@ -231,7 +242,12 @@ public class WrongAngleFixer {
 
 		final HashSet<Coord> changedPlaces = new HashSet<>();
 		int numNodesMerged = 0; 
+		int numCentersAnalysed = 0;
+		int numCentersChanged = 0;
 		HashSet<Way> waysWithBearingErrors = new HashSet<>();
+		// the ways that are checked in the pass, all ways in the first pass,
+		// after that only those with bearing errors or points next to them
+		List<ConvertedWay> work = convertedWays;
 		HashSet<Long> waysThatMapToOnePoint = new HashSet<>();
 		
 		// filter with Douglas Peucker algo
@@ -249,14 +265,12 @@ public class WrongAngleFixer {
 			
 			// Step 1: detect points which are parts of line segments with wrong bearings
 			lastWay = null;
-			for (ConvertedWay cw : convertedWays) {
+			for (ConvertedWay cw : work) {
 				if (!cw.isValid())
 					continue;
 				Way way = cw.getWay();
 				if (way.equals(lastWay))
 					continue;
-				if (pass != 1 && !waysWithBearingErrors.contains(way))
-					continue;
 				lastWay = way;
 				List<Coord> points = way.getPoints();
 
@@ -298,12 +312,10 @@ public class WrongAngleFixer {
 			Map<Coord, Set<Way>> overlaps = new HashMap<>();
 
 			lastWay = null;
-			for (ConvertedWay cw : convertedWays) {
+			for (ConvertedWay cw : work) {
 				if (!cw.isValid() || cw.getWay().equals(lastWay))
 					continue;
 				Way way = cw.getWay();
-				if (pass != 1 && !waysWithBearingErrors.contains(way))
-					continue;
 				lastWay = way;
 
 				boolean wayHasSpecialPoints = false;
@@ -351,39 +363,54 @@ public class WrongAngleFixer {
 			}
 			markOverlaps(overlaps, centers);
 			overlaps.clear();
-			// Step 3: Update list of ways with bearing errors or points next to them 
+			// Step 3: Update list of ways with bearing errors or points next to them
+			// and collect the ways for the rest of this pass and the next one
+			List<ConvertedWay> nextWork = new ArrayList<>();
 			lastWay = null;
 			for (ConvertedWay cw : convertedWays) {
-				if (!cw.isValid() || cw.getWay().equals(lastWay))
+				if (!cw.isValid())
 					continue;
 				Way way = cw.getWay();
-				lastWay = way;
-				if (!waysWithBearingErrors.contains(way)) {
-					List<Coord> points = way.getPoints();
-				// scan through the way's points looking for line segments with big 
-					// bearing errors
-					for (Coord p : points) {
-						if (p.getHighwayCount() >= 2 && centerMap.containsKey(p)) {
-							waysWithBearingErrors.add(way);
-							break;
+				if (!way.equals(lastWay)) {
+					lastWay = way;
+					if (!waysWithBearingErrors.contains(way)) {
+						List<Coord> points = way.getPoints();
+						// scan through the way's points looking for line segments with big 
+						// bearing errors
+						for (Coord p : points) {
+							if (p.getHighwayCount() >= 2 && centerMap.containsKey(p)) {
+								waysWithBearingErrors.add(way);
+								break;
+							}
 						}
 					}
 				}
-			}
-			log.info("pass " + pass + ": analysing " + centers.size() + " points with bearing problems.");
+				if (waysWithBearingErrors.contains(way))
+					nextWork.add(cw);
+			}
+			work = nextWork;
+			if (log.isInfoEnabled())
+				log.info("pass " + pass + ": analysing " + centers.size() + " points with bearing problems in "
+						+ work.size() + " ways.");
+			numCentersAnalysed += centers.size();
 			centerMap = null; // Return to GC 
 			// Step 4: try to correct the errors
 			List<CenterOfAngle> checkAgainList = null;
 			boolean tryMerge = false;
 			while (true) {
 				checkAgainList = new ArrayList<>();
+				CenterCheck check = centers.size() >= minCentersForParallel ? new CenterCheck(centers, replacements) : null;
 				for (CenterOfAngle coa : centers) {
 					coa.center.setPartOfBadAngle(false); // reset flag for next pass
 					if (coa.getCurrentLocation(replacements) == null)
 						continue; // removed center
-					if (!coa.isOK(replacements)) {
+					if (check != null ? !check.isOK(coa, replacements) : !coa.isOK(replacements)) {
+						List<Coord> touched = check != null ? coa.getLocations(replacements) : null;
 						boolean changed = coa.tryChange(replacements, tryMerge);
 						if (changed) {
+							numCentersChanged++;
+							if (check != null)
+								check.changed(touched);
 							if (DEBUG_PATH != null)
 								changedPlaces.add(coa.center);
 							continue;
@@ -401,8 +428,8 @@ public class WrongAngleFixer {
 			lastWay = null;
 			boolean lastWayModified = false;
 			ConvertedWay lastConvertedWay = null;
-			for (ConvertedWay cw : convertedWays) {
-				if (!cw.isValid() || !waysWithBearingErrors.contains(cw.getWay()))
+			for (ConvertedWay cw : work) {
+				if (!cw.isValid())
 					continue;
 				Way way = cw.getWay();
 				List<Coord> points = way.getPoints();
@@ -560,7 +587,8 @@ public class WrongAngleFixer {
 			log.warn("Removing wrong angles - didn't finish in " + pass + " passes, giving up!");
 		} else {
 			log.info("Removing wrong angles - finished in", pass, "passes (", numNodesMerged, "nodes merged,",
-					numWaysDeleted, "ways deleted)");
+					numWaysDeleted, "ways deleted,", numCentersAnalysed, "points analysed,", numCentersChanged,
+					"points changed)");
 		}
 		return replacements;
 	}
@@ -579,21 +607,66 @@ public class WrongAngleFixer {
 		return coa;
 	}
 
-	private void markOverlaps(Map<Coord, Set<Way>> overlaps, List<CenterOfAngle> centers) {
+	private static void markOverlaps(Map<Coord, Set<Way>> overlaps, List<CenterOfAngle> centers) {
+		Map<Coord, List<CenterOfAngle>> centersByPos = null;
 		for (Entry<Coord, Set<Way>> entry : overlaps.entrySet()) {
 			if (entry.getValue().size() > 1) {
-				Coord p = entry.getKey();
-				for (CenterOfAngle coa : centers) {
-					if (coa.center.equals(p)) {
-						// two different centres are on the same Garmin point and they
-						// appear on different ways. We try hard to change them.
-						coa.forceChange = true;
-					}
+				if (centersByPos == null) {
+					centersByPos = new HashMap<>();
+					for (CenterOfAngle coa : centers)
+						centersByPos.computeIfAbsent(coa.center, k -> new ArrayList<>(1)).add(coa);
+				}
+				for (CenterOfAngle coa : centersByPos.getOrDefault(entry.getKey(), Collections.emptyList())) {
+					// two different centres are on the same Garmin point and they
+					// appear on different ways. We try hard to change them.
+					coa.forceChange = true;
 				}
 			}
 		}
 	}
 
+	/**
+	 * Checks in parallel which centres need a change. The result for a centre
+	 * is only used as long as neither the centre nor one of its neighbours
+	 * was changed, so the results are the same as with
+	 * {@link CenterOfAngle#isOK(Map)} at the time of the call.
+	 */
+	private static class CenterCheck {
+		private static final byte UNKNOWN = 0;
+		private static final byte OK = 1;
+		private static final byte NOT_OK = 2;
+
+		// the centres that read the current location of a point
+		private final Map<Coord, List<CenterOfAngle>> readers = new IdentityHashMap<>();
+
+		CenterCheck(List<CenterOfAngle> centers, Map<Coord, Coord> replacements) {
+			centers.parallelStream().forEach(coa -> coa.checked = coa.isOK(replacements) ? OK : NOT_OK);
+			for (CenterOfAngle coa : centers) {
+				for (Coord p : coa.getLocations(replacements))
+					readers.computeIfAbsent(p, k -> new ArrayList<>(4)).add(coa);
+			}
+		}
+
+		boolean isOK(CenterOfAngle coa, Map<Coord, Coord> replacements) {
+			if (coa.checked == UNKNOWN)
+				return coa.isOK(replacements);
+			return coa.checked == OK;
+		}
+
+		/**
+		 * Forget the results of all centres that read one of the points.
+		 * @param changed the current locations of the centre and the neighbours
+		 * of a centre before it was changed
+		 */
+		void changed(List<Coord> changed) {
+			for (Coord p : changed) {
+				List<CenterOfAngle> list = readers.get(p);
+				if (list != null)
+					list.forEach(coa -> coa.checked = UNKNOWN);
+			}
+		}
+	}
+
 	/** 
 	 * remove obsolete points in ways. Obsolete are points which are
 	 * very close to 180 degrees angles in the real line or wrong points. 
@@ -803,6 +876,8 @@ public class WrongAngleFixer {
 		final List<CenterOfAngle> neighbours;
 		final int id; // debugging aid
 		boolean wasMerged;
+		// the result of the parallel check, see CenterCheck
+		byte checked;
 		
 		List<CenterOfAngle> badMergeCandidates;
 		
@@ -831,6 +906,20 @@ public class WrongAngleFixer {
 			return c; 
 		}
 		
+		/**
+		 * @param replacements
+		 * @return the current locations of the centre and its neighbours,
+		 * including removed ones. These are the points that
+		 * {@link #tryChange(Map, boolean)} may change.
+		 */
+		public List<Coord> getLocations(Map<Coord, Coord> replacements) {
+			List<Coord> locations = new ArrayList<>(neighbours.size() + 1);
+			locations.add(getReplacement(center, null, replacements));
+			for (CenterOfAngle neighbour : neighbours)
+				locations.add(getReplacement(neighbour.center, null, replacements));
+			return locations;
+		}
+
 		/**
 		 * Add neighbour which should not be merged
 		 * @param other
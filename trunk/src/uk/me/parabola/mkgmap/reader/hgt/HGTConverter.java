@@ -40,6 +40,13 @@ public class HGTConverter {
 	private int pointsDistanceLon;
 	private boolean useComplexInterpolation;
 	private final double[][] eleArray = new double[4][4];
+	// columns of the reader interpolated for one row, see cubicColumn()
+	private HGTReader colRdr;
+	private int colYBottom;
+	private double colQy;
+	private double[] colValues = new double[0];
+	private int[] colStamps = new int[0];
+	private int colStamp;
 	private int statPoints;
 	private int statBicubic;
 	private int statBilinear;
@@ -149,10 +156,22 @@ public class HGTConverter {
 		statPoints++;
 		if (useComplexInterpolation) {
 			// bicubic (Catmull-Rom) interpolation with 16 points
-			boolean filled = fillArray(rdr, row, col, xLeft, yBottom);
-			if (filled) {
-				h = (short) Math.round(bicubicInterpolation(eleArray, qx, qy));
-				statBicubic++;
+			if (xLeft > 0 && xLeft < resX - 1 && yBottom > 0 && yBottom < resY - 1) {
+				// all points in this reader, same as bicubicInterpolation() but with the cached columns
+				double p0 = cubicColumn(rdr, xLeft - 1, yBottom, qy);
+				double p1 = cubicColumn(rdr, xLeft, yBottom, qy);
+				double p2 = cubicColumn(rdr, xLeft + 1, yBottom, qy);
+				double p3 = cubicColumn(rdr, xLeft + 2, yBottom, qy);
+				if (!Double.isNaN(p0) && !Double.isNaN(p1) && !Double.isNaN(p2) && !Double.isNaN(p3)) {
+					h = (short) Math.round(cubicInterpolation(p0, p1, p2, p3, qx));
+					statBicubic++;
+				}
+			} else {
+				boolean filled = fillArray(rdr, row, col, xLeft, yBottom);
+				if (filled) {
+					h = (short) Math.round(bicubicInterpolation(eleArray, qx, qy));
+					statBicubic++;
+				}
 			}
 		}
 
@@ -180,6 +199,40 @@ public class HGTConverter {
 		return h;
 	}
 
+	/**
+	 * Interpolate the 4 values of a column of the reader around yBottom.
+	 * The result only depends on the row of the DEM points, so it is kept
+	 * for the other points of the row which use the same column. The points
+	 * of a DEM tile are calculated row by row, so most columns are read and
+	 * interpolated only once per row instead of once per point.
+	 * @return the interpolated value or NaN if one of the values is void
+	 */
+	private double cubicColumn(HGTReader rdr, int x, int yBottom, double qy) {
+		if (rdr != colRdr || yBottom != colYBottom || qy != colQy) {
+			colRdr = rdr;
+			colYBottom = yBottom;
+			colQy = qy;
+			if (colValues.length <= rdr.getResX()) {
+				colValues = new double[rdr.getResX() + 1];
+				colStamps = new int[rdr.getResX() + 1];
+				colStamp = 0;
+			}
+			colStamp++;
+		}
+		if (colStamps[x] != colStamp) {
+			colStamps[x] = colStamp;
+			short h0 = rdr.ele(x, yBottom - 1);
+			short h1 = rdr.ele(x, yBottom);
+			short h2 = rdr.ele(x, yBottom + 1);
+			short h3 = rdr.ele(x, yBottom + 2);
+			if (h0 == HGTReader.UNDEF || h1 == HGTReader.UNDEF || h2 == HGTReader.UNDEF || h3 == HGTReader.UNDEF)
+				colValues[x] = Double.NaN;
+			else 
+				colValues[x] = cubicInterpolation(h0, h1, h2, h3, qy);
+		}
+		return colValues[x];
+	}
+
 	/**
 	 * Fill 16 values of HGT near required coordinates
 	 * can use HGTreaders near the current one
@@ -643,7 +696,11 @@ public class HGTConverter {
 	 * @author Paul Breeuwsma
 	 */
 	private static double cubicInterpolation(double[] p, double qx) {
-		return p[1] + 0.5 * qx*(p[2] - p[0] + qx*(2.0*p[0] - 5.0*p[1] + 4.0*p[2] - p[3] + qx*(3.0*(p[1] - p[2]) + p[3] - p[0])));
+		return cubicInterpolation(p[0], p[1], p[2], p[3], qx);
+	}
+
+	private static double cubicInterpolation(double p0, double p1, double p2, double p3, double qx) {
+		return p1 + 0.5 * qx*(p2 - p0 + qx*(2.0*p0 - 5.0*p1 + 4.0*p2 - p3 + qx*(3.0*(p1 - p2) + p3 - p0)));
 	}
 
 	/**
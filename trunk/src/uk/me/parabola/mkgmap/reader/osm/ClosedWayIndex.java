@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm;
+
+import java.awt.Polygon;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.me.parabola.imgfmt.app.Area;
+import uk.me.parabola.imgfmt.app.Coord;
+import uk.me.parabola.util.ElementQuadTree;
+
+/**
+ * Finds the closed ways that contain another way, with the same result as
+ * {@link Way#containsPointsOf(Way)} but without testing every way and
+ * without creating the polygon for each test.
+ * <p>
+ * Can be used by several threads once it is created.
+ */
+final class ClosedWayIndex {
+	private final Map<Way, Polygon> polygons = new IdentityHashMap<>();
+	private final Map<Way, Integer> positions = new IdentityHashMap<>();
+	private final ElementQuadTree tree;
+
+	/**
+	 * @param ways The closed ways.
+	 */
+	ClosedWayIndex(List<Way> ways) {
+		Area all = null;
+		for (Way w : ways) {
+			Polygon poly = new Polygon();
+			for (Coord p : w.getPoints())
+				poly.addPoint(p.getHighPrecLon(), p.getHighPrecLat());
+			// the bounds are calculated when they are first used, do it now before other threads use it
+			poly.getBounds();
+			polygons.put(w, poly);
+			positions.put(w, positions.size());
+			Area bbox = Area.getBBox(w.getPoints());
+			all = (all == null) ? bbox : new Area(Math.min(all.getMinLat(), bbox.getMinLat()),
+					Math.min(all.getMinLong(), bbox.getMinLong()), Math.max(all.getMaxLat(), bbox.getMaxLat()),
+					Math.max(all.getMaxLong(), bbox.getMaxLong()));
+		}
+		tree = (all == null) ? null : new ElementQuadTree(all, new ArrayList<>(ways));
+		// the tree also calculates some values when they are first used
+		if (tree != null)
+			tree.get(all);
+	}
+
+	/**
+	 * @param other Any way.
+	 * @return The ways of the index that contain all points of the other way,
+	 * in the order in which they were given. Contains the other way if it is
+	 * in the index.
+	 */
+	List<Way> getContaining(Way other) {
+		List<Way> res = new ArrayList<>();
+		if (tree == null)
+			return res;
+		for (Element el : tree.get(Area.getBBox(other.getPoints()))) {
+			Way w = (Way) el;
+			if (contains(w, other))
+				res.add(w);
+		}
+		res.sort(Comparator.comparingInt(positions::get));
+		return res;
+	}
+
+	/**
+	 * @param w A way of the index.
+	 * @param other Any way.
+	 * @return Same as w.containsPointsOf(other).
+	 */
+	boolean contains(Way w, Way other) {
+		Polygon poly = polygons.get(w);
+		for (Coord p : other.getPoints()) {
+			if (!poly.contains(p.getHighPrecLon(), p.getHighPrecLat()))
+				return false;
+		}
+		return true;
+	}
+}
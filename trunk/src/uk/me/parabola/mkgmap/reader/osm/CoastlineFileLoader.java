@@ -13,20 +13,16 @@
 package uk.me.parabola.mkgmap.reader.osm;
 
 import java.io.FileNotFoundException;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import uk.me.parabola.imgfmt.app.Area;
-import uk.me.parabola.imgfmt.app.Coord;
 import uk.me.parabola.log.Logger;
 import uk.me.parabola.util.EnhancedProperties;
 
@@ -35,7 +31,7 @@ public final class CoastlineFileLoader {
 	private static final Logger log = Logger.getLogger(CoastlineFileLoader.class);
 
 	private final Set<String> coastlineFiles;
-	private final Collection<CoastlineWay> coastlines = new ArrayList<>();
+	private volatile CoastlineIndex coastlines;
 
 	private final AtomicBoolean coastlinesLoaded = new AtomicBoolean(false);
 	private final AtomicBoolean loadingStarted = new AtomicBoolean(false);
@@ -87,9 +83,10 @@ public final class CoastlineFileLoader {
 
 	private synchronized void loadCoastlinesImpl() {
 		log.info("Load coastlines");
+		CoastlineIndex.Builder builder = new CoastlineIndex.Builder();
 		for (String coastlineFile : coastlineFiles) {
 			try {
-				int nBefore = coastlines.size();
+				int nBefore = builder.size();
 
 				Collection<Way> loadedCoastlines = loadFile(coastlineFile);
 				log.info(loadedCoastlines.size(), "coastline ways from", coastlineFile, "loaded.");
@@ -99,90 +96,38 @@ public final class CoastlineFileLoader {
 				while (wayIter.hasNext()) {
 					Way way = wayIter.next();
 					wayIter.remove();
-					coastlines.add(new CoastlineWay(way.getId(), way.getPoints()));
+					if (log.isDebugEnabled())
+						log.debug("Create coastline way", way.getId(), "with", way.getPoints().size(), "points");
+					builder.add(way.getId(), way.getPoints());
 				}
 
-				log.info((coastlines.size() - nBefore), "coastlines loaded from", coastlineFile);
+				log.info((builder.size() - nBefore), "coastlines loaded from", coastlineFile);
 			} catch (FileNotFoundException exp) {
 				log.error("Coastline file " + coastlineFile + " not found.");
 			} catch (Exception exp) {
 				log.error("Unexpected exception reading " + coastlineFile, exp);
 			}
 		}
+		coastlines = builder.build();
 		coastlinesLoaded.set(true);
 	}
 
+	/**
+	 * Get the coastlines that intersect a tile. The index is searched, so
+	 * the time depends mostly on the number of coastlines in the tile.
+	 *
+	 * @param bbox The bounding box of the tile.
+	 * @return New ways, the caller can change them.
+	 */
 	public Collection<Way> getCoastlines(Area bbox) {
 		if (!coastlinesLoaded.get()) {
 			synchronized (this) {
 				loadCoastlines();
 			}
 		}
-		Collection<Way> ways = new ArrayList<>();
-		for (CoastlineWay w : coastlines) {
-			if (w.getBbox().intersects(bbox)) {
-				Way x = new Way(w.getOriginalId(), w.getPoints());
-				x.markAsGeneratedFrom(w);
-				x.addTag("natural", "coastline");
-				ways.add(x);
-			}
-		}
-		return ways;
-	}
-
-	public static class CoastlineWay extends Way {
-		private final Area bbox;
-
-		public CoastlineWay(long id, List<Coord> points) {
-			super(id, points);
-			if (points.isEmpty()) {
-				throw new IllegalArgumentException("No support for empty ways. WayId: " + id);
-			}
-
-			if (log.isDebugEnabled())
-				log.debug("Create coastline way", id, "with", points.size(), "points");
-			bbox = Area.getBBox(points);
-		}
-
-		@Override
-		public String getTag(String key) {
-			if ("natural".equals(key)) {
-				return "coastline";
-			} else {
-				return null;
-			}
-		}
-
-		@Override
-		public String toTagString() {
-			return "[natural=coastline]";
-		}
-
-		@Override
-		public Map<String, String> getTagsWithPrefix(String prefix, boolean removePrefix) {
-			if ("natural".startsWith(prefix)) {
-				if (removePrefix) {
-					return Collections.singletonMap("natural".substring(prefix.length()), "coastline");
-				} else {
-					return Collections.singletonMap("natural", "coastline");
-				}
-			} else {
-				return Collections.emptyMap();
-			}
-		}
-
-		@Override
-		public void removeAllTags() {
-		}
-
-		@Override
-		public Iterable<Entry<String, String>> getTagEntryIterator() {
-			return Collections.singletonMap("natural", "coastline").entrySet();
-		}
-
-		public Area getBbox() {
-			return bbox;
-		}
+		CoastlineIndex index = coastlines;
+		if (index == null)
+			return Collections.emptyList();
+		return index.getWays(bbox);
 	}
-
 }
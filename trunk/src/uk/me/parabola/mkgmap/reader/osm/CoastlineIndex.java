@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import uk.me.parabola.imgfmt.app.Area;
+import uk.me.parabola.imgfmt.app.Coord;
+
+/**
+ * The coastlines from the coastline file, stored in a compact form with a
+ * packed R-tree (sort-tile-recursive) over their bounding boxes.
+ * <p>
+ * The points are stored as ints, the ways are only created when a tile asks
+ * for them. Each tile gets its own Coord instances, so the tiles don't
+ * see changes that another tile makes to the points. Where the loaded ways
+ * share a Coord instance, the created ways of a tile share one too.
+ * <p>
+ * Immutable after it is built, so it can be used by any number of threads.
+ */
+final class CoastlineIndex {
+	private static final int NODE_SIZE = 16;
+
+	private final long[] ids;
+	// the first point of each way, plus the end
+	private final int[] pointStart;
+	// packed lat, lon of each point
+	private final int[] coords;
+	// pairs of (point in the way, first use) for the points that use a Coord
+	// instance that is used more than once, in this or in other ways. The first
+	// use is the number of the point where the instance was used first.
+	private final int[] sameStart;
+	private final int[] samePoints;
+
+	// the ways in the order of the tree
+	private final int[] order;
+	// levels[0] are the bounding boxes of the ways in tree order, the next level
+	// the boxes of the nodes with NODE_SIZE entries of the level before, etc.
+	private final int[][] levels;
+
+	private CoastlineIndex(Builder builder) {
+		ids = builder.ids.toLongArray();
+		pointStart = builder.pointStart.toIntArray();
+		coords = builder.coords.toIntArray();
+		sameStart = new int[ids.length + 1];
+		samePoints = builder.sharedPoints(pointStart, sameStart);
+
+		int n = ids.length;
+		int[] boxes = builder.boxes.toIntArray();
+		order = strOrder(boxes, n);
+		List<int[]> levelList = new ArrayList<>();
+		int[] level = new int[n * 4];
+		for (int i = 0; i < n; i++)
+			System.arraycopy(boxes, order[i] * 4, level, i * 4, 4);
+		levelList.add(level);
+		while (level.length > NODE_SIZE * 4) {
+			level = parentLevel(level);
+			levelList.add(level);
+		}
+		levels = levelList.toArray(new int[0][]);
+	}
+
+	/**
+	 * Sort the boxes into vertical slices by their centre longitude and the
+	 * boxes in each slice by their centre latitude. Consecutive boxes are
+	 * then close to each other.
+	 */
+	private static int[] strOrder(int[] boxes, int n) {
+		Integer[] idx = new Integer[n];
+		for (int i = 0; i < n; i++)
+			idx[i] = i;
+		Comparator<Integer> byLon = Comparator.comparingLong(i -> (long) boxes[i * 4 + 1] + boxes[i * 4 + 3]);
+		Comparator<Integer> byLat = Comparator.comparingLong(i -> (long) boxes[i * 4] + boxes[i * 4 + 2]);
+		Arrays.sort(idx, byLon);
+		int leaves = (n + NODE_SIZE - 1) / NODE_SIZE;
+		int sliceSize = (int) Math.ceil(Math.sqrt(leaves)) * NODE_SIZE;
+		for (int start = 0; start < n; start += sliceSize)
+			Arrays.sort(idx, start, Math.min(n, start + sliceSize), byLat);
+		int[] res = new int[n];
+		for (int i = 0; i < n; i++)
+			res[i] = idx[i];
+		return res;
+	}
+
+	private static int[] parentLevel(int[] level) {
+		int count = level.length / 4;
+		int nodes = (count + NODE_SIZE - 1) / NODE_SIZE;
+		int[] parent = new int[nodes * 4];
+		for (int node = 0; node < nodes; node++) {
+			int minLat = Integer.MAX_VALUE, minLon = Integer.MAX_VALUE;
+			int maxLat = Integer.MIN_VALUE, maxLon = Integer.MIN_VALUE;
+			int end = Math.min(count, (node + 1) * NODE_SIZE);
+			for (int i = node * NODE_SIZE; i < end; i++) {
+				minLat = Math.min(minLat, level[i * 4]);
+				minLon = Math.min(minLon, level[i * 4 + 1]);
+				maxLat = Math.max(maxLat, level[i * 4 + 2]);
+				maxLon = Math.max(maxLon, level[i * 4 + 3]);
+			}
+			parent[node * 4] = minLat;
+			parent[node * 4 + 1] = minLon;
+			parent[node * 4 + 2] = maxLat;
+			parent[node * 4 + 3] = maxLon;
+		}
+		return parent;
+	}
+
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * Create the ways that intersect the bounding box. They are returned in
+	 * the order in which they were added.
+	 *
+	 * @param bbox The bounding box.
+	 * @return New ways with new points, tagged natural=coastline.
+	 */
+	public List<Way> getWays(Area bbox) {
+		IntArrayList found = new IntArrayList();
+		int top = levels.length - 1;
+		int count = levels[top].length / 4;
+		for (int i = 0; i < count; i++)
+			search(top, i, bbox, found);
+		int[] wayIndexes = found.toIntArray();
+		Arrays.sort(wayIndexes);
+
+		List<Way> ways = new ArrayList<>(wayIndexes.length);
+		Int2ObjectOpenHashMap<Coord> shared = new Int2ObjectOpenHashMap<>();
+		for (int w : wayIndexes)
+			ways.add(createWay(w, shared));
+		return ways;
+	}
+
+	private void search(int level, int i, Area bbox, IntArrayList found) {
+		int[] boxes = levels[level];
+		if (boxes[i * 4] > bbox.getMaxLat() || boxes[i * 4 + 2] < bbox.getMinLat()
+				|| boxes[i * 4 + 1] > bbox.getMaxLong() || boxes[i * 4 + 3] < bbox.getMinLong())
+			return;
+		if (level == 0) {
+			found.add(order[i]);
+			return;
+		}
+		int childCount = levels[level - 1].length / 4;
+		int end = Math.min(childCount, (i + 1) * NODE_SIZE);
+		for (int c = i * NODE_SIZE; c < end; c++)
+			search(level - 1, c, bbox, found);
+	}
+
+	/**
+	 * @param shared The Coord instances of the shared points that were already
+	 * created, by first use.
+	 */
+	private Way createWay(int w, Int2ObjectOpenHashMap<Coord> shared) {
+		int start = pointStart[w];
+		int end = pointStart[w + 1];
+		List<Coord> points = new ArrayList<>(end - start);
+		for (int i = start; i < end; i++)
+			points.add(Coord.makePackedCoord(coords[i * 2], coords[i * 2 + 1]));
+		for (int i = sameStart[w]; i < sameStart[w + 1]; i += 2) {
+			Coord co = shared.get(samePoints[i + 1]);
+			if (co == null)
+				shared.put(samePoints[i + 1], points.get(samePoints[i]));
+			else
+				points.set(samePoints[i], co);
+		}
+
+		Way way = new Way(ids[w], points);
+		// like a way that is created from a loaded one
+		way.markAsGeneratedFrom(way);
+		way.addTag("natural", "coastline");
+		return way;
+	}
+
+	/**
+	 * Collects the ways for the index.
+	 */
+	static class Builder {
+		private final LongArrayList ids = new LongArrayList();
+		private final IntArrayList pointStart = new IntArrayList();
+		private final IntArrayList coords = new IntArrayList();
+		private final IntArrayList boxes = new IntArrayList();
+		// the number of the point where each Coord instance was used first
+		private final Reference2IntOpenHashMap<Coord> firstUses = new Reference2IntOpenHashMap<>();
+		// pairs of (point, first use) for the instances that are used again, ordered by point
+		private final IntArrayList repeated = new IntArrayList();
+		// the first uses of the instances that are used again
+		private final BitSet sharedFirstUses = new BitSet();
+
+		Builder() {
+			pointStart.add(0);
+			firstUses.defaultReturnValue(-1);
+		}
+
+		void add(long id, List<Coord> points) {
+			if (points.isEmpty())
+				throw new IllegalArgumentException("No support for empty ways. WayId: " + id);
+
+			ids.add(id);
+			for (Coord co : points) {
+				int point = coords.size() / 2;
+				coords.add(co.getPackedLat());
+				coords.add(co.getPackedLon());
+				int first = firstUses.putIfAbsent(co, point);
+				if (first >= 0) {
+					repeated.add(point);
+					repeated.add(first);
+					sharedFirstUses.set(first);
+				}
+			}
+			pointStart.add(coords.size() / 2);
+
+			Area bbox = Area.getBBox(points);
+			boxes.add(bbox.getMinLat());
+			boxes.add(bbox.getMinLong());
+			boxes.add(bbox.getMaxLat());
+			boxes.add(bbox.getMaxLong());
+		}
+
+		int size() {
+			return ids.size();
+		}
+
+		/**
+		 * Collect the (point in the way, first use) pairs of the shared points.
+		 * @param pointStart The first point of each way.
+		 * @param sameStart Filled with the first pair of each way.
+		 * @return The pairs.
+		 */
+		private int[] sharedPoints(int[] pointStart, int[] sameStart) {
+			IntArrayList pairs = new IntArrayList();
+			int r = 0;
+			int first = sharedFirstUses.nextSetBit(0);
+			for (int w = 0; w + 1 < pointStart.length; w++) {
+				sameStart[w] = pairs.size();
+				for (int point = pointStart[w]; point < pointStart[w + 1]; point++) {
+					if (point == first) {
+						pairs.add(point - pointStart[w]);
+						pairs.add(point);
+						first = sharedFirstUses.nextSetBit(point + 1);
+					} else if (r < repeated.size() && repeated.getInt(r) == point) {
+						pairs.add(point - pointStart[w]);
+						pairs.add(repeated.getInt(r + 1));
+						r += 2;
+					}
+				}
+			}
+			sameStart[pointStart.length - 1] = pairs.size();
+			return pairs.toIntArray();
+		}
+
+		CoastlineIndex build() {
+			return new CoastlineIndex(this);
+		}
+	}
+}
@@ -49,6 +49,13 @@ public class ElementSaver {
 
 	protected OSMId2ObjectMap<Coord> coordMap = new OSMId2ObjectMap<>();
 
+	// ids of the nodes that are referenced by ways or relations, null if all coords are saved
+	private OSMIdSet referencedNodes;
+	// the last point that was not saved because it is not referenced
+	private long unreferencedId;
+	private Coord unreferencedCoord;
+	private long numUnreferenced;
+
 	protected Map<Long, Node> nodeMap;
 	protected Map<Long, Way> wayMap;
 	protected Map<Long, Relation> relationMap;
@@ -91,12 +98,22 @@ public class ElementSaver {
 	 * We use this to calculate a bounding box in the situation where none is
 	 * given.  In the usual case where there is a bounding box, then nothing
 	 * is done.
+	 * 
+	 * If the ids of the referenced nodes are known, the points of all other nodes
+	 * are not saved. The last of them is kept until the next point is added, so that
+	 * a {@link Node} can still be created for it.
 	 *
 	 * @param id the OSM id
 	 * @param co The point.
 	 */
 	public void addPoint(long id, Coord co) {
-		coordMap.put(id, co);
+		if (referencedNodes != null && !referencedNodes.contains(id)) {
+			unreferencedId = id;
+			unreferencedCoord = co;
+			numUnreferenced++;
+		} else {
+			coordMap.put(id, co);
+		}
 		if (co.getLatitude() < minLat)
 			minLat = co.getLatitude();
 		if (co.getLatitude() > maxLat)
@@ -189,8 +206,21 @@ public class ElementSaver {
 		boundingBox = bbox;
 	}
 
+	/**
+	 * Set the ids of the nodes that are referenced by ways or relations, typically 
+	 * collected in a first pass over the input with a {@link NodeRefCollector}.
+	 * The points of other nodes are not saved. 
+	 * @param referencedNodes the set of node ids, null to save all points
+	 */
+	public void setReferencedNodes(OSMIdSet referencedNodes) {
+		this.referencedNodes = referencedNodes;
+	}
+
 	public Coord getCoord(long id) {
-		return coordMap.get(id);
+		Coord co = coordMap.get(id);
+		if (co == null && id == unreferencedId)
+			return unreferencedCoord;
+		return co;
 	}
 
 	public Node getNode(long id) {
@@ -206,6 +236,11 @@ public class ElementSaver {
 	}
 	
 	public void finishLoading() {
+		if (referencedNodes != null) {
+			log.info("Points of unreferenced nodes that were not saved:", numUnreferenced);
+			referencedNodes = null;
+			unreferencedCoord = null;
+		}
 		coordMap = null;
 	}
 
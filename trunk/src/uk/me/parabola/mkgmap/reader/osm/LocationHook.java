@@ -13,6 +13,7 @@
 
 package uk.me.parabola.mkgmap.reader.osm;
 
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
@@ -21,6 +22,8 @@ import uk.me.parabola.imgfmt.app.Area;
 import uk.me.parabola.imgfmt.app.Coord;
 import uk.me.parabola.log.Logger;
 import uk.me.parabola.mkgmap.reader.osm.boundary.BoundaryGrid;
+import uk.me.parabola.mkgmap.reader.osm.boundary.BoundaryIndex;
+import uk.me.parabola.mkgmap.reader.osm.boundary.BoundaryLookup;
 import uk.me.parabola.mkgmap.reader.osm.boundary.BoundaryQuadTree;
 import uk.me.parabola.mkgmap.reader.osm.boundary.BoundaryUtil;
 import uk.me.parabola.util.EnhancedProperties;
@@ -35,8 +38,12 @@ public class LocationHook implements OsmReadingHooks {
 	private long cntQTSearch = 0;
 	private long cntNotFnd = 0;
 	private long cntwayNotFnd = 0;
+	private long cntLeafSearch = 0;
+	private long cntRasterHit = 0;
 	
-	private BoundaryGrid boundaryGrid;
+	private BoundaryLookup boundaryLookup;
+	/** set if the bounds option gives a boundary index file instead of a directory */
+	private BoundaryIndex boundaryIndex;
 
 	private ElementSaver saver;
 	
@@ -79,16 +86,27 @@ public class LocationHook implements OsmReadingHooks {
 				checkedBoundaryDirName = boundaryDirName;
 				checkBoundaryDirOk = false;
 
-				List<String> boundaryFiles = BoundaryUtil.getBoundaryDirContent(boundaryDirName);
-				if (boundaryFiles == null || boundaryFiles.isEmpty()) {
-					log.error("LocationHook is disabled because no bounds files are available. Dir: "
-							+ boundaryDirName);
-					return false;
+				if (!BoundaryIndex.isIndexFile(boundaryDirName)) {
+					List<String> boundaryFiles = BoundaryUtil.getBoundaryDirContent(boundaryDirName);
+					if (boundaryFiles == null || boundaryFiles.isEmpty()) {
+						log.error("LocationHook is disabled because no bounds files are available. Dir: "
+								+ boundaryDirName);
+						return false;
+					}
 				}
 					// passed all checks => boundaries are okay
 				checkBoundaryDirOk = true;
 			}
 		}
+		if (BoundaryIndex.isIndexFile(boundaryDirName)) {
+			try {
+				boundaryIndex = BoundaryIndex.open(boundaryDirName);
+			} catch (IOException e) {
+				log.error("LocationHook is disabled because the boundary index cannot be read. File: "
+						+ boundaryDirName + " " + e);
+				return false;
+			}
+		}
 		log.info("Checking bounds dir took", (System.currentTimeMillis() - t1), "ms");
 		return true;
 	}
@@ -103,16 +121,28 @@ public class LocationHook implements OsmReadingHooks {
 			Area bbox = saver.getBoundingBox();
 			// calculate the needed bounding box
 			Area searchBounds = bbox.intersect(nodesBounds);
-			boundaryGrid = new BoundaryGrid(boundaryDirName, searchBounds, props);
-			processLocationRelevantElements();
+			if (boundaryIndex != null) {
+				boundaryLookup = boundaryIndex.createLookup(props);
+				processLocationRelevantElements();
+			} else {
+				BoundaryGrid grid = new BoundaryGrid(boundaryDirName, searchBounds, props);
+				boundaryLookup = grid;
+				processLocationRelevantElements();
+				cntLeafSearch = grid.getSearches();
+				cntRasterHit = grid.getRasterHits();
+			}
 
-			boundaryGrid = null;
+			boundaryLookup = null;
 		}
 		long dt = (System.currentTimeMillis() - t1);
 		log.info("======= LocationHook Stats =====");
 		log.info("QuadTree searches    :", cntQTSearch);
 		log.info("unsuccesfull         :", cntNotFnd);
 		log.info("unsuccesfull for ways:", cntwayNotFnd);
+		if (cntLeafSearch > 0) {
+			log.info("leaf searches        :", cntLeafSearch);
+			log.info("raster hits          :", cntRasterHit, "(" + (cntRasterHit * 100 / cntLeafSearch) + "%)");
+		}
 		log.info("Location hook finished in", dt, "ms");
 	}
 
@@ -166,7 +196,7 @@ public class LocationHook implements OsmReadingHooks {
 
 	/**
 	 * Extract the location info and perform a test 
-	 * against the BoundaryGrid. If found, assign the tags.  
+	 * against the boundary data. If found, assign the tags.  
 	 * @param elem A way or Node
 	 */
 	private void processElem(Element elem){
@@ -235,7 +265,7 @@ public class LocationHook implements OsmReadingHooks {
 	private Tags search(Coord co){
 		if (saver.getBoundingBox().contains(co)){
 			++cntQTSearch;
-			return boundaryGrid.get(co);
+			return boundaryLookup.get(co);
 		}
 		return null;
 	}
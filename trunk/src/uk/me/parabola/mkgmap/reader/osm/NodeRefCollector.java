@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm;
+
+import uk.me.parabola.imgfmt.app.Coord;
+import uk.me.parabola.util.EnhancedProperties;
+
+/**
+ * Used for the first pass when the OSM input is read twice. 
+ * Nothing is saved, only the ids of the nodes that are referenced by ways
+ * and relations are collected. The handlers ask for those via
+ * {@link #getCoord(long)} and {@link #getOrCreateNode(long)}.
+ */
+public class NodeRefCollector extends ElementSaver {
+	private final OSMIdSet referencedNodes = new OSMIdSet();
+	
+	public NodeRefCollector(EnhancedProperties args) {
+		super(args);
+	}
+
+	public OSMIdSet getReferencedNodes() {
+		return referencedNodes;
+	}
+	
+	@Override
+	public void addPoint(long id, Coord co) {
+		// do nothing
+	}
+
+	@Override
+	public void addNode(Node node) {
+		// do nothing
+	}
+
+	@Override
+	public void addWay(Way way) {
+		// do nothing
+	}
+
+	@Override
+	public void addRelation(Relation rel) {
+		// do nothing
+	}
+
+	@Override
+	public void deferRelation(long id, Relation parentRel, String role) {
+		// do nothing
+	}
+
+	@Override
+	public Coord getCoord(long id) {
+		referencedNodes.add(id);
+		return null;
+	}
+
+	@Override
+	public Node getOrCreateNode(long id) {
+		referencedNodes.add(id);
+		return null;
+	}
+
+	@Override
+	public void convert(OsmConverter converter) {
+		// do nothing
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */ 
+package uk.me.parabola.mkgmap.reader.osm;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * A memory efficient set of OSM ids. The ids are split into chunks of 
+ * consecutive ids, each chunk is a small bit set. Ids in the input data of one 
+ * tile are typically clustered, so only a few bits per id are needed. 
+ */
+public class OSMIdSet {
+	private static final int CHUNK_SHIFT = 12;
+	private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+	
+	private final Long2ObjectOpenHashMap<long[]> chunks = new Long2ObjectOpenHashMap<>();
+	private long size;
+
+	/**
+	 * Add an id to the set.
+	 * @param id the OSM id
+	 * @return true if the id was not yet in the set
+	 */
+	public boolean add(long id) {
+		long chunkId = id >> CHUNK_SHIFT;
+		long[] bits = chunks.get(chunkId);
+		if (bits == null) {
+			bits = new long[1 << (CHUNK_SHIFT - 6)];
+			chunks.put(chunkId, bits);
+		}
+		int pos = (int) (id & CHUNK_MASK);
+		long mask = 1L << pos;
+		if ((bits[pos >> 6] & mask) != 0)
+			return false;
+		bits[pos >> 6] |= mask;
+		size++;
+		return true;
+	}
+
+	public boolean contains(long id) {
+		long[] bits = chunks.get(id >> CHUNK_SHIFT);
+		if (bits == null)
+			return false;
+		int pos = (int) (id & CHUNK_MASK);
+		return (bits[pos >> 6] & (1L << pos)) != 0;
+	}
+
+	public long size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		chunks.clear();
+		size = 0;
+	}
+}
@@ -43,6 +43,7 @@ import uk.me.parabola.mkgmap.reader.osm.bin.OsmBinHandler;
 import uk.me.parabola.mkgmap.reader.osm.o5m.O5mBinHandler;
 import uk.me.parabola.mkgmap.reader.osm.xml.OsmXmlHandler;
 import uk.me.parabola.util.EnhancedProperties;
+import uk.me.parabola.util.PhaseStatistics;
 
 /**
  * Base class for OSM map sources.  It exists so that more than
@@ -73,6 +74,8 @@ public class OsmMapDataSource extends MapperBasedMapDataSource implements Loadab
 	private final Set<String> usedTags = new HashSet<>();
 	protected ElementSaver elementSaver;
 	protected OsmReadingHooks osmReadingHooks;
+	// node ids collected in the first pass when the input is read twice
+	private OSMIdSet referencedNodes;
 	
 	protected static final List<OsmHandler> handlers;
 	static {
@@ -137,43 +140,90 @@ public class OsmMapDataSource extends MapperBasedMapDataSource implements Loadab
 	}
 	
 	@Override
+	@SuppressWarnings("try")
 	public void load(String name, boolean addBackground) throws FileNotFoundException {
-		try (InputStream is = Utils.openFile(name)) {
-			parse(is, name);
-		} catch (FileNotFoundException e) {
-			throw e;
-		} catch (IOException e) {
-			// exception thrown from implicit call to close() on resource variable 'is'
+		try (PhaseStatistics.Phase p = PhaseStatistics.phase("parse")) {
+			if (getConfig().getProperty("two-pass-osm-read", false))
+				referencedNodes = collectReferencedNodes(name);
+			try (InputStream is = Utils.openFile(name)) {
+				parse(is, name);
+			} catch (FileNotFoundException e) {
+				throw e;
+			} catch (IOException e) {
+				// exception thrown from implicit call to close() on resource variable 'is'
+			}
 		}
 		
 		elementSaver.finishLoading();
 
-		osmReadingHooks.end();
+		try (PhaseStatistics.Phase p = PhaseStatistics.phase("hooks")) {
+			osmReadingHooks.end();
+		}
 		osmReadingHooks = null;
 		
 		// now convert the saved elements
-		elementSaver.convert(getConverter());
+		try (PhaseStatistics.Phase p = PhaseStatistics.phase("style")) {
+			elementSaver.convert(getConverter());
+		}
 		
 		if (addBackground)
 			addBackground();
 	}
 
 	protected void parse(InputStream is, String name) {
+		OsmHandler handler = createHandler(name);
+		if (handler != null) {
+			setupHandler(handler);
+			handler.parse(is);
+		}
+	}
+
+	/**
+	 * Create a new instance of the first handler that supports the file.
+	 * @param name the file name
+	 * @return the new handler or null in case of an error
+	 */
+	private static OsmHandler createHandler(String name) {
 		for (OsmHandler h : handlers) {
 			if (h.isFileSupported(name)) {
 				try {
-					OsmHandler handler = h.getClass().getDeclaredConstructor().newInstance();
-					setupHandler(handler);
-					handler.parse(is);
-					break;
+					return h.getClass().getDeclaredConstructor().newInstance();
 				} catch (InstantiationException | IllegalAccessException | IllegalArgumentException
 						| InvocationTargetException | NoSuchMethodException | SecurityException e) {
-					// TODO Auto-generated catch block
 					log.error("Unexpected error", e);
+					return null;
 				}
 			}
 		}
-		
+		return null;
+	}
+
+	/**
+	 * First pass of the two pass mode: read the file without saving anything
+	 * and collect the ids of all nodes that are referenced by ways or relations.
+	 * Only the points of these nodes are needed by the hooks and the converter.
+	 * @param name the file name
+	 * @return the set of referenced node ids or null if the file could not be read 
+	 * @throws FileNotFoundException
+	 */
+	private OSMIdSet collectReferencedNodes(String name) throws FileNotFoundException {
+		OsmHandler handler = createHandler(name);
+		if (handler == null)
+			return null;
+		long t1 = System.currentTimeMillis();
+		NodeRefCollector collector = new NodeRefCollector(getConfig());
+		handler.setElementSaver(collector);
+		handler.setHooks(new NullHook());
+		try (InputStream is = Utils.openFile(name)) {
+			handler.parse(is);
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			// exception thrown from implicit call to close() on resource variable 'is'
+		}
+		log.info("First pass found", collector.getReferencedNodes().size(), "referenced nodes in",
+				name, "in", (System.currentTimeMillis() - t1), "ms");
+		return collector.getReferencedNodes();
 	}
 
 	/**
@@ -203,6 +253,8 @@ public class OsmMapDataSource extends MapperBasedMapDataSource implements Loadab
 	 */
 	protected void setupHandler(OsmHandler handler) {
 		createElementSaver();
+		elementSaver.setReferencedNodes(referencedNodes);
+		referencedNodes = null;
 		createConverter();
 		
 		handler.setIgnoreBounds(getConfig().getProperty("ignore-osm-bounds", false));
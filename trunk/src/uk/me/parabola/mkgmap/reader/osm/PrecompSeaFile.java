@@ -0,0 +1,463 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import uk.me.parabola.imgfmt.Utils;
+import uk.me.parabola.imgfmt.app.Coord;
+import uk.me.parabola.log.Logger;
+
+/**
+ * The precompiled sea in a single file. The file is memory mapped and the
+ * ways of a tile are read directly from it, without parsing OSM data, so one
+ * instance can be shared by all threads.
+ * <p>
+ * The sections of the file are:
+ * <ul>
+ * <li>header: magic, version, the raster size and the dimensions of the index grid</li>
+ * <li>grid: one byte for each precompiled tile, 's', 'l', 'm' or 0 for unknown,
+ * in the same order as the index grid of the {@link SeaGenerator}</li>
+ * <li>directory: cell number, length and offset of each mixed tile, sorted by cell number</li>
+ * <li>data: the mixed tiles, in chunks of {@link #CHUNK_SIZE} bytes so that more than 2GB
+ * can be mapped. A tile never crosses a chunk.</li>
+ * </ul>
+ * A mixed tile contains the natural values that are used, the coordinates
+ * as delta encoded packed lat/lon values (see {@link Coord#getPackedLat()})
+ * and the ways as delta encoded numbers of their coordinates. All numbers are
+ * variable length, the signed ones zigzag encoded. Each coordinate is stored
+ * once, so the ways that share a point also share the Coord instance, as they
+ * do when the tile is read from an OSM file.
+ * <p>
+ * Create the file from the zip file or directory of the old format with
+ * <pre>
+ * java -cp mkgmap.jar uk.me.parabola.mkgmap.reader.osm.PrecompSeaFile sea.zip sea.bin
+ * </pre>
+ */
+public class PrecompSeaFile {
+	private static final Logger log = Logger.getLogger(PrecompSeaFile.class);
+
+	private static final int MAGIC = 0x4d534541; // MSEA
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 5 * 4;
+	private static final int DIR_ENTRY_SIZE = 4 + 4 + 8;
+
+	/** size of one mapped chunk of the data section */
+	static final int CHUNK_SIZE = 1 << 30;
+
+	private static final Map<String, PrecompSeaFile> openFiles = new HashMap<>();
+
+	private final File file;
+	private final byte[][] indexGrid;
+	private final int[] cells;
+	private final int[] lengths;
+	private final long[] offsets;
+	private final ByteBuffer[] chunks;
+
+	private PrecompSeaFile(File file) throws IOException {
+		this.file = file;
+		try (FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = fc.size();
+			if (size < HEADER_SIZE)
+				throw new IOException("Precompiled sea file is too short: " + file);
+			ByteBuffer header = fc.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+				throw new IOException("Unsupported precompiled sea format: " + file);
+			if (header.getInt(8) != SeaGenerator.PRECOMP_RASTER)
+				throw new IOException("Precompiled sea file uses a different raster: " + file);
+			int width = header.getInt(12);
+			int height = header.getInt(16);
+			byte[][] grid = SeaGenerator.newIndexGrid();
+			if (width != grid.length || height != grid[0].length)
+				throw new IOException("Precompiled sea file has a different index grid: " + file);
+
+			long indexSize = (long) width * height + 4;
+			if (HEADER_SIZE + indexSize > size)
+				throw new IOException("Precompiled sea file is too short: " + file);
+			ByteBuffer index = fc.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, indexSize);
+			for (int w = 0; w < width; w++)
+				index.get(grid[w]);
+			int numMixed = index.getInt();
+			long dataStart = HEADER_SIZE + indexSize + (long) numMixed * DIR_ENTRY_SIZE;
+			if (numMixed < 0 || dataStart > size)
+				throw new IOException("Precompiled sea file is too short: " + file);
+			ByteBuffer dir = fc.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + indexSize, (long) numMixed * DIR_ENTRY_SIZE);
+			cells = new int[numMixed];
+			lengths = new int[numMixed];
+			offsets = new long[numMixed];
+			for (int i = 0; i < numMixed; i++) {
+				cells[i] = dir.getInt();
+				lengths[i] = dir.getInt();
+				offsets[i] = dir.getLong();
+				if (lengths[i] < 0 || offsets[i] < 0 || offsets[i] % CHUNK_SIZE + lengths[i] > CHUNK_SIZE
+						|| dataStart + offsets[i] + lengths[i] > size)
+					throw new IOException("Precompiled sea file has an invalid tile directory: " + file);
+			}
+			indexGrid = grid;
+
+			int numChunks = (int) ((size - dataStart + CHUNK_SIZE - 1) / CHUNK_SIZE);
+			chunks = new ByteBuffer[numChunks];
+			for (int i = 0; i < numChunks; i++) {
+				long start = dataStart + (long) i * CHUNK_SIZE;
+				chunks[i] = fc.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+			}
+		}
+	}
+
+	/**
+	 * Open a precompiled sea file. The file is opened only once, all callers share it.
+	 * @param fileName the name of the file
+	 * @return the opened file
+	 * @throws IOException if the file cannot be read or is not a precompiled sea file
+	 */
+	public static synchronized PrecompSeaFile open(String fileName) throws IOException {
+		PrecompSeaFile seaFile = openFiles.get(fileName);
+		if (seaFile == null) {
+			long t1 = System.currentTimeMillis();
+			seaFile = new PrecompSeaFile(new File(fileName));
+			openFiles.put(fileName, seaFile);
+			log.info("Opened precompiled sea file", fileName, "in", System.currentTimeMillis() - t1, "ms");
+		}
+		return seaFile;
+	}
+
+	/**
+	 * Check if a file is a precompiled sea file.
+	 * @param fileName the file name, might also be a directory or zip file
+	 * @return true if the file starts like a precompiled sea file
+	 */
+	public static boolean isPrecompSeaFile(String fileName) {
+		File file = new File(fileName);
+		if (!file.isFile() || file.length() < HEADER_SIZE)
+			return false;
+		try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+			return dis.readInt() == MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return the index grid, must not be modified
+	 */
+	byte[][] getIndexGrid() {
+		return indexGrid;
+	}
+
+	/**
+	 * Read the ways of a mixed tile. Each call returns new ways with new
+	 * points, the ways are in the order in which they were added to the file.
+	 * @param lonIndex the longitude index of the tile in the index grid
+	 * @param latIndex the latitude index of the tile in the index grid
+	 * @return the ways, an empty list if the tile is not a mixed tile
+	 * @throws IOException if the data of the tile is not valid
+	 */
+	List<Way> readTile(int lonIndex, int latIndex) throws IOException {
+		int pos = Arrays.binarySearch(cells, lonIndex * indexGrid[0].length + latIndex);
+		if (pos < 0)
+			return new ArrayList<>();
+		ByteBuffer buf = chunks[(int) (offsets[pos] / CHUNK_SIZE)].duplicate();
+		int start = (int) (offsets[pos] % CHUNK_SIZE);
+		buf.limit(start + lengths[pos]);
+		buf.position(start);
+		try {
+			return readWays(buf);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IOException("Invalid data for precompiled sea tile " + lonIndex + "/" + latIndex + " in " + file, e);
+		}
+	}
+
+	private static List<Way> readWays(ByteBuffer buf) {
+		String[] naturals = new String[readCount(buf)];
+		for (int i = 0; i < naturals.length; i++) {
+			byte[] bytes = new byte[readCount(buf)];
+			buf.get(bytes);
+			naturals[i] = new String(bytes, StandardCharsets.UTF_8).intern();
+		}
+
+		Coord[] coords = new Coord[readCount(buf)];
+		int lat = 0;
+		int lon = 0;
+		for (int i = 0; i < coords.length; i++) {
+			lat += readSigned(buf);
+			lon += readSigned(buf);
+			coords[i] = Coord.makePackedCoord(lat, lon);
+		}
+
+		int numWays = readCount(buf);
+		List<Way> ways = new ArrayList<>(numWays);
+		int coordIdx = 0;
+		for (int i = 0; i < numWays; i++) {
+			String natural = naturals[readUnsigned(buf)];
+			int numPoints = readCount(buf);
+			List<Coord> points = new ArrayList<>(numPoints);
+			for (int j = 0; j < numPoints; j++) {
+				coordIdx += readSigned(buf);
+				points.add(coords[coordIdx]);
+			}
+			Way w = new Way(i + 1, points);
+			w.setClosedInOSM(!points.isEmpty() && points.get(0) == points.get(numPoints - 1));
+			w.addTag("natural", natural);
+			ways.add(w);
+		}
+		return ways;
+	}
+
+	private static int readUnsigned(ByteBuffer buf) {
+		int val = 0;
+		int shift = 0;
+		while (true) {
+			int b = buf.get();
+			val |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0)
+				return val;
+			shift += 7;
+		}
+	}
+
+	/**
+	 * Read the number of the following values, each uses at least one byte.
+	 */
+	private static int readCount(ByteBuffer buf) {
+		int val = readUnsigned(buf);
+		if (val < 0 || val > buf.remaining())
+			throw new BufferUnderflowException();
+		return val;
+	}
+
+	private static int readSigned(ByteBuffer buf) {
+		int val = readUnsigned(buf);
+		return (val >>> 1) ^ -(val & 1);
+	}
+
+	/**
+	 * Writes a precompiled sea file. The mixed tiles are written to a
+	 * temporary file next to the target, everything else is kept in memory
+	 * until the writer is closed.
+	 */
+	public static class Writer implements Closeable {
+		private final File file;
+		private final File dataFile;
+		private final DataOutputStream data;
+		private final byte[][] indexGrid = SeaGenerator.newIndexGrid();
+		private final Map<Integer, long[]> mixedTiles = new HashMap<>();
+		private long dataPos;
+
+		/**
+		 * @param file the file to create
+		 * @throws IOException if the temporary file cannot be created
+		 */
+		public Writer(File file) throws IOException {
+			this.file = file;
+			dataFile = File.createTempFile("sea", ".tmp", file.getAbsoluteFile().getParentFile());
+			data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dataFile), 1 << 16));
+		}
+
+		/**
+		 * Add a tile that is completely covered by sea or by land.
+		 * @param precompKey the key of the tile, {@code lat+"_"+lon}
+		 * @param type {@code "sea"} or {@code "land"}
+		 */
+		public void addTile(String precompKey, String type) {
+			if (!"sea".equals(type) && !"land".equals(type))
+				throw new IllegalArgumentException("Unknown precompiled sea tile type " + type + " for " + precompKey);
+			SeaGenerator.updatePrecompSeaTileIndex(precompKey, type, indexGrid);
+		}
+
+		/**
+		 * Add a tile that contains sea and land.
+		 * @param precompKey the key of the tile, {@code lat+"_"+lon}
+		 * @param ways the ways of the tile, the value of the natural tag is
+		 * saved with each way, all other tags are ignored. Points at the same
+		 * position are saved once.
+		 * @throws IOException if the data cannot be written
+		 */
+		public void addMixedTile(String precompKey, Collection<Way> ways) throws IOException {
+			byte type = SeaGenerator.updatePrecompSeaTileIndex(precompKey, precompKey, indexGrid);
+			if (type == '?')
+				throw new IllegalArgumentException("Invalid precompiled sea tile key " + precompKey);
+			int[] pos = SeaGenerator.getIndexPos(precompKey);
+			int cell = pos[0] * indexGrid[0].length + pos[1];
+
+			byte[] tile = encodeTile(ways);
+			if (tile.length > CHUNK_SIZE)
+				throw new IOException("Precompiled sea tile " + precompKey + " is too large");
+			long chunkRest = CHUNK_SIZE - dataPos % CHUNK_SIZE;
+			if (tile.length > chunkRest) {
+				// start a new chunk
+				for (long i = 0; i < chunkRest; i++)
+					data.write(0);
+				dataPos += chunkRest;
+			}
+			mixedTiles.put(cell, new long[] {tile.length, dataPos});
+			data.write(tile);
+			dataPos += tile.length;
+		}
+
+		private static byte[] encodeTile(Collection<Way> ways) throws IOException {
+			Object2IntOpenHashMap<String> naturalIds = new Object2IntOpenHashMap<>();
+			naturalIds.defaultReturnValue(-1);
+			List<String> naturals = new ArrayList<>();
+			Long2IntOpenHashMap coordIds = new Long2IntOpenHashMap();
+			coordIds.defaultReturnValue(-1);
+			IntArrayList coords = new IntArrayList();
+			IntArrayList wayData = new IntArrayList();
+			for (Way w : ways) {
+				String natural = w.getTag("natural");
+				if (natural == null)
+					throw new IllegalArgumentException("Precompiled sea way without natural tag " + w.toBrowseURL());
+				int naturalId = naturalIds.getInt(natural);
+				if (naturalId < 0) {
+					naturalId = naturals.size();
+					naturalIds.put(natural, naturalId);
+					naturals.add(natural);
+				}
+				wayData.add(naturalId);
+				wayData.add(w.getPoints().size());
+				for (Coord co : w.getPoints()) {
+					long key = Utils.coord2Long(co);
+					int id = coordIds.get(key);
+					if (id < 0) {
+						id = coords.size() / 2;
+						coordIds.put(key, id);
+						coords.add(co.getPackedLat());
+						coords.add(co.getPackedLon());
+					}
+					wayData.add(id);
+				}
+			}
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			writeUnsigned(bytes, naturals.size());
+			for (String natural : naturals) {
+				byte[] b = natural.getBytes(StandardCharsets.UTF_8);
+				writeUnsigned(bytes, b.length);
+				bytes.write(b);
+			}
+			writeUnsigned(bytes, coords.size() / 2);
+			int lastLat = 0;
+			int lastLon = 0;
+			for (int i = 0; i < coords.size(); i += 2) {
+				writeSigned(bytes, coords.getInt(i) - lastLat);
+				writeSigned(bytes, coords.getInt(i + 1) - lastLon);
+				lastLat = coords.getInt(i);
+				lastLon = coords.getInt(i + 1);
+			}
+			writeUnsigned(bytes, ways.size());
+			int lastId = 0;
+			int i = 0;
+			while (i < wayData.size()) {
+				writeUnsigned(bytes, wayData.getInt(i++));
+				int numPoints = wayData.getInt(i++);
+				writeUnsigned(bytes, numPoints);
+				for (int j = 0; j < numPoints; j++) {
+					int id = wayData.getInt(i++);
+					writeSigned(bytes, id - lastId);
+					lastId = id;
+				}
+			}
+			return bytes.toByteArray();
+		}
+
+		private static void writeUnsigned(OutputStream os, int val) throws IOException {
+			while ((val & ~0x7f) != 0) {
+				os.write((val & 0x7f) | 0x80);
+				val >>>= 7;
+			}
+			os.write(val);
+		}
+
+		private static void writeSigned(OutputStream os, int val) throws IOException {
+			writeUnsigned(os, (val << 1) ^ (val >> 31));
+		}
+
+		/**
+		 * Write the file and remove the temporary file.
+		 */
+		public void close() throws IOException {
+			data.close();
+			try (DataOutputStream dos = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+				dos.writeInt(MAGIC);
+				dos.writeInt(VERSION);
+				dos.writeInt(SeaGenerator.PRECOMP_RASTER);
+				dos.writeInt(indexGrid.length);
+				dos.writeInt(indexGrid[0].length);
+				for (byte[] column : indexGrid)
+					dos.write(column);
+
+				int[] sortedCells = mixedTiles.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+				dos.writeInt(sortedCells.length);
+				for (int cell : sortedCells) {
+					long[] entry = mixedTiles.get(cell);
+					dos.writeInt(cell);
+					dos.writeInt((int) entry[0]);
+					dos.writeLong(entry[1]);
+				}
+				try (InputStream is = new BufferedInputStream(new FileInputStream(dataFile))) {
+					byte[] buf = new byte[1 << 16];
+					int n;
+					while ((n = is.read(buf)) > 0)
+						dos.write(buf, 0, n);
+				}
+			} finally {
+				if (!dataFile.delete())
+					log.warn("Cannot delete temporary file", dataFile);
+			}
+			log.info("Precompiled sea file", file, "written with", mixedTiles.size(), "mixed tiles");
+		}
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 2 || "--help".equals(args[0])) {
+			System.err.println("Usage:");
+			System.err.println("java -cp mkgmap.jar uk.me.parabola.mkgmap.reader.osm.PrecompSeaFile <precompsea> <seafile>");
+			System.err.println(" <precompsea>: Directory or zip file with precompiled sea tiles");
+			System.err.println(" <seafile>: The precompiled sea file to create");
+			System.exit(-1);
+		}
+		long t1 = System.currentTimeMillis();
+		try (Writer writer = new Writer(new File(args[1]))) {
+			SeaGenerator.convertPrecompSea(args[0], writer);
+		} catch (IOException e) {
+			System.err.println("Cannot create precompiled sea file: " + e);
+			System.exit(1);
+		}
+		System.out.println("Precompiled sea file created in " + (System.currentTimeMillis() - t1) + " ms");
+	}
+}
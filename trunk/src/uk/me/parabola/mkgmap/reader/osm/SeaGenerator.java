@@ -37,6 +37,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -66,6 +67,8 @@ import uk.me.parabola.util.Java2DConverter;
 public class SeaGenerator implements OsmReadingHooks {
 	private static final Logger log = Logger.getLogger(SeaGenerator.class);
 
+	private static final int MIN_WAYS_FOR_PARALLEL = 100;
+
 	private String precompSea; 
 	private boolean generateSeaUsingMP = true;
 	private int maxCoastlineGap;
@@ -96,9 +99,9 @@ public class SeaGenerator implements OsmReadingHooks {
 	public static final int PRECOMP_RASTER = 1 << 15;
 	
 	// flags used in the index 
-	private static final byte SEA_TILE = 's';
-	private static final byte LAND_TILE = 'l';
-	private static final byte MIXED_TILE = 'm';
+	static final byte SEA_TILE = 's';
+	static final byte LAND_TILE = 'l';
+	static final byte MIXED_TILE = 'm';
 	
 	private static ThreadLocal<PrecompData> precompIndex = new ThreadLocal<>();
 	private static Map<String, Boolean> checkedPrecomp = new ConcurrentHashMap<>();
@@ -239,13 +242,14 @@ public class SeaGenerator implements OsmReadingHooks {
 		 */
 		File precompSeaDir = new File(precompSea);  
 		if (!precompSeaDir.exists()) {
-			log.error("Directory or zip file with precompiled sea does not exist: " + precompSea);
+			log.error("Directory, zip file or precompiled sea file does not exist: " + precompSea);
 			return;
 		}
 
 		String internalPath = null;    	
 		String indexFileName = "index.txt.gz";
 		ZipFile zipFile = null;
+		PrecompSeaFile seaFile = null;
 		PrecompData precompData = null;
 		try {
 			if (precompSeaDir.isDirectory()) {
@@ -258,6 +262,12 @@ public class SeaGenerator implements OsmReadingHooks {
 				if (indexFile.exists()) {
 					precompData = readIndexStream(indexFileName, new FileInputStream(indexFile));
 				}
+			} else if (PrecompSeaFile.isPrecompSeaFile(precompSea)) {
+				seaFile = PrecompSeaFile.open(precompSea);
+				precompData = new PrecompData();
+				precompData.precompIndex = seaFile.getIndexGrid();
+				precompData.precompSeaPrefix = "sea_";
+				precompData.precompSeaExt = "";
 			} else if (precompSea.endsWith(".zip")) {
 				zipFile = new ZipFile(precompSeaDir); // don't close here! 
 				internalPath = "sea/";
@@ -296,6 +306,7 @@ public class SeaGenerator implements OsmReadingHooks {
 					precompData.precompZipFileInternalPath = internalPath;
 					precompData.zipFile = zipFile;
 				}
+				precompData.seaFile = seaFile;
 				precompIndex.set(precompData);
 			}
 		} catch (IOException exp) {
@@ -348,7 +359,7 @@ public class SeaGenerator implements OsmReadingHooks {
 		LineNumberReader indexReader = new LineNumberReader(new InputStreamReader(fileStream));
 		String indexLine = null;
 
-		byte[][] indexGrid = new byte[INDEX_WIDTH + 1][INDEX_HEIGHT + 1];
+		byte[][] indexGrid = newIndexGrid();
 		boolean detectExt = true; 
 		String prefix = null;
 		String ext = null;
@@ -618,12 +629,8 @@ public class SeaGenerator implements OsmReadingHooks {
 	 */
 	private static String getTileName(String precompKey){
 		PrecompData pi = precompIndex.get();
-		String[] tileCoords = KEY_SPLITTER.split(precompKey);
-		int lat = Integer.parseInt(tileCoords[0]); 
-		int lon = Integer.parseInt(tileCoords[1]); 
-		int latIndex = (MAX_LAT-lat) / PRECOMP_RASTER;
-		int lonIndex = (MAX_LON-lon) / PRECOMP_RASTER;
-		byte type = pi.precompIndex[lonIndex][latIndex]; 
+		int[] pos = getIndexPos(precompKey);
+		byte type = pi.precompIndex[pos[0]][pos[1]]; 
 		switch (type){
 		case SEA_TILE: return "sea"; 
 		case LAND_TILE: return "land"; 
@@ -640,15 +647,10 @@ public class SeaGenerator implements OsmReadingHooks {
 	 * @param indexGrid the previously allocated index grid  
 	 * @return the byte that was saved in the index grid 
 	 */
-	private static byte updatePrecompSeaTileIndex (String precompKey, String fileName, byte[][] indexGrid){
-		String[] tileCoords = KEY_SPLITTER.split(precompKey);
+	static byte updatePrecompSeaTileIndex (String precompKey, String fileName, byte[][] indexGrid){
+		int[] pos = getIndexPos(precompKey);
 		byte type = '?';
-		if (tileCoords.length == 2){
-			int lat = Integer.parseInt(tileCoords[0]); 
-			int lon = Integer.parseInt(tileCoords[1]); 
-			int latIndex = (MAX_LAT - lat) / PRECOMP_RASTER;
-			int lonIndex = (MAX_LON - lon) / PRECOMP_RASTER;
-
+		if (pos != null){
 			if ("sea".equals(fileName))
 				type = SEA_TILE;
 			else if ("land".equals(fileName))
@@ -656,10 +658,31 @@ public class SeaGenerator implements OsmReadingHooks {
 			else 
 				type = MIXED_TILE;
 
-			indexGrid[lonIndex][latIndex] = type;
+			indexGrid[pos[0]][pos[1]] = type;
 		}
 		return type;
 	}
+
+	/**
+	 * Get the position of a precompiled sea tile in the index grid.
+	 * @param precompKey The key name is compiled of {@code lat+"_"+lon}.
+	 * @return the longitude and the latitude index or null if the key is invalid
+	 */
+	static int[] getIndexPos(String precompKey) {
+		String[] tileCoords = KEY_SPLITTER.split(precompKey);
+		if (tileCoords.length != 2)
+			return null;
+		int lat = Integer.parseInt(tileCoords[0]); 
+		int lon = Integer.parseInt(tileCoords[1]); 
+		return new int[] { (MAX_LON - lon) / PRECOMP_RASTER, (MAX_LAT - lat) / PRECOMP_RASTER };
+	}
+
+	/**
+	 * @return a new, empty index grid [lon][lat]
+	 */
+	static byte[][] newIndexGrid() {
+		return new byte[INDEX_WIDTH + 1][INDEX_HEIGHT + 1];
+	}
 	
 	/**
 	 * Loads the precompiled sea tiles and adds the data to the 
@@ -734,7 +757,7 @@ public class SeaGenerator implements OsmReadingHooks {
 				}
 			} else {
 				distinctTilesOnly = false;
-				loadMixedTile(pd, tileName, landWays, seaWays, commonCoordMap);
+				loadMixedTile(pd, precompKey, tileName, landWays, seaWays, commonCoordMap);
 			}
 		}
 		landWays.addAll(areaToWays(landOnlyAreas, "land", commonCoordMap));
@@ -833,23 +856,19 @@ public class SeaGenerator implements OsmReadingHooks {
 		seaWays.forEach(w -> w.setMpRel(mpr));
 	}
 
-	private static void loadMixedTile(PrecompData pd, String tileName, List<Way> landWays, List<Way> seaWays,
-			Long2ObjectOpenHashMap<Coord> commonCoordMap) {
+	private static void loadMixedTile(PrecompData pd, String precompKey, String tileName, List<Way> landWays,
+			List<Way> seaWays, Long2ObjectOpenHashMap<Coord> commonCoordMap) {
 		try {
-			InputStream is = null;
-			if (pd.zipFile != null) {
-				ZipEntry entry = pd.zipFile.getEntry(pd.precompZipFileInternalPath + tileName);
-				if (entry != null) {
-					is = pd.zipFile.getInputStream(entry);
-				} else {
-					log.error("Preompiled sea tile " + tileName + " not found.");
-				}
+			Collection<Way> seaPrecompWays = null;
+			if (pd.seaFile != null) {
+				int[] pos = getIndexPos(precompKey);
+				seaPrecompWays = pd.seaFile.readTile(pos[0], pos[1]);
 			} else {
-				File precompTile = new File(pd.dirFile, tileName);
-				is = new FileInputStream(precompTile);
+				InputStream is = openPrecompTile(pd, tileName);
+				if (is != null)
+					seaPrecompWays = loadPrecompTile(is, tileName);
 			}
-			if (is != null) {
-				Collection<Way> seaPrecompWays = loadPrecompTile(is, tileName);
+			if (seaPrecompWays != null) {
 				if (log.isDebugEnabled())
 					log.debug(seaPrecompWays.size(), "precomp sea ways from", tileName, "loaded.");
 
@@ -887,6 +906,66 @@ public class SeaGenerator implements OsmReadingHooks {
 		}
 	}
 
+	/**
+	 * Open the precomp sea tile with the given name in the zip file or directory.
+	 * @param pd the index data
+	 * @param tileName the file name of the tile
+	 * @return the stream or null if the tile is not in the zip file
+	 * @throws IOException if the tile cannot be opened
+	 */
+	private static InputStream openPrecompTile(PrecompData pd, String tileName) throws IOException {
+		if (pd.zipFile != null) {
+			ZipEntry entry = pd.zipFile.getEntry(pd.precompZipFileInternalPath + tileName);
+			if (entry != null)
+				return pd.zipFile.getInputStream(entry);
+			log.error("Preompiled sea tile " + tileName + " not found.");
+			return null;
+		}
+		return new FileInputStream(new File(pd.dirFile, tileName));
+	}
+
+	/**
+	 * Copy precompiled sea in the zip or directory format to a precompiled sea file.
+	 * @param precompSea the directory or zip file
+	 * @param writer the writer of the precompiled sea file
+	 * @throws IOException if the precompiled sea cannot be read or written
+	 */
+	static void convertPrecompSea(String precompSea, PrecompSeaFile.Writer writer) throws IOException {
+		precompIndex.remove();
+		initPrecompSeaIndex(precompSea, false);
+		PrecompData pd = precompIndex.get();
+		precompIndex.remove();
+		if (pd == null)
+			throw new IOException("Cannot read precompiled sea " + precompSea);
+
+		for (int w = 0; w <= INDEX_WIDTH; w++) {
+			for (int h = 0; h <= INDEX_HEIGHT; h++) {
+				byte type = pd.precompIndex[w][h];
+				String precompKey = (MAX_LAT - h * PRECOMP_RASTER) + "_" + (MAX_LON - w * PRECOMP_RASTER);
+				if (type == SEA_TILE) {
+					writer.addTile(precompKey, "sea");
+				} else if (type == LAND_TILE) {
+					writer.addTile(precompKey, "land");
+				} else if (type == MIXED_TILE) {
+					Collection<Way> ways;
+					if (pd.seaFile != null) {
+						ways = pd.seaFile.readTile(w, h);
+					} else {
+						String tileName = pd.precompSeaPrefix + precompKey + pd.precompSeaExt;
+						try (InputStream is = openPrecompTile(pd, tileName)) {
+							if (is == null)
+								throw new IOException("Precompiled sea tile " + tileName + " not found");
+							ways = loadPrecompTile(is, tileName);
+						}
+						if (ways.isEmpty())
+							throw new IOException("Cannot read precompiled sea tile " + tileName);
+					}
+					writer.addMixedTile(precompKey, ways);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Try to merge an area with one or more other areas without creating holes.
 	 * If it cannot be merged, it is added to the list.
@@ -964,26 +1043,27 @@ public class SeaGenerator implements OsmReadingHooks {
 		}
 		segments.clear();
 		
-		boolean merged;
-		do {
-			merged = false;
-			for (Way w1 : beginMap.values()) {
-				Way w2 = beginMap.get(w1.getLastPoint());
-				if (w2 != null) {
-					merge(beginMap, joined, w1, w2);
-					merged = true;
+		// follow the chain from each way, a way that was added to another one
+		// is no longer in the map
+		for (Way w : new ArrayList<>(beginMap.values())) {
+			Way w1 = beginMap.get(w.getFirstPoint());
+			if (w1 != w)
+				continue;
+			Way w2;
+			while ((w2 = beginMap.get(w1.getLastPoint())) != null) {
+				w1 = merge(beginMap, joined, w1, w2);
+				if (w1.hasIdenticalEndPoints())
 					break;
-				}
 			}
-		} while (merged);
+		}
 		
 		log.info(joined.size(), "closed ways.", beginMap.size(), "unclosed ways.");
 		joined.addAll(beginMap.values());
 		return joined;
 	}
 
-	// merge the ways and maintain maps and list
-	private static void merge(Map<Coord, Way> beginMap, List<Way> joined, Way w1, Way w2) {
+	// merge the ways and maintain maps and list, returns the merged way
+	private static Way merge(Map<Coord, Way> beginMap, List<Way> joined, Way w1, Way w2) {
 		log.info("merging:", beginMap.size(), w1.getBasicLogInformation(), "with", w2.getBasicLogInformation());
 		Way wm;
 		if (FakeIdGenerator.isFakeId(w1.getId())) {
@@ -1000,6 +1080,7 @@ public class SeaGenerator implements OsmReadingHooks {
 			joined.add(wm);
 			beginMap.remove(wm.getFirstPoint());
 		}
+		return wm;
 	}
 
 	/**
@@ -1137,21 +1218,19 @@ public class SeaGenerator implements OsmReadingHooks {
 		if (!checkCoastline)
 			return;
 		
-		for (Way ai : antiIslands) {
-			Way containingLand = null;
-			Way containingSea = null;
-			for (Way i : islands) {
-				if (i.containsPointsOf(ai) && ((containingLand == null) || (containingLand.containsPointsOf(i))))
-					containingLand = i;
-			}
-			for (Way ai2 : antiIslands) {
-				if ((ai2 != ai) && ai2.containsPointsOf(ai) && ((containingSea == null) || containingSea.containsPointsOf(ai2)))
-					containingSea = ai2;
-			}
+		ClosedWayIndex landIndex = new ClosedWayIndex(islands);
+		ClosedWayIndex seaIndex = new ClosedWayIndex(antiIslands);
+
+		// the tests are done in parallel, the results are reported in order
+		Way[][] seaResults = findContaining(antiIslands, landIndex, seaIndex);
+		for (int k = 0; k < antiIslands.size(); k++) {
+			Way ai = antiIslands.get(k);
+			Way containingLand = seaResults[k][0];
+			Way containingSea = seaResults[k][1];
 			if ((containingSea != null) && (containingLand != null)) {
-				if (containingSea.containsPointsOf(containingLand))
+				if (seaIndex.contains(containingSea, containingLand))
 					containingSea = null;
-				else if (containingLand.containsPointsOf(containingSea))
+				else if (landIndex.contains(containingLand, containingSea))
 					containingLand = null;
 				else {
 					log.warn("inner sea", ai, "is surrounded by both water", containingSea, "and land", containingLand);
@@ -1163,21 +1242,15 @@ public class SeaGenerator implements OsmReadingHooks {
 				log.error("inner sea", ai, "is surrounded by water", containingSea == null ? "" : containingSea);
 		}
 		
-		for (Way i : islands) {
-			Way containingLand = null;
-			Way containingSea = null;
-			for (Way ai : antiIslands) {
-				if (ai.containsPointsOf(i) && ((containingSea == null) || containingSea.containsPointsOf(ai)))
-					containingSea = ai;
-			}
-			for (Way i2 : islands) {
-				if ((i2 != i) && i2.containsPointsOf(i) && ((containingLand == null) || (containingLand.containsPointsOf(i2))))
-					containingLand = i2;
-			}
+		Way[][] landResults = findContaining(islands, landIndex, seaIndex);
+		for (int k = 0; k < islands.size(); k++) {
+			Way i = islands.get(k);
+			Way containingLand = landResults[k][0];
+			Way containingSea = landResults[k][1];
 			if ((containingSea != null) && (containingLand != null)) {
-				if (containingSea.containsPointsOf(containingLand))
+				if (seaIndex.contains(containingSea, containingLand))
 					containingSea = null;
-				else if (containingLand.containsPointsOf(containingSea))
+				else if (landIndex.contains(containingLand, containingSea))
 					containingLand = null;
 				else {
 					log.warn("island", i, "is surrounded by both water", containingSea, "and land", containingLand);
@@ -1190,6 +1263,32 @@ public class SeaGenerator implements OsmReadingHooks {
 		}
 	}
 
+	/**
+	 * Find the innermost island and anti-island that contain each of the given ways.
+	 * If the containing ways don't contain each other, the last one in the list is used.
+	 * @return For each way the containing island and anti-island, or null.
+	 */
+	private static Way[][] findContaining(List<Way> ways, ClosedWayIndex landIndex, ClosedWayIndex seaIndex) {
+		Way[][] res = new Way[ways.size()][];
+		IntStream range = IntStream.range(0, ways.size());
+		if (ways.size() >= MIN_WAYS_FOR_PARALLEL)
+			range = range.parallel();
+		range.forEach(k -> {
+			Way w = ways.get(k);
+			res[k] = new Way[] { innermost(w, landIndex), innermost(w, seaIndex) };
+		});
+		return res;
+	}
+
+	private static Way innermost(Way w, ClosedWayIndex index) {
+		Way containing = null;
+		for (Way c : index.getContaining(w)) {
+			if (c != w && (containing == null || index.contains(containing, c)))
+				containing = c;
+		}
+		return containing;
+	}
+
 	private Way createLandWay() {
 		long landId = FakeIdGenerator.makeFakeId();
 		Way land = new Way(landId, tileBounds.toCoords());
@@ -1719,6 +1818,7 @@ public class SeaGenerator implements OsmReadingHooks {
 		private String precompZipFileInternalPath;
 		private ZipFile zipFile;
 		private File dirFile;
+		private PrecompSeaFile seaFile;
 	}
 	
 }
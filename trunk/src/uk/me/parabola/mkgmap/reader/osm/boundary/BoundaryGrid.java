@@ -28,7 +28,7 @@ import uk.me.parabola.util.EnhancedProperties;
  * @author GerdP
  * 
  */
-public class BoundaryGrid {
+public class BoundaryGrid implements BoundaryLookup {
 	private static final Logger log = Logger.getLogger(BoundaryGrid.class);
 
 	private final uk.me.parabola.imgfmt.app.Area searchBbox;
@@ -72,6 +72,7 @@ public class BoundaryGrid {
 	 * @return null if not found, else a reference to the Tags 
 	 * object saved in a BoundaryQuadTree
 	 */
+	@Override
 	public Tags get(Coord co) {
 		if (!searchBbox.contains(co))
 			return null;
@@ -90,6 +91,34 @@ public class BoundaryGrid {
 			return grid[gridLat][gridLon].get(co);
 	}
 
+	/**
+	 * @return the number of searches in the leaves of all trees
+	 */
+	public long getSearches() {
+		long res = 0;
+		for (BoundaryQuadTree[] row : grid) {
+			for (BoundaryQuadTree bqt : row) {
+				if (bqt != null)
+					res += bqt.getSearches();
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * @return the number of searches that were answered by the raster of a leaf
+	 */
+	public long getRasterHits() {
+		long res = 0;
+		for (BoundaryQuadTree[] row : grid) {
+			for (BoundaryQuadTree bqt : row) {
+				if (bqt != null)
+					res += bqt.getRasterHits();
+			}
+		}
+		return res;
+	}
+
 	/**
 	 * Fill the grid. Calculate the names of the *.bnd files that 
 	 * may be needed. For each file, try to create a BoundaryQuadTree.
@@ -0,0 +1,794 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm.boundary;
+
+import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import uk.me.parabola.imgfmt.app.Coord;
+import uk.me.parabola.log.Logger;
+import uk.me.parabola.mkgmap.reader.osm.Tags;
+import uk.me.parabola.util.EnhancedProperties;
+
+/**
+ * A single file that contains the data of all preprocessed boundary files.
+ * The file is memory mapped and searched without creating a
+ * {@link BoundaryQuadTree}, so one instance can be shared by all threads.
+ * <p>
+ * The file contains big endian ints only, the sections are:
+ * <ul>
+ * <li>header: magic, version and the positions of the other sections</li>
+ * <li>strings: count, offsets and UTF-8 bytes of all strings</li>
+ * <li>boundaries: id and packed tags (key, value string ids) of each boundary</li>
+ * <li>location sets: a boundary and the boundaries given in the refs of a tree element,
+ * the location tags are calculated from these with the properties of the caller</li>
+ * <li>grid: the root node for each raster of {@link BoundaryUtil#RASTER} map units</li>
+ * <li>nodes: bounds, first child (four children are stored together) and the elements of a leaf</li>
+ * <li>elements: location set, bbox and position of the rings</li>
+ * <li>rings: the outlines of the element areas in high precision coordinates,
+ * stored in chunks so that more than 2GB can be mapped</li>
+ * </ul>
+ * Lookups return the same results as a {@link BoundaryGrid} apart from
+ * points very close to a boundary, as the coordinates are rounded to high
+ * precision units.
+ */
+public class BoundaryIndex {
+	private static final Logger log = Logger.getLogger(BoundaryIndex.class);
+
+	private static final int MAGIC = 0x4d424958; // MBIX
+	private static final int VERSION = 1;
+
+	private static final int HDR_STRINGS = 2;
+	private static final int HDR_BOUNDARIES = 3;
+	private static final int HDR_LOC_SETS = 4;
+	private static final int HDR_GRID = 5;
+	private static final int HDR_NODES = 6;
+	private static final int HDR_ELEMS = 7;
+	private static final int HDR_RINGS_HI = 8;
+	private static final int HDR_RINGS_LO = 9;
+	private static final int HEADER_SIZE = 10;
+
+	private static final int NODE_MIN_LAT = 0;
+	private static final int NODE_MIN_LON = 1;
+	private static final int NODE_MAX_LAT = 2;
+	private static final int NODE_MAX_LON = 3;
+	private static final int NODE_FIRST_CHILD = 4;
+	private static final int NODE_FIRST_ELEM = 5;
+	private static final int NODE_NUM_ELEMS = 6;
+	private static final int NODE_SIZE = 7;
+
+	private static final int ELEM_LOC_SET = 0;
+	private static final int ELEM_MIN_LAT = 1;
+	private static final int ELEM_MIN_LON = 2;
+	private static final int ELEM_MAX_LAT = 3;
+	private static final int ELEM_MAX_LON = 4;
+	private static final int ELEM_RINGS_HI = 5;
+	private static final int ELEM_RINGS_LO = 6;
+	private static final int ELEM_SIZE = 7;
+
+	/** number of ints in one mapped chunk of the ring section, the rings of an element never cross a chunk */
+	private static final int RING_CHUNK_SIZE = 1 << 26;
+
+	private static final Map<String, BoundaryIndex> openIndexes = new HashMap<>();
+
+	private final ByteBuffer data;
+	private final IntBuffer ints;
+	private final IntBuffer[] ringChunks;
+
+	private final int stringOffsets;
+	private final int stringBytes;
+	private final int boundaryIds;
+	private final int boundaryTagStart;
+	private final int boundaryTags;
+	private final int locSetStart;
+	private final int locSetData;
+	private final int gridMinLat;
+	private final int gridMinLon;
+	private final int gridDimLat;
+	private final int gridDimLon;
+	private final int gridRoots;
+	private final int nodes;
+	private final int elems;
+
+	private BoundaryIndex(String fileName) throws IOException {
+		try (FileChannel fc = FileChannel.open(new File(fileName).toPath(), StandardOpenOption.READ)) {
+			long size = fc.size();
+			if (size < HEADER_SIZE * 4)
+				throw new IOException("Boundary index is too short: " + fileName);
+			IntBuffer header = fc.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE * 4).asIntBuffer();
+			if (header.get(0) != MAGIC || header.get(1) != VERSION)
+				throw new IOException("Unsupported boundary index format: " + fileName);
+			long ringsStart = ((long) header.get(HDR_RINGS_HI) << 32) | (header.get(HDR_RINGS_LO) & 0xffffffffL);
+			if (ringsStart > Integer.MAX_VALUE || ringsStart > size)
+				throw new IOException("Invalid boundary index: " + fileName);
+			data = fc.map(FileChannel.MapMode.READ_ONLY, 0, ringsStart);
+			ints = data.asIntBuffer();
+
+			long chunkBytes = RING_CHUNK_SIZE * 4L;
+			int numChunks = (int) ((size - ringsStart + chunkBytes - 1) / chunkBytes);
+			ringChunks = new IntBuffer[numChunks];
+			for (int i = 0; i < numChunks; i++) {
+				long start = ringsStart + i * chunkBytes;
+				ringChunks[i] = fc.map(FileChannel.MapMode.READ_ONLY, start, Math.min(chunkBytes, size - start)).asIntBuffer();
+			}
+		}
+		int pos = ints.get(HDR_STRINGS);
+		int numStrings = ints.get(pos);
+		stringOffsets = pos + 1;
+		stringBytes = (stringOffsets + numStrings + 1) * 4;
+
+		pos = ints.get(HDR_BOUNDARIES);
+		int numBoundaries = ints.get(pos);
+		boundaryIds = pos + 1;
+		boundaryTagStart = boundaryIds + numBoundaries;
+		boundaryTags = boundaryTagStart + numBoundaries + 1;
+
+		pos = ints.get(HDR_LOC_SETS);
+		int numLocSets = ints.get(pos);
+		locSetStart = pos + 1;
+		locSetData = locSetStart + numLocSets + 1;
+
+		pos = ints.get(HDR_GRID);
+		gridMinLat = ints.get(pos);
+		gridMinLon = ints.get(pos + 1);
+		gridDimLat = ints.get(pos + 2);
+		gridDimLon = ints.get(pos + 3);
+		gridRoots = pos + 4;
+
+		nodes = ints.get(HDR_NODES) + 1;
+		elems = ints.get(HDR_ELEMS) + 1;
+	}
+
+	/**
+	 * Open a boundary index. The index is opened only once, all callers share it.
+	 * @param fileName the name of the index file
+	 * @return the index
+	 * @throws IOException if the file cannot be read or is not a boundary index
+	 */
+	public static synchronized BoundaryIndex open(String fileName) throws IOException {
+		BoundaryIndex index = openIndexes.get(fileName);
+		if (index == null) {
+			long t1 = System.currentTimeMillis();
+			index = new BoundaryIndex(fileName);
+			openIndexes.put(fileName, index);
+			log.info("Opened boundary index", fileName, "in", System.currentTimeMillis() - t1, "ms");
+		}
+		return index;
+	}
+
+	/**
+	 * Check if a file is a boundary index.
+	 * @param fileName the file name, might also be a directory or zip file
+	 * @return true if the file starts like a boundary index
+	 */
+	public static boolean isIndexFile(String fileName) {
+		File file = new File(fileName);
+		if (!file.isFile() || file.length() < HEADER_SIZE * 4)
+			return false;
+		try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+			return dis.readInt() == MAGIC;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Create a lookup that calculates the location tags with the given properties.
+	 * A lookup caches the calculated tags, it must be used by one thread only.
+	 * @param props used to determine the names and the ISO code of level 2 boundaries
+	 * @return a new lookup
+	 */
+	public Lookup createLookup(EnhancedProperties props) {
+		return new Lookup(props);
+	}
+
+	private String getString(int id) {
+		int start = ints.get(stringOffsets + id);
+		int end = ints.get(stringOffsets + id + 1);
+		byte[] bytes = new byte[end - start];
+		ByteBuffer buf = data.duplicate();
+		buf.position(stringBytes + start);
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private Tags getBoundaryTags(int boundary) {
+		Tags tags = new Tags();
+		int end = ints.get(boundaryTagStart + boundary + 1);
+		for (int i = ints.get(boundaryTagStart + boundary); i < end; i += 2) {
+			tags.put(getString(ints.get(boundaryTags + i)), getString(ints.get(boundaryTags + i + 1)).intern());
+		}
+		return tags;
+	}
+
+	private int node(int node, int field) {
+		return ints.get(nodes + node * NODE_SIZE + field);
+	}
+
+	private int elem(int elem, int field) {
+		return ints.get(elems + elem * ELEM_SIZE + field);
+	}
+
+	/**
+	 * @return true if the high precision point is inside or on the border of the bounds of the node
+	 */
+	private boolean nodeContains(int node, int latHp, int lonHp) {
+		return latHp >= (node(node, NODE_MIN_LAT) << Coord.DELTA_SHIFT)
+				&& latHp <= (node(node, NODE_MAX_LAT) << Coord.DELTA_SHIFT)
+				&& lonHp >= (node(node, NODE_MIN_LON) << Coord.DELTA_SHIFT)
+				&& lonHp <= (node(node, NODE_MAX_LON) << Coord.DELTA_SHIFT);
+	}
+
+	/**
+	 * Test if a point is inside the rings of an element, using the even-odd rule.
+	 */
+	private boolean elemContains(int elem, int latHp, int lonHp) {
+		if (latHp < elem(elem, ELEM_MIN_LAT) || latHp > elem(elem, ELEM_MAX_LAT)
+				|| lonHp < elem(elem, ELEM_MIN_LON) || lonHp > elem(elem, ELEM_MAX_LON))
+			return false;
+		long ringPos = ((long) elem(elem, ELEM_RINGS_HI) << 32) | (elem(elem, ELEM_RINGS_LO) & 0xffffffffL);
+		IntBuffer rings = ringChunks[(int) (ringPos / RING_CHUNK_SIZE)];
+		int pos = (int) (ringPos % RING_CHUNK_SIZE);
+		int numRings = rings.get(pos++);
+		boolean inside = false;
+		for (int r = 0; r < numRings; r++) {
+			int numPoints = rings.get(pos++);
+			int end = pos + 2 * numPoints;
+			int x1 = rings.get(end - 2);
+			int y1 = rings.get(end - 1);
+			for (; pos < end; pos += 2) {
+				int x2 = rings.get(pos);
+				int y2 = rings.get(pos + 1);
+				if ((y1 > latHp) != (y2 > latHp)) {
+					// compare lonHp with the longitude of the intersection
+					long dy = (long) y2 - y1;
+					long lhs = ((long) lonHp - x1) * dy;
+					long rhs = ((long) latHp - y1) * ((long) x2 - x1);
+					if (dy > 0 ? lhs < rhs : lhs > rhs)
+						inside = !inside;
+				}
+				x1 = x2;
+				y1 = y2;
+			}
+		}
+		return inside;
+	}
+
+	/**
+	 * Searches the index and calculates the location tags with the
+	 * properties given when the lookup was created.
+	 */
+	public class Lookup implements BoundaryLookup {
+		private final BoundaryLocationPreparer preparer;
+		private final Int2ObjectOpenHashMap<BoundaryLocationInfo> infos = new Int2ObjectOpenHashMap<>();
+		private final Int2ObjectOpenHashMap<Tags> locTags = new Int2ObjectOpenHashMap<>();
+		private final Set<Integer> emptyMessagePrinted = new HashSet<>();
+
+		private Lookup(EnhancedProperties props) {
+			preparer = new BoundaryLocationPreparer(props);
+		}
+
+		@Override
+		public Tags get(Coord co) {
+			int gridLat = Math.floorDiv(co.getLatitude() - gridMinLat, BoundaryUtil.RASTER);
+			int gridLon = Math.floorDiv(co.getLongitude() - gridMinLon, BoundaryUtil.RASTER);
+			int root = -1;
+			if (gridLat >= 0 && gridLat < gridDimLat && gridLon >= 0 && gridLon < gridDimLon)
+				root = ints.get(gridRoots + gridLat * gridDimLon + gridLon);
+			if (root < 0) {
+				int keyLat = BoundaryUtil.getSplitBegin(co.getLatitude());
+				int keyLon = BoundaryUtil.getSplitBegin(co.getLongitude());
+				if (emptyMessagePrinted.add(gridLat * 65536 + gridLon))
+					log.warn("no precompiled boundary information available for raster tile", BoundaryUtil.getKey(keyLat, keyLon));
+				return null;
+			}
+			int latHp = co.getHighPrecLat();
+			int lonHp = co.getHighPrecLon();
+			Tags res = search(root, latHp, lonHp);
+			if (res == null) {
+				int radius = 1 << Coord.DELTA_SHIFT;
+				// same as BoundaryQuadTree: try a few nearby points if the point is within the raster
+				if (latHp >= node(root, NODE_MIN_LAT) << Coord.DELTA_SHIFT
+						&& latHp < node(root, NODE_MAX_LAT) << Coord.DELTA_SHIFT
+						&& lonHp >= node(root, NODE_MIN_LON) << Coord.DELTA_SHIFT
+						&& lonHp < node(root, NODE_MAX_LON) << Coord.DELTA_SHIFT) {
+					res = search(root, latHp + radius, lonHp);
+					if (res == null)
+						res = search(root, latHp, lonHp + radius);
+					if (res == null)
+						res = search(root, latHp - radius, lonHp);
+					if (res == null)
+						res = search(root, latHp, lonHp - radius);
+				}
+			}
+			return res;
+		}
+
+		private Tags search(int node, int latHp, int lonHp) {
+			if (!nodeContains(node, latHp, lonHp))
+				return null;
+			int firstChild = node(node, NODE_FIRST_CHILD);
+			if (firstChild < 0) {
+				int firstElem = node(node, NODE_FIRST_ELEM);
+				int end = firstElem + node(node, NODE_NUM_ELEMS);
+				for (int elem = firstElem; elem < end; elem++) {
+					Tags tags = getLocTags(elem(elem, ELEM_LOC_SET));
+					if (tags.size() > 0 && elemContains(elem, latHp, lonHp))
+						return tags;
+				}
+				return null;
+			}
+			for (int i = 0; i < 4; i++) {
+				Tags res = search(firstChild + i, latHp, lonHp);
+				if (res != null)
+					return res;
+			}
+			return null;
+		}
+
+		private BoundaryLocationInfo getInfo(int boundary) {
+			BoundaryLocationInfo info = infos.get(boundary);
+			if (info == null) {
+				info = preparer.parseTags(getBoundaryTags(boundary));
+				infos.put(boundary, info);
+			}
+			return info;
+		}
+
+		/**
+		 * Calculate the location tags of a location set in the same way as
+		 * the NodeElem of a {@link BoundaryQuadTree}.
+		 */
+		private Tags getLocTags(int locSet) {
+			Tags tags = locTags.get(locSet);
+			if (tags != null)
+				return tags;
+			tags = new Tags();
+			int start = ints.get(locSetStart + locSet);
+			int end = ints.get(locSetStart + locSet + 1);
+			BoundaryLocationInfo bInfo = getInfo(ints.get(locSetData + start));
+			if (bInfo.getZip() != null)
+				tags.put("mkgmap:postcode", bInfo.getZip());
+			if (bInfo.getAdmLevel() != BoundaryLocationPreparer.UNSET_ADMIN_LEVEL)
+				tags.put(BoundaryQuadTree.mkgmapTagsArray[bInfo.getAdmLevel() - 1], bInfo.getName());
+			if (tags.size() == 0 && bInfo.getName() != null)
+				tags.put("mkgmap:other", bInfo.getName());
+			for (int i = start + 1; i < end; i++) {
+				BoundaryLocationInfo addInfo = getInfo(ints.get(locSetData + i));
+				int addAdmLevel = addInfo.getAdmLevel();
+				if (addAdmLevel != BoundaryLocationPreparer.UNSET_ADMIN_LEVEL && addInfo.getName() != null
+						&& tags.get(BoundaryQuadTree.mkgmapTagsArray[addAdmLevel - 1]) == null) {
+					tags.put(BoundaryQuadTree.mkgmapTagsArray[addAdmLevel - 1], addInfo.getName());
+				}
+				if (addInfo.getZip() != null && tags.get("mkgmap:postcode") == null)
+					tags.put("mkgmap:postcode", addInfo.getZip());
+			}
+			locTags.put(locSet, tags);
+			return tags;
+		}
+	}
+
+	/**
+	 * Create a boundary index from preprocessed boundary files.
+	 * @param boundaryDirName a directory or zip file with the *.bnd files
+	 * @param indexFile the file to create
+	 * @throws IOException
+	 */
+	public static void create(String boundaryDirName, File indexFile) throws IOException {
+		List<String> fileNames = BoundaryUtil.getBoundaryDirContent(boundaryDirName);
+		Collections.sort(fileNames);
+		File ringFile = File.createTempFile("rings", ".tmp", indexFile.getAbsoluteFile().getParentFile());
+		try {
+			IndexWriter writer = new IndexWriter(ringFile);
+			for (String fileName : fileNames) {
+				BoundaryQuadTree bqt = BoundaryUtil.loadQuadTree(boundaryDirName, fileName);
+				if (bqt != null)
+					writer.addTree(BoundaryUtil.getBbox(fileName), bqt);
+			}
+			writer.write(indexFile);
+		} finally {
+			if (!ringFile.delete())
+				log.warn("Cannot delete temporary file", ringFile);
+		}
+	}
+
+	/**
+	 * Collects the data of the quadtrees. The rings are written to a temporary
+	 * file, everything else is kept in memory until the index is written.
+	 */
+	private static class IndexWriter {
+		private final Object2IntOpenHashMap<String> stringIds = new Object2IntOpenHashMap<>();
+		private final List<String> strings = new ArrayList<>();
+		private final Object2IntOpenHashMap<String> boundaryIdx = new Object2IntOpenHashMap<>();
+		private final IntArrayList boundaryIds = new IntArrayList();
+		private final IntArrayList boundaryTagStart = new IntArrayList();
+		private final IntArrayList boundaryTags = new IntArrayList();
+		private final Object2IntOpenHashMap<String> locSetIdx = new Object2IntOpenHashMap<>();
+		private final IntArrayList locSetStart = new IntArrayList();
+		private final IntArrayList locSetData = new IntArrayList();
+		// the raster tiles with a tree: min lat, min lon and the root node
+		private final IntArrayList roots = new IntArrayList();
+		private final IntArrayList nodes = new IntArrayList();
+		private final IntArrayList elems = new IntArrayList();
+		private final File ringFile;
+		private final DataOutputStream rings;
+		private long ringPos;
+		private int minLat = Integer.MAX_VALUE;
+		private int minLon = Integer.MAX_VALUE;
+		private int maxLat = Integer.MIN_VALUE;
+		private int maxLon = Integer.MIN_VALUE;
+
+		IndexWriter(File ringFile) throws IOException {
+			this.ringFile = ringFile;
+			rings = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(ringFile), 1 << 16));
+			boundaryTagStart.add(0);
+			locSetStart.add(0);
+			stringIds.defaultReturnValue(-1);
+			boundaryIdx.defaultReturnValue(-1);
+			locSetIdx.defaultReturnValue(-1);
+		}
+
+		private int stringId(String s) {
+			int id = stringIds.getInt(s);
+			if (id < 0) {
+				id = strings.size();
+				stringIds.put(s, id);
+				strings.add(s);
+			}
+			return id;
+		}
+
+		void addTree(uk.me.parabola.imgfmt.app.Area fileBbox, BoundaryQuadTree bqt) throws IOException {
+			for (Entry<String, Tags> entry : bqt.getTagsMap().entrySet()) {
+				if (boundaryIdx.containsKey(entry.getKey()))
+					continue;
+				boundaryIdx.put(entry.getKey(), boundaryIds.size());
+				boundaryIds.add(stringId(entry.getKey()));
+				Iterator<Entry<String, String>> iter = entry.getValue().entryIterator();
+				while (iter.hasNext()) {
+					Entry<String, String> tag = iter.next();
+					boundaryTags.add(stringId(tag.getKey()));
+					boundaryTags.add(stringId(tag.getValue()));
+				}
+				boundaryTagStart.add(boundaryTags.size());
+			}
+
+			TreeCollector collector = new TreeCollector();
+			bqt.visit(collector);
+			if (collector.error != null)
+				throw collector.error;
+			if (collector.root == null)
+				return;
+			int root = nodes.size() / NODE_SIZE;
+			nodes.size(nodes.size() + NODE_SIZE);
+			addNode(collector.root, root);
+
+			roots.add(fileBbox.getMinLat());
+			roots.add(fileBbox.getMinLong());
+			roots.add(root);
+			minLat = Math.min(minLat, fileBbox.getMinLat());
+			minLon = Math.min(minLon, fileBbox.getMinLong());
+			maxLat = Math.max(maxLat, fileBbox.getMinLat());
+			maxLon = Math.max(maxLon, fileBbox.getMinLong());
+		}
+
+		/**
+		 * Store a node in the reserved slot, the four children are stored in consecutive slots.
+		 */
+		private void addNode(CollectedNode node, int slot) {
+			int pos = slot * NODE_SIZE;
+			nodes.set(pos + NODE_MIN_LAT, node.bounds.getMinLat());
+			nodes.set(pos + NODE_MIN_LON, node.bounds.getMinLong());
+			nodes.set(pos + NODE_MAX_LAT, node.bounds.getMaxLat());
+			nodes.set(pos + NODE_MAX_LON, node.bounds.getMaxLong());
+			nodes.set(pos + NODE_FIRST_ELEM, node.firstElem);
+			nodes.set(pos + NODE_NUM_ELEMS, node.numElems);
+			if (node.childs.isEmpty()) {
+				nodes.set(pos + NODE_FIRST_CHILD, -1);
+				return;
+			}
+			int firstChild = nodes.size() / NODE_SIZE;
+			nodes.set(pos + NODE_FIRST_CHILD, firstChild);
+			nodes.size(nodes.size() + node.childs.size() * NODE_SIZE);
+			for (int i = 0; i < node.childs.size(); i++)
+				addNode(node.childs.get(i), firstChild + i);
+		}
+
+		private int locSet(String boundaryId, String refs) {
+			String key = refs == null ? boundaryId : boundaryId + "|" + refs;
+			int idx = locSetIdx.getInt(key);
+			if (idx >= 0)
+				return idx;
+			locSetData.add(boundaryIdx.getInt(boundaryId));
+			if (refs != null && !refs.isEmpty()) {
+				// the format of refs is 2:r19884;4:r20039;6:r998818
+				for (String relBound : refs.split(Pattern.quote(";"))) {
+					String[] relParts = relBound.split(Pattern.quote(":"));
+					int ref = relParts.length == 2 ? boundaryIdx.getInt(relParts[1]) : -1;
+					if (ref < 0)
+						log.warn("Referenced boundary not known:", relBound);
+					else
+						locSetData.add(ref);
+				}
+			}
+			locSetStart.add(locSetData.size());
+			idx = locSetStart.size() - 2;
+			locSetIdx.put(key, idx);
+			return idx;
+		}
+
+		private void addElem(String boundaryId, String refs, Area area) throws IOException {
+			if (!boundaryIdx.containsKey(boundaryId)) {
+				log.error("unknown boundaryId " + boundaryId);
+				return;
+			}
+			IntArrayList ringLens = new IntArrayList();
+			IntArrayList points = new IntArrayList();
+			double[] res = new double[6];
+			int len = 0;
+			for (PathIterator pit = area.getPathIterator(null); !pit.isDone(); pit.next()) {
+				int type = pit.currentSegment(res);
+				if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_CLOSE) {
+					len = closeRing(ringLens, points, len);
+				}
+				if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO) {
+					points.add((int) Math.round(res[0] * (1 << Coord.DELTA_SHIFT)));
+					points.add((int) Math.round(res[1] * (1 << Coord.DELTA_SHIFT)));
+					len++;
+				}
+			}
+			closeRing(ringLens, points, len);
+			if (ringLens.isEmpty())
+				return;
+
+			int size = 1 + ringLens.size() + points.size();
+			if (size > RING_CHUNK_SIZE)
+				throw new IOException("Boundary " + boundaryId + " is too complex for the index");
+			long chunkRest = RING_CHUNK_SIZE - ringPos % RING_CHUNK_SIZE;
+			if (size > chunkRest) {
+				for (long i = 0; i < chunkRest; i++)
+					rings.writeInt(0);
+				ringPos += chunkRest;
+			}
+
+			int eMinLat = Integer.MAX_VALUE, eMinLon = Integer.MAX_VALUE;
+			int eMaxLat = Integer.MIN_VALUE, eMaxLon = Integer.MIN_VALUE;
+			for (int i = 0; i < points.size(); i += 2) {
+				eMinLon = Math.min(eMinLon, points.getInt(i));
+				eMaxLon = Math.max(eMaxLon, points.getInt(i));
+				eMinLat = Math.min(eMinLat, points.getInt(i + 1));
+				eMaxLat = Math.max(eMaxLat, points.getInt(i + 1));
+			}
+			elems.add(locSet(boundaryId, refs));
+			elems.add(eMinLat);
+			elems.add(eMinLon);
+			elems.add(eMaxLat);
+			elems.add(eMaxLon);
+			elems.add((int) (ringPos >>> 32));
+			elems.add((int) ringPos);
+
+			rings.writeInt(ringLens.size());
+			int pos = 0;
+			for (int i = 0; i < ringLens.size(); i++) {
+				int numPoints = ringLens.getInt(i);
+				rings.writeInt(numPoints);
+				for (int j = 0; j < 2 * numPoints; j++)
+					rings.writeInt(points.getInt(pos++));
+			}
+			ringPos += size;
+		}
+
+		/**
+		 * Finish the current ring, rings with less than three points are removed.
+		 * @return 0 (the length of the next ring)
+		 */
+		private static int closeRing(IntArrayList ringLens, IntArrayList points, int len) {
+			if (len >= 3)
+				ringLens.add(len);
+			else if (len > 0)
+				points.size(points.size() - 2 * len);
+			return 0;
+		}
+
+		void write(File indexFile) throws IOException {
+			rings.close();
+			int numStrings = strings.size();
+			List<byte[]> stringData = new ArrayList<>(numStrings);
+			int[] stringOffsets = new int[numStrings + 1];
+			for (int i = 0; i < numStrings; i++) {
+				byte[] bytes = strings.get(i).getBytes(StandardCharsets.UTF_8);
+				stringData.add(bytes);
+				stringOffsets[i + 1] = stringOffsets[i] + bytes.length;
+			}
+			int stringInts = (stringOffsets[numStrings] + 3) / 4;
+
+			int dimLat = roots.isEmpty() ? 0 : (maxLat - minLat) / BoundaryUtil.RASTER + 1;
+			int dimLon = roots.isEmpty() ? 0 : (maxLon - minLon) / BoundaryUtil.RASTER + 1;
+			int[] grid = new int[dimLat * dimLon];
+			Arrays.fill(grid, -1);
+			for (int i = 0; i < roots.size(); i += 3) {
+				int lat = roots.getInt(i);
+				int lon = roots.getInt(i + 1);
+				grid[(lat - minLat) / BoundaryUtil.RASTER * dimLon + (lon - minLon) / BoundaryUtil.RASTER] = roots.getInt(i + 2);
+			}
+
+			int[] header = new int[HEADER_SIZE];
+			header[0] = MAGIC;
+			header[1] = VERSION;
+			int pos = HEADER_SIZE;
+			header[HDR_STRINGS] = pos;
+			pos += 1 + numStrings + 1 + stringInts;
+			header[HDR_BOUNDARIES] = pos;
+			pos += 1 + boundaryIds.size() + boundaryTagStart.size() + boundaryTags.size();
+			header[HDR_LOC_SETS] = pos;
+			pos += 1 + locSetStart.size() + locSetData.size();
+			header[HDR_GRID] = pos;
+			pos += 4 + grid.length;
+			header[HDR_NODES] = pos;
+			pos += 1 + nodes.size();
+			header[HDR_ELEMS] = pos;
+			pos += 1 + elems.size();
+			long ringsStart = pos * 4L;
+			if (ringsStart > Integer.MAX_VALUE)
+				throw new IOException("Too many boundaries for the index");
+			header[HDR_RINGS_HI] = (int) (ringsStart >>> 32);
+			header[HDR_RINGS_LO] = (int) ringsStart;
+
+			try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile), 1 << 16))) {
+				writeInts(dos, header);
+				dos.writeInt(numStrings);
+				writeInts(dos, stringOffsets);
+				for (byte[] bytes : stringData)
+					dos.write(bytes);
+				for (int i = stringOffsets[numStrings]; i < stringInts * 4; i++)
+					dos.write(0);
+				dos.writeInt(boundaryIds.size());
+				writeInts(dos, boundaryIds);
+				writeInts(dos, boundaryTagStart);
+				writeInts(dos, boundaryTags);
+				dos.writeInt(locSetStart.size() - 1);
+				writeInts(dos, locSetStart);
+				writeInts(dos, locSetData);
+				dos.writeInt(minLat);
+				dos.writeInt(minLon);
+				dos.writeInt(dimLat);
+				dos.writeInt(dimLon);
+				writeInts(dos, grid);
+				dos.writeInt(nodes.size() / NODE_SIZE);
+				writeInts(dos, nodes);
+				dos.writeInt(elems.size() / ELEM_SIZE);
+				writeInts(dos, elems);
+				try (InputStream is = new BufferedInputStream(new FileInputStream(ringFile))) {
+					copy(is, dos);
+				}
+			}
+			log.info("Boundary index", indexFile, "written with", boundaryIds.size(), "boundaries,",
+					nodes.size() / NODE_SIZE, "nodes and", elems.size() / ELEM_SIZE, "elements");
+		}
+
+		private static void writeInts(DataOutputStream dos, int[] values) throws IOException {
+			for (int v : values)
+				dos.writeInt(v);
+		}
+
+		private static void writeInts(DataOutputStream dos, IntArrayList values) throws IOException {
+			for (int i = 0; i < values.size(); i++)
+				dos.writeInt(values.getInt(i));
+		}
+
+		private static void copy(InputStream is, OutputStream os) throws IOException {
+			byte[] buf = new byte[1 << 16];
+			int n;
+			while ((n = is.read(buf)) > 0)
+				os.write(buf, 0, n);
+		}
+
+		/**
+		 * Builds a copy of the tree structure. The elements are added to the
+		 * index while visiting, so the elements of a leaf are consecutive.
+		 */
+		private class TreeCollector implements BoundaryQuadTree.TreeVisitor {
+			private final Deque<CollectedNode> stack = new ArrayDeque<>();
+			private CollectedNode root;
+			private IOException error;
+
+			@Override
+			public void startNode(uk.me.parabola.imgfmt.app.Area bounds, boolean isLeaf) {
+				CollectedNode node = new CollectedNode(bounds, elems.size() / ELEM_SIZE);
+				if (stack.isEmpty())
+					root = node;
+				else
+					stack.peek().childs.add(node);
+				stack.push(node);
+			}
+
+			@Override
+			public void leafElem(String boundaryId, String refs, Area area) {
+				if (error != null)
+					return;
+				try {
+					addElem(boundaryId, refs, area);
+				} catch (IOException e) {
+					error = e;
+				}
+			}
+
+			@Override
+			public void endNode() {
+				CollectedNode node = stack.pop();
+				node.numElems = elems.size() / ELEM_SIZE - node.firstElem;
+			}
+		}
+	}
+
+	private static class CollectedNode {
+		private final uk.me.parabola.imgfmt.app.Area bounds;
+		private final int firstElem;
+		private int numElems;
+		private final List<CollectedNode> childs = new ArrayList<>(4);
+
+		CollectedNode(uk.me.parabola.imgfmt.app.Area bounds, int firstElem) {
+			this.bounds = bounds;
+			this.firstElem = firstElem;
+		}
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 2 || "--help".equals(args[0])) {
+			System.err.println("Usage:");
+			System.err.println("java -cp mkgmap.jar uk.me.parabola.mkgmap.reader.osm.boundary.BoundaryIndex <boundsdir> <indexfile>");
+			System.err.println(" <boundsdir>: Directory or zip file with preprocessed bounds files");
+			System.err.println(" <indexfile>: The boundary index file to create");
+			System.exit(-1);
+		}
+		long t1 = System.currentTimeMillis();
+		try {
+			create(args[0], new File(args[1]));
+		} catch (IOException e) {
+			System.err.println("Cannot create boundary index: " + e);
+			System.exit(1);
+		}
+		System.out.println("Boundary index created in " + (System.currentTimeMillis() - t1) + " ms");
+	}
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm.boundary;
+
+import uk.me.parabola.imgfmt.app.Coord;
+import uk.me.parabola.mkgmap.reader.osm.Tags;
+
+/**
+ * Finds the location relevant tags for a point.
+ * Implemented by {@link BoundaryGrid} and {@link BoundaryIndex.Lookup}.
+ */
+public interface BoundaryLookup {
+	/**
+	 * Returns the location relevant tags for a given point
+	 * @param co the coords of the point
+	 * @return null if not found, else the tags which must not be modified
+	 */
+	Tags get(Coord co);
+}
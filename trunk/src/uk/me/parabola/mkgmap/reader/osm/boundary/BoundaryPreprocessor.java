@@ -14,6 +14,7 @@ package uk.me.parabola.mkgmap.reader.osm.boundary;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
@@ -110,11 +111,12 @@ public class BoundaryPreprocessor implements Runnable {
 	
 	
 	public static void main(String[] args) {
-		if ("--help".equals(args[0]) || args.length != 2) {
+		if ("--help".equals(args[0]) || args.length < 2 || args.length > 3) {
 			System.err.println("Usage:");
-			System.err.println("java -cp mkgmap.jar uk.me.parabola.mkgmap.reader.osm.boundary.BoundaryPreprocessor <inputfile> <boundsdir>");
+			System.err.println("java -cp mkgmap.jar uk.me.parabola.mkgmap.reader.osm.boundary.BoundaryPreprocessor <inputfile> <boundsdir> [<indexfile>]");
 			System.err.println(" <inputfile>: File containing boundary data (OSM, PBF or O5M format)");
 			System.err.println(" <boundsdir>: Directory in which the preprocessed bounds files are created");
+			System.err.println(" <indexfile>: Optional: also create a boundary index file from the bounds files");
 
 			System.exit(-1);
 		}
@@ -135,6 +137,17 @@ public class BoundaryPreprocessor implements Runnable {
 		}
 		System.out.println("Bnd files converted in " +  (System.currentTimeMillis()-t1) + " ms");
 		log.info("Bnd files converted in", (System.currentTimeMillis()-t1), "ms");
+
+		if (args.length == 3) {
+			long t2 = System.currentTimeMillis();
+			try {
+				BoundaryIndex.create(outputDir, new File(args[2]));
+			} catch (IOException exp) {
+				System.err.println("Cannot create boundary index: " + exp);
+				return;
+			}
+			System.out.println("Boundary index created in " + (System.currentTimeMillis() - t2) + " ms");
+		}
 	}
 
 	/**
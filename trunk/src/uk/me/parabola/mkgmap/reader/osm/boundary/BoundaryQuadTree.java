@@ -73,6 +73,19 @@ public class BoundaryQuadTree {
 	// the bounding box of the quadtree
 	private final Rectangle bbox;
 	private final String bboxKey; 
+
+	// a leaf gets a raster after this number of searches
+	private static final int RASTER_MIN_SEARCHES = 16;
+	// number of raster cells in each direction
+	private static final int RASTER_DIM = 16;
+	// raster values that are no index in the nodes list
+	private static final short RASTER_EXACT = -1;
+	private static final short RASTER_EMPTY = -2;
+	// rasters are calculated with slightly larger cells so that points on the cell borders are covered
+	private static final double RASTER_CELL_EPS = 0.001;
+	// counters for the statistics
+	private long searches;
+	private long rasterHits;
 	
 	// tags that can be returned in the get method
 	public static final String[] mkgmapTagsArray =  {
@@ -239,8 +252,23 @@ public class BoundaryQuadTree {
 			}
 		}
 		sortBoundaryTagsMap();
+		root.clearRasters();
 		root.mergeNodes(other.root, "_");
 	}
+
+	/**
+	 * @return the number of searches in leaves of the tree
+	 */
+	public long getSearches() {
+		return searches;
+	}
+
+	/**
+	 * @return the number of searches in leaves that were answered by a raster without exact tests
+	 */
+	public long getRasterHits() {
+		return rasterHits;
+	}
 	
 	/**
 	 * Return the area that is covered by a given admin level
@@ -265,6 +293,28 @@ public class BoundaryQuadTree {
 		root.save(stream, "_");
 	}
 
+	/**
+	 * Travel through the tree and report the nodes and the usable elements
+	 * of the leaves, used to create a {@link BoundaryIndex}.
+	 * @param visitor receives the data
+	 */
+	void visit(TreeVisitor visitor){
+		root.visit(visitor);
+	}
+
+	/**
+	 * Receives the structure of a tree, see {@link BoundaryQuadTree#visit(TreeVisitor)}.
+	 * The children of a node are reported between its start and end call.
+	 */
+	interface TreeVisitor {
+		void startNode(uk.me.parabola.imgfmt.app.Area bounds, boolean isLeaf);
+		/**
+		 * Called for the elements of a leaf in the order in which they are searched.
+		 */
+		void leafElem(String boundaryId, String refs, Area area);
+		void endNode();
+	}
+
 	/**
 	 * Sort the boundary-Tags-Map so that zip-code-only boundaries appear first, followed by
 	 * admin_level-11,10,9,...2
@@ -413,6 +463,10 @@ public class BoundaryQuadTree {
 		private short depth;
 		private boolean isLeaf;
 
+		// for leaves: the result of the search for each raster cell, created by searches
+		private short[] raster;
+		private int numSearches;
+
 		/**
 		 * Create an empty node for the given bbox
 		 * @param bbox
@@ -458,6 +512,23 @@ public class BoundaryQuadTree {
 			}
 		}
 
+		private void visit(TreeVisitor visitor){
+			visitor.startNode(bounds, isLeaf);
+			if (isLeaf){
+				if (nodes != null){
+					for (NodeElem nodeElem : nodes){
+						if (nodeElem.isValid())
+							visitor.leafElem(nodeElem.boundaryId, nodeElem.locationDataSrc, nodeElem.getArea());
+					}
+				}
+			} else {
+				for (int i = 0; i < 4; i++){
+					childs[i].visit(visitor);
+				}
+			}
+			visitor.endNode();
+		}
+
 		/**
 		 * Return location relevant Tags for the point defined by Coord 
 		 * @param co the point
@@ -472,6 +543,16 @@ public class BoundaryQuadTree {
 					return null;
 				double lon = (double) co.getHighPrecLon() / (1 << Coord.DELTA_SHIFT);
 				double lat = (double) co.getHighPrecLat() / (1 << Coord.DELTA_SHIFT);
+				++searches;
+				if (raster == null && ++numSearches >= RASTER_MIN_SEARCHES)
+					createRaster();
+				if (raster != null) {
+					short res = raster[rasterCell(lon, lat)];
+					if (res != RASTER_EXACT) {
+						++rasterHits;
+						return res == RASTER_EMPTY ? null : nodes.get(res).locTags;
+					}
+				}
 				for (NodeElem nodeElem : nodes) {
 					if (nodeElem.tagMask > 0 && nodeElem.getArea().contains(lon, lat)) {
 						return nodeElem.locTags;
@@ -487,6 +568,59 @@ public class BoundaryQuadTree {
 			return null;
 		}
 
+		private int rasterCell(double lon, double lat) {
+			int x = (int) ((lon - bbox.x) * RASTER_DIM / bbox.width);
+			int y = (int) ((lat - bbox.y) * RASTER_DIM / bbox.height);
+			x = Math.max(0, Math.min(RASTER_DIM - 1, x));
+			y = Math.max(0, Math.min(RASTER_DIM - 1, y));
+			return y * RASTER_DIM + x;
+		}
+
+		/**
+		 * Calculate the search result for each cell of a coarse raster. 
+		 * A cell gets the position of the first usable element which 
+		 * intersects it if that element contains the complete cell, or
+		 * RASTER_EMPTY if no element intersects it. Other cells need the 
+		 * exact test.
+		 */
+		private void createRaster() {
+			if (nodes.size() > Short.MAX_VALUE || bbox.width <= 0 || bbox.height <= 0)
+				return;
+			short[] res = new short[RASTER_DIM * RASTER_DIM];
+			double cellWidth = (double) bbox.width / RASTER_DIM;
+			double cellHeight = (double) bbox.height / RASTER_DIM;
+			for (int y = 0; y < RASTER_DIM; y++) {
+				for (int x = 0; x < RASTER_DIM; x++) {
+					Rectangle2D cell = new Rectangle2D.Double(
+							bbox.x + x * cellWidth - RASTER_CELL_EPS,
+							bbox.y + y * cellHeight - RASTER_CELL_EPS,
+							cellWidth + 2 * RASTER_CELL_EPS, cellHeight + 2 * RASTER_CELL_EPS);
+					short val = RASTER_EMPTY;
+					for (int i = 0; i < nodes.size(); i++) {
+						NodeElem nodeElem = nodes.get(i);
+						if (nodeElem.tagMask > 0 && nodeElem.getArea().intersects(cell)) {
+							val = nodeElem.getArea().contains(cell) ? (short) i : RASTER_EXACT;
+							break;
+						}
+					}
+					res[y * RASTER_DIM + x] = val;
+				}
+			}
+			raster = res;
+		}
+
+		/**
+		 * Remove the rasters of this node and all children. 
+		 */
+		private void clearRasters() {
+			raster = null;
+			numSearches = 0;
+			if (childs != null) {
+				for (Node child : childs)
+					child.clearRasters();
+			}
+		}
+
 		/**
 		 * Debugging helper: Print node Tags and maybe create gpx
 		 * @param prefix identifies the calling routine
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.polish;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.me.parabola.imgfmt.app.Coord;
+
+/**
+ * Parse the value of a DataN= line, a list of coordinates like
+ * (51.2345,-0.2345),(51.2346,-0.2344).
+ * <p>
+ * The usual form is parsed directly from the characters. Numbers with up to
+ * 15 digits are exact in a double and so is the power of ten, so the one
+ * division gives the same result as Double.valueOf(). Anything else is
+ * parsed with the regular expressions that were used before.
+ * <p>
+ * Doesn't use any shared state, so it can be used from any thread.
+ */
+final class CoordListParser {
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+	};
+	private static final int MAX_DIGITS = 15;
+
+	private final String s;
+	private int pos;
+	// the result of the last call to parseNumber()
+	private double number;
+
+	private CoordListParser(String s) {
+		this.s = s;
+	}
+
+	/**
+	 * @param value The value of the line, without leading and trailing spaces.
+	 * @return A new list of new points.
+	 * @throws NumberFormatException If the value is not valid.
+	 */
+	static List<Coord> parse(String value) {
+		List<Coord> points = new CoordListParser(value).parseDirect();
+		if (points == null)
+			points = parseWithSplit(value);
+		return points;
+	}
+
+	/**
+	 * @return The points, or null if the value isn't in the usual form.
+	 */
+	private List<Coord> parseDirect() {
+		List<Coord> points = new ArrayList<>();
+		if (s.startsWith("("))
+			pos = 1;
+		while (true) {
+			if (!parseNumber())
+				return null;
+			double lat = number;
+			skipSpaces();
+			if (!expect(','))
+				return null;
+			if (!parseNumber())
+				return null;
+			points.add(new Coord(lat, number));
+			skipSpaces();
+			if (pos == s.length())
+				return points;
+			if (!expect(')'))
+				return null;
+			if (pos == s.length())
+				return points;
+			skipSpaces();
+			if (!expect(','))
+				return null;
+			skipSpaces();
+			if (!expect('('))
+				return null;
+		}
+	}
+
+	private boolean expect(char c) {
+		if (pos < s.length() && s.charAt(pos) == c) {
+			pos++;
+			return true;
+		}
+		return false;
+	}
+
+	private void skipSpaces() {
+		while (pos < s.length() && s.charAt(pos) == ' ')
+			pos++;
+	}
+
+	/**
+	 * Parse a number of the form -ddd.ddd into {@link #number}.
+	 * @return False if there is no such number or it has too many digits.
+	 */
+	private boolean parseNumber() {
+		skipSpaces();
+		boolean negative = expect('-');
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean inFraction = false;
+		for (; pos < s.length(); pos++) {
+			char c = s.charAt(pos);
+			if (c >= '0' && c <= '9') {
+				if (mantissa == 0 && c == '0' && !inFraction) {
+					// leading zero, doesn't count
+					digits = 1;
+					continue;
+				}
+				mantissa = mantissa * 10 + (c - '0');
+				if (mantissa != 0 && ++digits > MAX_DIGITS)
+					return false;
+				if (inFraction && ++fractionDigits >= POWERS_OF_TEN.length)
+					return false;
+			} else if (c == '.' && !inFraction) {
+				inFraction = true;
+			} else {
+				break;
+			}
+		}
+		if (digits == 0 && fractionDigits == 0)
+			return false;
+		double d = mantissa / POWERS_OF_TEN[fractionDigits];
+		number = negative ? -d : d;
+		return true;
+	}
+
+	private static List<Coord> parseWithSplit(String value) {
+		String[] ords = value.split("\\) *, *\\(");
+		List<Coord> points = new ArrayList<>();
+		for (String s : ords)
+			points.add(makeCoord(s));
+		return points;
+	}
+
+	/**
+	 * Create a coordinate from a string.  The string will look similar:
+	 * (2.3454,-0.23), but may not have the leading opening parenthesis.
+	 * @param value A string representing a lat,long pair.
+	 * @return The coordinate value.
+	 */
+	private static Coord makeCoord(String value) {
+		String[] fields = value.split("[(,)]");
+
+		int i = 0;
+		if (fields[0].isEmpty())
+			i = 1;
+
+		Double f1 = Double.valueOf(fields[i]);
+		Double f2 = Double.valueOf(fields[i+1]);
+		return new Coord(f1, f2);
+	}
+}
@@ -32,6 +32,7 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import uk.me.parabola.imgfmt.FormatException;
 import uk.me.parabola.imgfmt.MapFailedException;
@@ -84,6 +85,9 @@ public class PolishMapDataSource extends MapperBasedMapDataSource implements Loa
 	private static final int S_POLYGON = 4;
     private static final int S_RESTRICTION = 5;
 
+	// the number of lines that are read before the coordinates in them are parsed
+	private static final int BATCH_LINES = 10000;
+
 	private MapPoint point;
 	private MapLine polyline;
 	private MapShape shape;
@@ -113,6 +117,9 @@ public class PolishMapDataSource extends MapperBasedMapDataSource implements Loa
 
 	private int lineNo;
 
+	// the points of the current line if it is a Data line, parsed in advance
+	private List<Coord> lineCoords;
+
 	private boolean havePolygon4B;
 
 	/** if false, assume that lines with routable types are roads and create corresponding NET data */ 
@@ -134,18 +141,25 @@ public class PolishMapDataSource extends MapperBasedMapDataSource implements Loa
 		dec.onUnmappableCharacter(CodingErrorAction.REPLACE);
 
 		try (BufferedReader in = new BufferedReader(new InputStreamReader(Utils.openFile(name), READING_CHARSET))) {
-			String line;
-			while ((line = in.readLine()) != null) {
-				++lineNo;
-				line = line.trim();
-				if (line.isEmpty() || line.charAt(0) == ';')
-					continue;
-				if (line.toUpperCase().startsWith("[END"))
-					endSection();
-				else if (line.charAt(0) == '[')
-					sectionStart(line);
-				else
-					processLine(line);
+			List<String> batch = new ArrayList<>(BATCH_LINES);
+			while (readBatch(in, batch)) {
+				List<List<Coord>> coords = parseCoords(batch);
+				for (int i = 0; i < batch.size(); i++) {
+					++lineNo;
+					String line = batch.get(i);
+					if (line.isEmpty() || line.charAt(0) == ';')
+						continue;
+					if (line.toUpperCase().startsWith("[END"))
+						endSection();
+					else if (line.charAt(0) == '[')
+						sectionStart(line);
+					else {
+						lineCoords = coords.get(i);
+						processLine(line);
+						lineCoords = null;
+					}
+				}
+				batch.clear();
 			}
 		} catch (IOException e) {
 			throw new FormatException("Reading file failed", e);
@@ -161,6 +175,52 @@ public class PolishMapDataSource extends MapperBasedMapDataSource implements Loa
 			addBackground();
 	}
 
+	/**
+	 * Read the next lines, at least {@link #BATCH_LINES} up to the end of a
+	 * section, or to the end of the file.
+	 *
+	 * @param in The input.
+	 * @param batch The trimmed lines are added here.
+	 * @return False if there are no more lines.
+	 */
+	private static boolean readBatch(BufferedReader in, List<String> batch) throws IOException {
+		String line;
+		while ((line = in.readLine()) != null) {
+			line = line.trim();
+			batch.add(line);
+			if (batch.size() >= BATCH_LINES && line.toUpperCase().startsWith("[END"))
+				break;
+		}
+		return !batch.isEmpty();
+	}
+
+	/**
+	 * Parse the coordinates of the Data lines in parallel. The sections
+	 * are then processed in order with the parsed points.
+	 *
+	 * @param batch Lines from the file.
+	 * @return The points for each line, null for other lines and if the
+	 * value can't be parsed. The error is then found when the line is
+	 * processed.
+	 */
+	private static List<List<Coord>> parseCoords(List<String> batch) {
+		return batch.parallelStream().map(PolishMapDataSource::parseCoords).collect(Collectors.toList());
+	}
+
+	private static List<Coord> parseCoords(String line) {
+		if (!line.startsWith("Data") && !line.startsWith("Origin"))
+			return null;
+		int sep = line.indexOf('=');
+		if (sep < 0)
+			return null;
+		try {
+			return CoordListParser.parse(line.substring(sep + 1).trim());
+		} catch (RuntimeException e) {
+			// left for the normal processing
+			return null;
+		}
+	}
+
 	public LevelInfo[] mapLevels() {
 		if (levels == null) {
 			// If it has not been set then supply some defaults.
@@ -439,7 +499,7 @@ public class PolishMapDataSource extends MapperBasedMapDataSource implements Loa
 			point.setType(type | subtype);
 			checkType(FeatureKind.POINT, point.getType());
 		} else if (name.startsWith("Data") || name.startsWith("Origin")) {
-			Coord co = makeCoord(value);
+			Coord co = coordsFromString(value).get(0);
 			setResolution(point, name);
 			point.setLocation(co);
 		}
@@ -542,16 +602,19 @@ public class PolishMapDataSource extends MapperBasedMapDataSource implements Loa
 		return new CityInfo(recode(city), recode(region), unescape(recode(country)));
 	}
 	
-	private List<Coord> coordsFromString(String value, boolean close) {
-		String[] ords = value.split("\\) *, *\\(");
-		List<Coord> points = new ArrayList<>();
+	/**
+	 * @return The points of the current Data line.
+	 */
+	private List<Coord> coordsFromString(String value) {
+		return lineCoords != null ? lineCoords : CoordListParser.parse(value);
+	}
 
-		for (String s : ords) {
-			Coord co = makeCoord(s);
+	private List<Coord> coordsFromString(String value, boolean close) {
+		List<Coord> points = coordsFromString(value);
+		for (Coord co : points) {
 			if (log.isDebugEnabled())
 				log.debug(" L: ", co);
 			mapper.addToBounds(co);
-			points.add(co);
 		}
 		if (close && points.get(0) != points.get(points.size() - 1)) {
 			// not closed, close it
@@ -854,24 +917,6 @@ public class PolishMapDataSource extends MapperBasedMapDataSource implements Loa
 		
 	}
 
-	/**
-	 * Create a coordinate from a string.  The string will look similar:
-	 * (2.3454,-0.23), but may not have the leading opening parenthesis.
-	 * @param value A string representing a lat,long pair.
-	 * @return The coordinate value.
-	 */
-	private static Coord makeCoord(String value) {
-		String[] fields = value.split("[(,)]");
-
-		int i = 0;
-		if (fields[0].isEmpty())
-			i = 1;
-
-		Double f1 = Double.valueOf(fields[i]);
-		Double f2 = Double.valueOf(fields[i+1]);
-		return new Coord(f1, f2);
-	}
-
 	private ExtTypeAttributes makeExtTypeAttributes() {
 		Map<String, String> eta = new HashMap<>();
 		int colour = 0;
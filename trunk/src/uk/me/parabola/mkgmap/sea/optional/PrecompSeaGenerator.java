@@ -77,6 +77,8 @@ public class PrecompSeaGenerator {
 	private final MathTransform transformation;
 	/** {@code true}: sea tiles are created with PBF format; {@code false}: sea tiles are created with .osm.gz format */
 	private boolean usePbfFormat;
+	/** the precompiled sea file that is written in addition to the tiles, {@code null} for none */
+	private File seaFile;
 	/** Number of tiles generated by one full reading of the shapefile. Higher numbers require more memory. */
 	private int tilesPerCycle;
 
@@ -100,6 +102,15 @@ public class PrecompSeaGenerator {
 		this.usePbfFormat = usePbf;
 	}
 
+	/**
+	 * Sets the precompiled sea file that is written in addition to the
+	 * tiles in the output directory.
+	 * @param seaFile the file or {@code null} to write the tiles only
+	 */
+	public void setSeaFile(File seaFile) {
+		this.seaFile = seaFile;
+	}
+
 	/**
 	 * Retrieves the transformation that is necessary to transform the 
 	 * data from the shape file to WGS84. 
@@ -272,7 +283,7 @@ public class PrecompSeaGenerator {
 
 		// start the saver thread that stores the tiles to disc and creates
 		// the index file
-		PrecompSeaSaver precompSaver = new PrecompSeaSaver(outputDir, usePbfFormat);
+		PrecompSeaSaver precompSaver = new PrecompSeaSaver(outputDir, usePbfFormat, seaFile);
 		new Thread(precompSaver, "SaveThread").start();
 
 		// perform several cycles which is necessary to reduce memory
@@ -412,6 +423,8 @@ public class PrecompSeaGenerator {
 		
 		PrecompSeaGenerator seaGenerator = new PrecompSeaGenerator(shapeFile,
 				shapeCRS, outputDir);
+		if (args.length > 3)
+			seaGenerator.setSeaFile(new File(args[3]));
 		seaGenerator.runSeaGeneration();
 
 		System.out.println("Generation took "+(System.currentTimeMillis()-t1)+" ms");
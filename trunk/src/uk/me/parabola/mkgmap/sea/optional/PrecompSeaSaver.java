@@ -19,6 +19,8 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +38,7 @@ import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import uk.me.parabola.imgfmt.ExitException;
 import uk.me.parabola.imgfmt.Utils;
 import uk.me.parabola.imgfmt.app.Coord;
+import uk.me.parabola.mkgmap.reader.osm.PrecompSeaFile;
 import uk.me.parabola.mkgmap.reader.osm.SeaGenerator;
 import uk.me.parabola.mkgmap.reader.osm.Way;
 import uk.me.parabola.splitter.BinaryMapWriter;
@@ -54,16 +57,29 @@ class PrecompSeaSaver implements Runnable {
 	private final boolean usePbf;
 
 	private final File outputDir;
+	/** writer of the precompiled sea file, {@code null} if no such file is created */
+	private final PrecompSeaFile.Writer seaFileWriter;
 	
 	private final BlockingQueue<Entry<String, List<Way>>> saveQueue = new LinkedBlockingQueue<>();
 
-	public PrecompSeaSaver(File outputDir, boolean usePbf) {
+	public PrecompSeaSaver(File outputDir, boolean usePbf) throws IOException {
+		this(outputDir, usePbf, null);
+	}
+
+	/**
+	 * @param outputDir the directory for the tiles and the index
+	 * @param usePbf {@code true} use PBF format; {@code false} use .osm.gz format
+	 * @param seaFile if not {@code null} the tiles are also written to this precompiled sea file
+	 * @throws IOException if the precompiled sea file cannot be created
+	 */
+	public PrecompSeaSaver(File outputDir, boolean usePbf, File seaFile) throws IOException {
 		this.outputDir = outputDir;
 		finishWait = new CountDownLatch(1);
 		this.usePbf = usePbf;
 		idMapping = new HashMap<>();
 		index = new TreeMap<>();
 		this.outputDir.mkdirs();
+		seaFileWriter = (seaFile == null ? null : new PrecompSeaFile.Writer(seaFile));
 	}
 	
 	public BlockingQueue<Entry<String, List<Way>>> getQueue() {
@@ -106,9 +122,17 @@ class PrecompSeaSaver implements Runnable {
 					Way singleWay = tileData.getValue().get(0);
 					String naturalTag = singleWay.getTag("natural");
 					index.put(tileData.getKey(), naturalTag);
+					if (seaFileWriter != null)
+						seaFileWriter.addTile(tileData.getKey(), naturalTag);
 				} else {
 					try {
 						writeTile(tileData, fakeMapid);
+						if (seaFileWriter != null) {
+							// same order as in the OSM file
+							List<Way> ways = new ArrayList<>(tileData.getValue());
+							ways.sort(Comparator.comparingLong(Way::getId));
+							seaFileWriter.addMixedTile(tileData.getKey(), ways);
+						}
 					} catch (IOException e) {
 						throw new ExitException(e.getLocalizedMessage());
 					}
@@ -119,6 +143,10 @@ class PrecompSeaSaver implements Runnable {
 		try {
 			System.out.println("Writing index file");
 			writeIndex();
+			if (seaFileWriter != null) {
+				System.out.println("Writing precompiled sea file");
+				seaFileWriter.close();
+			}
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import uk.me.parabola.log.Logger;
+
+/**
+ * Collects wall time, CPU time and allocated bytes for the phases of each
+ * tile build. A phase is measured in the thread that builds the tile, work
+ * that is done in other threads (e.g. parallel streams) is only included in
+ * the wall time.
+ * <p>
+ * Phases may be nested, the values of a phase don't include the values of
+ * the nested phases, so the values of all phases of a tile add up to the
+ * measured total.
+ * <p>
+ * Usage:
+ * <pre>
+ * try (PhaseStatistics.Phase p = PhaseStatistics.phase("style")) {
+ *     ...
+ * }
+ * </pre>
+ * The variable is not used in the block, so the enclosing method needs
+ * {@code @SuppressWarnings("try")}.
+ * <p>
+ * Nothing is measured unless {@link #setEnabled(boolean)} was called.
+ */
+public class PhaseStatistics {
+	private static final Logger log = Logger.getLogger(PhaseStatistics.class);
+
+	private static volatile boolean enabled;
+	private static final ConcurrentLinkedQueue<TileStats> finishedTiles = new ConcurrentLinkedQueue<>();
+	private static final ThreadLocal<Deque<TileStats>> currentTiles = ThreadLocal.withInitial(ArrayDeque::new);
+
+	private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+	private static final boolean cpuTimeSupported = threadBean.isCurrentThreadCpuTimeSupported();
+
+	/** returned when nothing is measured */
+	private static final Phase NO_PHASE = new Phase(null, null);
+
+	private static final int NUM_VALUES = 4;
+	private static final int COUNT = 0;
+	private static final int WALL = 1;
+	private static final int CPU = 2;
+	private static final int ALLOC = 3;
+
+	private PhaseStatistics() {
+	}
+
+	/**
+	 * Enable or disable the measurement. Enabling removes the results of a previous run.
+	 * @param b true: enable
+	 */
+	public static void setEnabled(boolean b) {
+		if (b) {
+			finishedTiles.clear();
+			if (cpuTimeSupported && !threadBean.isThreadCpuTimeEnabled())
+				threadBean.setThreadCpuTimeEnabled(true);
+		}
+		enabled = b;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Start to collect the values for a tile in the current thread. Calls may be nested,
+	 * e.g. for the overview map that is created together with the tile.
+	 * @param name the name of the tile
+	 */
+	public static void startTile(String name) {
+		if (enabled)
+			currentTiles.get().push(new TileStats(name));
+	}
+
+	/**
+	 * Finish the tile that was started last in the current thread.
+	 */
+	public static void endTile() {
+		if (!enabled)
+			return;
+		TileStats tile = currentTiles.get().poll();
+		if (tile != null)
+			finishedTiles.add(tile);
+	}
+
+	/**
+	 * Start to measure a phase of the current tile.
+	 * @param name the name of the phase
+	 * @return the phase which must be closed when the phase is finished
+	 */
+	public static Phase phase(String name) {
+		if (!enabled)
+			return NO_PHASE;
+		TileStats tile = currentTiles.get().peek();
+		if (tile == null)
+			return NO_PHASE;
+		return tile.startPhase(name);
+	}
+
+	private static long cpuTime() {
+		return cpuTimeSupported ? threadBean.getCurrentThreadCpuTime() : 0;
+	}
+
+	private static long allocatedBytes() {
+		if (threadBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+			if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+				return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+
+	/**
+	 * Write the collected values. The format is JSON if the file name ends with .json,
+	 * else CSV with one line per tile and phase.
+	 * @param fileName the name of the output file
+	 */
+	public static void writeReport(String fileName) {
+		List<TileStats> tiles = new ArrayList<>(finishedTiles);
+		tiles.sort((t1, t2) -> t1.name.compareTo(t2.name));
+		boolean json = fileName.endsWith(".json");
+		try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(fileName), StandardCharsets.UTF_8))) {
+			if (json)
+				writeJson(pw, tiles);
+			else
+				writeCsv(pw, tiles);
+		} catch (IOException e) {
+			log.error("Could not write phase statistics to " + fileName, e);
+			return;
+		}
+		log.info("Phase statistics for", tiles.size(), "tiles written to", fileName);
+	}
+
+	private static void writeCsv(PrintWriter pw, List<TileStats> tiles) {
+		pw.println("tile,phase,count,wall_ms,cpu_ms,allocated_bytes");
+		for (TileStats tile : tiles) {
+			for (Map.Entry<String, long[]> e : tile.phases.entrySet()) {
+				long[] v = e.getValue();
+				pw.println(csvValue(tile.name) + "," + csvValue(e.getKey()) + "," + v[COUNT] + ","
+						+ v[WALL] / 1_000_000 + "," + v[CPU] / 1_000_000 + "," + v[ALLOC]);
+			}
+		}
+	}
+
+	private static void writeJson(PrintWriter pw, List<TileStats> tiles) {
+		pw.println("{\"tiles\": [");
+		for (int i = 0; i < tiles.size(); i++) {
+			TileStats tile = tiles.get(i);
+			pw.println("  {\"tile\": " + jsonString(tile.name) + ", \"phases\": [");
+			int j = 0;
+			for (Map.Entry<String, long[]> e : tile.phases.entrySet()) {
+				long[] v = e.getValue();
+				pw.print("    {\"phase\": " + jsonString(e.getKey()) + ", \"count\": " + v[COUNT]
+						+ ", \"wall_ms\": " + v[WALL] / 1_000_000 + ", \"cpu_ms\": " + v[CPU] / 1_000_000
+						+ ", \"allocated_bytes\": " + v[ALLOC] + "}");
+				pw.println(++j < tile.phases.size() ? "," : "");
+			}
+			pw.println("  ]}" + (i + 1 < tiles.size() ? "," : ""));
+		}
+		pw.println("]}");
+	}
+
+	private static String csvValue(String s) {
+		return s.replace('"', '_').replace(',', '_');
+	}
+
+	/**
+	 * @return The string as JSON string literal, with quotes.
+	 */
+	static String jsonString(String s) {
+		StringBuilder sb = new StringBuilder(s.length() + 2);
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20)
+					sb.append(String.format("\\u%04x", (int) c));
+				else
+					sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	/**
+	 * The collected values of one tile.
+	 */
+	private static class TileStats {
+		private final String name;
+		private final Map<String, long[]> phases = new LinkedHashMap<>();
+		private Phase current;
+
+		TileStats(String name) {
+			this.name = name;
+		}
+
+		Phase startPhase(String phaseName) {
+			current = new Phase(this, phaseName);
+			return current;
+		}
+	}
+
+	/**
+	 * A running phase. The values are added to the tile when the phase is closed.
+	 */
+	public static class Phase implements AutoCloseable {
+		private final TileStats tile;
+		private final String name;
+		private final Phase parent;
+		private final long[] start = new long[NUM_VALUES];
+		// values of the nested phases
+		private final long[] nested = new long[NUM_VALUES];
+
+		private Phase(TileStats tile, String name) {
+			this.tile = tile;
+			this.name = name;
+			if (tile == null) {
+				parent = null;
+				return;
+			}
+			parent = tile.current;
+			start[WALL] = System.nanoTime();
+			start[CPU] = cpuTime();
+			start[ALLOC] = allocatedBytes();
+		}
+
+		@Override
+		public void close() {
+			if (tile == null)
+				return;
+			long[] used = new long[NUM_VALUES];
+			used[WALL] = System.nanoTime() - start[WALL];
+			used[CPU] = cpuTime() - start[CPU];
+			used[ALLOC] = allocatedBytes() - start[ALLOC];
+			long[] values = tile.phases.computeIfAbsent(name, k -> new long[NUM_VALUES]);
+			values[COUNT]++;
+			for (int i = WALL; i < NUM_VALUES; i++) {
+				values[i] += used[i] - nested[i];
+				if (parent != null)
+					parent.nested[i] += used[i];
+			}
+			tile.current = parent;
+		}
+	}
+}
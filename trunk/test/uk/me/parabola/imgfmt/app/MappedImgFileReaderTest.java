@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import uk.me.parabola.imgfmt.FileSystemParam;
+import uk.me.parabola.imgfmt.fs.FileSystem;
+import uk.me.parabola.imgfmt.fs.ImgChannel;
+import uk.me.parabola.imgfmt.sys.ImgFS;
+
+import func.lib.TestUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MappedImgFileReaderTest {
+	private static final String IMG_NAME = "test-mapped.img";
+
+	/**
+	 * Write a file with the given content into a new img file and read it
+	 * with both readers, the results must be the same.
+	 */
+	@Test
+	public void testSameAsBuffered() throws Exception {
+		// more than one block and some bytes
+		byte[] content = new byte[3 * 512 + 77];
+		Random random = new Random(42);
+		random.nextBytes(content);
+		for (int i = 100; i < content.length; i += 100)
+			content[i] = 0;
+
+		TestUtils.registerFile(IMG_NAME);
+		FileSystemParam params = new FileSystemParam();
+		params.setBlockSize(512);
+		try (FileSystem fs = ImgFS.createFs(IMG_NAME, params)) {
+			ImgChannel chan = fs.create("63240001.RGN");
+			// written when the file system is closed
+			ImgFileWriter writer = new BufferedImgFileWriter(chan, "RGN");
+			writer.put(content);
+		}
+
+		try (FileSystem fs = ImgFS.openFs(IMG_NAME)) {
+			ByteBuffer mapped = fs.open("63240001.RGN", "r").mapReadOnly();
+			assertNotNull("file is mapped", mapped);
+			assertEquals(content.length, mapped.limit());
+
+			try (ImgFileReader expected = new BufferedImgFileReader(fs.open("63240001.RGN", "r"));
+					ImgFileReader reader = MappedImgFileReader.create(fs.open("63240001.RGN", "r"))) {
+				assertTrue(reader instanceof MappedImgFileReader);
+				for (int i = 0; i < 2000; i++) {
+					// include positions near and after the end
+					long pos = random.nextInt(content.length + 8);
+					expected.position(pos);
+					reader.position(pos);
+					int op = random.nextInt(9);
+					switch (op) {
+					case 0: assertEquals(expected.get(), reader.get()); break;
+					case 1: assertEquals(expected.get2s(), reader.get2s()); break;
+					case 2: assertEquals(expected.get2u(), reader.get2u()); break;
+					case 3: assertEquals(expected.get3s(), reader.get3s()); break;
+					case 4: assertEquals(expected.get3u(), reader.get3u()); break;
+					case 5: assertEquals(expected.get4(), reader.get4()); break;
+					case 6: assertArrayEquals(expected.get(13), reader.get(13)); break;
+					case 7: assertArrayEquals(expected.getZString(), reader.getZString()); break;
+					default: assertEquals(expected.getNu(3), reader.getNu(3)); break;
+					}
+					assertEquals("position after op " + op, expected.position(), reader.position());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.dem;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DEMBitWriterTest {
+
+	@Test
+	public void testMsbFirst() {
+		DEMBitWriter bw = DEMBitWriter.get();
+		bw.putBit(true);
+		bw.put(0b01, 2);
+		bw.putZeros(60);
+		bw.put(0b101, 3);
+		assertArrayEquals(new byte[] { (byte) 0xa0, 0, 0, 0, 0, 0, 0, 0x01, 0x40 }, bw.toByteArray());
+		// the writer is empty again
+		assertEquals(0, DEMBitWriter.get().toByteArray().length);
+	}
+
+	/**
+	 * Compare with writing single bits.
+	 */
+	@Test
+	public void testSameAsSingleBits() {
+		Random r = new Random(3);
+		DEMBitWriter bw = DEMBitWriter.get();
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			int n = r.nextInt(DEMBitWriter.MAX_BITS + 1);
+			long v = n == 0 ? 0 : r.nextLong() >>> (64 - n);
+			bw.put(v, n);
+			for (int k = n - 1; k >= 0; k--)
+				sb.append((v >>> k & 1) != 0 ? '1' : '0');
+		}
+		while (sb.length() % 8 != 0)
+			sb.append('0');
+		byte[] res = bw.toByteArray();
+		assertEquals(sb.length() / 8, res.length);
+		for (int i = 0; i < res.length; i++)
+			assertEquals(Integer.parseInt(sb.substring(i * 8, i * 8 + 8), 2), res[i] & 0xff);
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.labelenc;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LabelDictionaryTest {
+
+	@Test
+	public void testSameResultAsEncoder() {
+		LabelDictionary dict = LabelDictionary.forEncoding("test/format6");
+		EncodedText expected = new Format6Encoder().encodeText("HIGH STREET");
+
+		EncodedText first = dict.encode("HIGH STREET", new Format6Encoder());
+		assertEquals(expected, first);
+		assertSame(first, dict.encode("HIGH STREET", new Format6Encoder()));
+	}
+
+	@Test
+	public void testEncodingsAreSeparate() {
+		LabelDictionary dict = LabelDictionary.forEncoding("test/format6");
+		assertSame(dict, LabelDictionary.forEncoding("test/format6"));
+		assertNotSame(dict, LabelDictionary.forEncoding("test/utf8"));
+
+		Format6Encoder upper = new Format6Encoder();
+		upper.setUpperCase(true);
+		EncodedText u = LabelDictionary.forEncoding("test/format6/upper").encode("Main", upper);
+		assertEquals(upper.encodeText("Main"), u);
+	}
+
+	@Test
+	public void testCanonical() {
+		String a = new String("Church Road");
+		String b = new String("Church Road");
+		assertSame(LabelDictionary.canonical(a), LabelDictionary.canonical(b));
+		assertNull(LabelDictionary.canonical(null));
+	}
+}
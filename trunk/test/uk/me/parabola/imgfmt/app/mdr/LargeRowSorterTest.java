@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.mdr;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import uk.me.parabola.imgfmt.app.srt.Sort;
+import uk.me.parabola.imgfmt.app.srt.SortKey;
+import uk.me.parabola.mkgmap.srt.SrtTextReader;
+
+import org.junit.Test;
+
+public class LargeRowSorterTest {
+	private static final String[] NAMES = {"Zeta", "alpha", "Beta", "Älpha", "gamma", "Alpha"};
+
+	/**
+	 * Enough rows so that the chunks are merged. Rows with the same key must
+	 * stay in their order.
+	 */
+	@Test
+	public void testStableMerge() {
+		Sort sort = SrtTextReader.sortForCodepage(1252);
+		LargeRowSorter sorter = new LargeRowSorter(sort) {
+			@Override
+			protected SortKey<Void> makeKey(int row, Sort sort, Map<String, byte[]> cache) {
+				return sort.createSortKey(null, NAMES[row % NAMES.length], 0, cache);
+			}
+		};
+		int n = 1_200_003;
+		int[] rows = new int[n + 2];
+		for (int i = 0; i < n; i++)
+			rows[i + 1] = n - 1 - i;
+		rows[0] = -1;
+		rows[n + 1] = -1;
+		sorter.sort(rows, 1, n);
+
+		assertTrue(rows[0] == -1 && rows[n + 1] == -1);
+		for (int i = 2; i <= n; i++) {
+			SortKey<Void> k1 = sorter.makeKey(rows[i - 1], sort, null);
+			SortKey<Void> k2 = sorter.makeKey(rows[i], sort, null);
+			int cmp = k1.compareTo(k2);
+			assertTrue(cmp < 0 || cmp == 0 && rows[i - 1] > rows[i]);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.mdr;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class Mdr7StoreTest {
+
+	@Test
+	public void testDuplicatesPerMap() {
+		Mdr7Store store = new Mdr7Store(Long.MAX_VALUE, null);
+		Mdr5Record city = new Mdr5Record();
+		assertTrue(store.add(1, 10, 20, "Main Street", city, 0, 0, 0, 0));
+		assertFalse(store.add(1, 10, 20, "Main Street", city, 0, 0, 0, 0));
+		// different offset into the name or city
+		assertTrue(store.add(1, 10, 20, "Main Street", city, 5, 5, 0, 0));
+		assertTrue(store.add(1, 10, 20, "Main Street", null, 0, 0, 0, 0));
+		// same values for the next map
+		assertTrue(store.add(2, 10, 20, "Main Street", city, 0, 0, 0, 0));
+		assertFalse(store.add(2, 10, 20, "Main Street", city, 0, 0, 0, 0));
+		assertEquals(4, store.size());
+
+		Mdr7Record r = new Mdr7Record(store, 1);
+		assertEquals(1, r.getMapIndex());
+		assertEquals(10, r.getLabelOffset());
+		assertEquals(20, r.getStringOffset());
+		assertSame(city, r.getCity());
+		assertEquals("Street", r.getPartialName());
+		assertEquals("Main ", r.getInitialPart());
+		assertNull(new Mdr7Record(store, 2).getCity());
+		assertEquals(2, new Mdr7Record(store, 3).getMapIndex());
+	}
+
+	@Test
+	public void testPrefixAndSuffix() {
+		Mdr7Store store = new Mdr7Store(Long.MAX_VALUE, null);
+		String name = "Rue\u001ede la Gare\u001fX";
+		store.add(1, 1, 1, name, null, 0, 0, 4, 14);
+		Mdr7Record r = new Mdr7Record(store, 0);
+		assertEquals("Rue\u001e", r.getPrefix());
+		assertEquals("\u001fX", r.getSuffix());
+		assertEquals("de la Gare", r.getPartialName());
+	}
+
+	@Test
+	public void testSpilled() {
+		Mdr7Store store = new Mdr7Store(0, null);
+		int n = 100_000;
+		for (int i = 0; i < n; i++) {
+			assertTrue(store.add(1 + i / 1000, i, i * 2, "Street " + (i % 100), null, 0, i & 0x7f, 0, 0));
+			assertFalse(store.add(1 + i / 1000, i, i * 2, "Street " + (i % 100), null, 0, i & 0x7f, 0, 0));
+		}
+		store.trim();
+		for (int i = 0; i < n; i++)
+			store.setIndex(i, n - i);
+		store.close();
+		assertEquals(n, store.size());
+		for (int i = 0; i < n; i += 997) {
+			Mdr7Record r = new Mdr7Record(store, i);
+			assertEquals(1 + i / 1000, r.getMapIndex());
+			assertEquals(i, r.getLabelOffset());
+			assertEquals(i * 2, r.getStringOffset());
+			assertEquals("Street " + (i % 100), r.getName());
+			assertEquals(i & 0x7f, r.getOutNameOffset());
+			assertEquals(n - i, r.getIndex());
+		}
+	}
+}
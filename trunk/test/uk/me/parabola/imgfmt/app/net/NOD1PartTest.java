@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.me.parabola.imgfmt.app.CoordNode;
+
+public class NOD1PartTest {
+	private static final int SIZE = 64;
+
+	/**
+	 * The halves of a part are subdivided in parallel when no restriction
+	 * uses arcs of the other half. The centres must be the same as when all
+	 * is done sequentially.
+	 */
+	@Test
+	public void testParallelSameAsSequential() {
+		String sequential = subdivide(Integer.MAX_VALUE);
+		String parallel = subdivide(1);
+		assertTrue(sequential.split("\n").length > SIZE * SIZE);
+		assertEquals(sequential, parallel);
+	}
+
+	/**
+	 * Create a grid of roads with some restrictions over three arcs and
+	 * subdivide it.
+	 * @return the nodes, arcs and tables of all centres
+	 */
+	private static String subdivide(int minNodesForParallel) {
+		Random rnd = new Random(7);
+		RouteNode[][] nodes = new RouteNode[SIZE][SIZE];
+		for (int r = 0; r < SIZE; r++) {
+			for (int c = 0; c < SIZE; c++) {
+				int id = r * SIZE + c + 1;
+				nodes[r][c] = new RouteNode(new CoordNode(r * 60, c * 60, id, false, false));
+			}
+		}
+		// arcs to the next node east and north and back
+		RouteArc[][][] arcs = new RouteArc[4][SIZE][SIZE];
+		for (int r = 0; r < SIZE; r++) {
+			RoadDef row = new RoadDef(r + 1, "row");
+			row.setRoadClass(r % 3);
+			RoadDef col = new RoadDef(SIZE + r + 1, "col");
+			col.setRoadClass(0);
+			for (int c = 0; c + 1 < SIZE; c++) {
+				connect(row, nodes[r][c], nodes[r][c + 1], arcs, 0, r, c);
+				connect(col, nodes[c][r], nodes[c + 1][r], arcs, 2, c, r);
+			}
+		}
+		// no way from the west to the east over the next two nodes, or the same from the south
+		for (int r = 1; r + 2 < SIZE; r++) {
+			for (int c = 1; c + 2 < SIZE; c++) {
+				if (rnd.nextInt(30) != 0)
+					continue;
+				RouteNode via = nodes[r][c];
+				List<RouteArc> restrArcs;
+				if (rnd.nextBoolean())
+					restrArcs = Arrays.asList(arcs[1][r][c], arcs[0][r][c], arcs[0][r][c + 1]);
+				else
+					restrArcs = Arrays.asList(arcs[3][r][c], arcs[2][r][c], arcs[2][r + 1][c]);
+				via.addRestriction(new RouteRestriction(via, restrArcs, (byte) 0));
+			}
+		}
+
+		NOD1Part part = new NOD1Part();
+		part.setMinNodesForParallel(minNodesForParallel);
+		for (RouteNode[] row : nodes)
+			for (RouteNode node : row)
+				part.addNode(node);
+		List<RouteCenter> centers = part.subdivide();
+		assertTrue(centers.size() > 2);
+
+		StringBuilder sb = new StringBuilder();
+		for (RouteCenter center : centers) {
+			TableA tabA = center.getTableA();
+			TableB tabB = center.getTableB();
+			sb.append("center ").append(center.getArea()).append(' ').append(tabA.size()).append(' ')
+					.append(tabB.size()).append('\n');
+			for (RouteNode node : center.getNodes()) {
+				sb.append(node.getCoord().getId()).append(':');
+				for (RouteArc arc : node.arcsIteration())
+					appendArc(sb, arc, tabA, tabB);
+				for (RouteRestriction rr : node.getRestrictions()) {
+					sb.append(" restr");
+					for (RouteArc arc : rr.getArcs()) {
+						if (arc.getSource() != node)
+							appendArc(sb, arc, tabA, tabB);
+					}
+				}
+				sb.append('\n');
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Add the arc from n1 to n2 and the reverse arc. They are saved in
+	 * arcs[dir] and arcs[dir + 1] at the position of their source.
+	 */
+	private static void connect(RoadDef rd, RouteNode n1, RouteNode n2, RouteArc[][][] arcs, int dir, int r, int c) {
+		RouteArc arc = new RouteArc(rd, n1, n2, 0, 0, 10, 10, 10, 0);
+		RouteArc reverseArc = new RouteArc(rd, n2, n1, 180, 180, 10, 10, 10, 0);
+		n1.addArc(arc);
+		n2.addArc(reverseArc);
+		arc.setReverseArc(reverseArc);
+		reverseArc.setReverseArc(arc);
+		arcs[dir][r][c] = arc;
+		if (dir == 0)
+			arcs[1][r][c + 1] = reverseArc;
+		else
+			arcs[3][r + 1][c] = reverseArc;
+	}
+
+	private static void appendArc(StringBuilder sb, RouteArc arc, TableA tabA, TableB tabB) {
+		sb.append(' ').append(arc.getRoadDef().getId()).append('/').append(arc.getSource().getCoord().getId())
+				.append('>').append(arc.getDest().getCoord().getId()).append(" a=").append(tabA.getIndex(arc));
+		if (arc.isInternal())
+			sb.append(" int");
+		else
+			sb.append(" b=").append(tabB.getIndex(arc.getDest()));
+	}
+}
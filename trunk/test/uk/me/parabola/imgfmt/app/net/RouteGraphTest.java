@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package uk.me.parabola.imgfmt.app.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.me.parabola.imgfmt.app.CoordNode;
+
+public class RouteGraphTest {
+
+	private static RouteNode createNode(int id) {
+		return new RouteNode(new CoordNode(id * 100, id * 100, id, false, false));
+	}
+
+	private static void connect(RoadDef rd, RouteNode n1, RouteNode n2) {
+		RouteArc arc = new RouteArc(rd, n1, n2, 0, 0, 10, 10, 10, 0);
+		RouteArc reverseArc = new RouteArc(rd, n2, n1, 180, 180, 10, 10, 10, 0);
+		n1.addArc(arc);
+		n2.addArc(reverseArc);
+		arc.setReverseArc(reverseArc);
+		reverseArc.setReverseArc(arc);
+	}
+
+	@Test
+	public void testConnectedParts() {
+		List<RouteNode> nodes = new ArrayList<>();
+		for (int i = 0; i < 7; i++)
+			nodes.add(createNode(i + 1));
+		RoadDef rd = new RoadDef(1, "test");
+		rd.setRoadClass(0);
+		// parts: 0-3-5, 1-2, 4, 6-1 joins 1-2
+		connect(rd, nodes.get(0), nodes.get(3));
+		connect(rd, nodes.get(3), nodes.get(5));
+		connect(rd, nodes.get(1), nodes.get(2));
+		connect(rd, nodes.get(6), nodes.get(1));
+
+		RouteGraph graph = new RouteGraph(nodes);
+		assertEquals(7, graph.numNodes());
+		assertEquals(8, graph.numArcs());
+		List<int[]> parts = graph.getConnectedParts();
+		assertEquals(3, parts.size());
+		assertArrayEquals(new int[] { 0, 3, 5 }, parts.get(0));
+		assertArrayEquals(new int[] { 1, 2, 6 }, parts.get(1));
+		assertArrayEquals(new int[] { 4 }, parts.get(2));
+		assertEquals(nodes.get(6), graph.getNode(6));
+	}
+
+	/**
+	 * Compare with a simple search in a graph that is big enough to be searched in parallel.
+	 */
+	@Test
+	public void testManyParts() {
+		Random r = new Random(11);
+		List<RouteNode> nodes = new ArrayList<>();
+		for (int i = 0; i < 30000; i++)
+			nodes.add(createNode(i + 1));
+		RoadDef rd = new RoadDef(1, "test");
+		rd.setRoadClass(0);
+		for (int i = 0; i < 25000; i++)
+			connect(rd, nodes.get(r.nextInt(nodes.size())), nodes.get(r.nextInt(nodes.size())));
+
+		RouteGraph graph = new RouteGraph(nodes);
+		List<int[]> parts = graph.getConnectedParts();
+		int[] expectedPart = new int[nodes.size()];
+		Arrays.fill(expectedPart, -1);
+		int numParts = 0;
+		for (int first = 0; first < nodes.size(); first++) {
+			if (expectedPart[first] >= 0)
+				continue;
+			List<RouteNode> queue = new ArrayList<>();
+			queue.add(nodes.get(first));
+			expectedPart[first] = numParts;
+			for (int pos = 0; pos < queue.size(); pos++) {
+				for (RouteArc arc : queue.get(pos).getArcs()) {
+					int dest = arc.getDest().getGraphIndex();
+					if (expectedPart[dest] < 0) {
+						expectedPart[dest] = numParts;
+						queue.add(arc.getDest());
+					}
+				}
+			}
+			numParts++;
+		}
+		assertEquals(numParts, parts.size());
+		int count = 0;
+		for (int k = 0; k < parts.size(); k++) {
+			int[] part = parts.get(k);
+			for (int j = 0; j < part.length; j++) {
+				assertEquals(k, expectedPart[part[j]]);
+				assertTrue(j == 0 || part[j - 1] < part[j]);
+			}
+			count += part.length;
+		}
+		assertEquals(nodes.size(), count);
+	}
+}
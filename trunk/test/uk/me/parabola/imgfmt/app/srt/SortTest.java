@@ -14,6 +14,7 @@
 package uk.me.parabola.imgfmt.app.srt;
 
 import java.text.Collator;
+import java.util.Arrays;
 
 import uk.me.parabola.mkgmap.srt.SrtTextReader;
 
@@ -171,6 +172,27 @@ public class SortTest {
 		assertEquals(1, keyCompare("øþõ Ñ", "õþO"));
 	}
 
+	@Test
+	public void testLongNames() {
+		checkOrdered("Bahnhofstrasse", "Bahnhofstraße");
+		checkOrdered("Abcdefghij", "Abcdefghik");
+		checkOrdered("Abcdefghij", "Abcdefghijk");
+		checkOrdered("Abcdefgh", "Abcdefgi");
+	}
+
+	@Test
+	public void testFillSortKey() {
+		String s = "Hauptstraße 1";
+		char[] chars = sort.encode(s);
+		byte[] buf = new byte[sort.maxKeyLength(chars.length)];
+		int len = sort.fillSortKey(chars, chars.length, buf);
+		assertTrue(len > 0);
+
+		SortKey<Object> filled = new SrtSortKey<>(null, Arrays.copyOf(buf, len));
+		assertEquals(0, filled.compareTo(sort.createSortKey(null, s)));
+		assertEquals(-1, sort.fillSortKey(chars, chars.length, new byte[4]));
+	}
+
 	private int keyCompare(String s1, String s2) {
 		SortKey<Object> k1 = sort.createSortKey(null, s1);
 		SortKey<Object> k2 = sort.createSortKey(null, s2);
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AsyncHandlerTest {
+
+	private static class Collector extends Handler {
+		private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+		private boolean closed;
+
+		Collector() {
+			setFormatter(new UsefulFormatter());
+		}
+
+		public void publish(LogRecord record) {
+			messages.add(record.getMessage());
+		}
+
+		public void flush() {
+		}
+
+		public void close() {
+			closed = true;
+		}
+	}
+
+	@Test
+	public void testAllWrittenInOrder() {
+		Collector target = new Collector();
+		// small, so that the logging thread has to wait
+		AsyncHandler handler = new AsyncHandler(target, 4);
+		for (int i = 0; i < 1000; i++)
+			handler.publish(new LogRecord(Level.INFO, "message " + i));
+		handler.flush();
+
+		assertEquals(1000, target.messages.size());
+		for (int i = 0; i < 1000; i++)
+			assertEquals("message " + i, target.messages.get(i));
+		handler.close();
+		assertTrue(target.closed);
+	}
+
+	@Test
+	public void testClose() {
+		Collector target = new Collector();
+		AsyncHandler handler = new AsyncHandler(target, 100);
+		handler.setLevel(Level.WARNING);
+		handler.publish(new LogRecord(Level.INFO, "not logged"));
+		handler.publish(new LogRecord(Level.WARNING, "first"));
+		handler.publish(new LogRecord(Level.SEVERE, "second"));
+		handler.close();
+		handler.publish(new LogRecord(Level.SEVERE, "after close"));
+
+		assertEquals(2, target.messages.size());
+		assertEquals("first", target.messages.get(0));
+		assertEquals("second", target.messages.get(1));
+	}
+}
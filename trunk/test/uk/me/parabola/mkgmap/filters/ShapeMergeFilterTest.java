@@ -386,4 +386,38 @@ public class ShapeMergeFilterTest {
 		testVariants("test-repeated-different", points1, points2, 1, 9);   
 	}
 
+	/**
+	 * Two rows of adjacent squares with different types, enough to
+	 * merge the groups in parallel. Each row should be merged into one shape.
+	 */
+	@Test
+	public void testManyAdjacentShapes(){
+		final int numSquares = 1200;
+		final int size = 8;
+		List<MapShape> shapes = new ArrayList<>();
+		for (int row = 0; row < 2; row++) {
+			List<Coord> lower = new ArrayList<>();
+			List<Coord> upper = new ArrayList<>();
+			for (int i = 0; i <= numSquares; i++) {
+				lower.add(Coord.makeHighPrecCoord(row * size, i * size));
+				upper.add(Coord.makeHighPrecCoord(row * size + size, i * size));
+			}
+			for (int i = 0; i < numSquares; i++) {
+				MapShape s = new MapShape(i + 1 + row * numSquares);
+				s.setType(row + 1);
+				s.setMinResolution(24);
+				s.setPoints(Arrays.asList(lower.get(i), upper.get(i), upper.get(i + 1), lower.get(i + 1), lower.get(i)));
+				shapes.add(s);
+			}
+		}
+		Collections.shuffle(shapes, new java.util.Random(42));
+		ShapeMergeFilter smf = new ShapeMergeFilter(-1, false);
+		List<MapShape> res = smf.merge(shapes);
+		assertEquals(2, res.size());
+		for (MapShape s : res) {
+			assertEquals(2L * numSquares * size * size, Math.abs(ShapeMergeFilter.calcAreaSizeTestVal(s.getPoints())));
+		}
+		assertEquals(1, res.get(0).getType());
+		assertEquals(2, res.get(1).getType());
+	}
 }
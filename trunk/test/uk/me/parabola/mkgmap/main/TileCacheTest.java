@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.me.parabola.mkgmap.CommandArgs;
+import uk.me.parabola.util.EnhancedProperties;
+
+import static org.junit.Assert.*;
+
+public class TileCacheTest {
+	private File dir;
+	private File input;
+	private TileCache cache;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = Files.createTempDirectory("tilecache").toFile();
+		input = new File(dir, "input.osm");
+		write(input, "<osm/>");
+		cache = new TileCache(new File(dir, "cache").getPath());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.walk(dir.toPath()).sorted((p1, p2) -> p2.compareTo(p1)).forEach(p -> p.toFile().delete());
+	}
+
+	private static void write(File f, String content) throws IOException {
+		Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String key(EnhancedProperties props) throws IOException {
+		return cache.calcKey(new CommandArgs(props), input.getPath(), true);
+	}
+
+	@Test
+	public void testKeyChanges() throws IOException {
+		EnhancedProperties props = new EnhancedProperties();
+		props.setProperty("mapname", "63240001");
+		String key = key(props);
+		assertEquals(key, key(props));
+
+		// options that don't change the tile
+		props.setProperty("max-jobs", "4");
+		props.setProperty("output-dir", dir.getPath());
+		assertEquals(key, key(props));
+
+		// normal options
+		props.setProperty("route", "");
+		String routeKey = key(props);
+		assertNotEquals(key, routeKey);
+
+		// the input file
+		write(input, "<osm></osm>");
+		assertNotEquals(routeKey, key(props));
+	}
+
+	@Test
+	public void testFilesInOptions() throws IOException {
+		File style = new File(dir, "style");
+		write(style, "highway=primary [0x01]");
+		EnhancedProperties props = new EnhancedProperties();
+		props.setProperty("style-file", style.getPath());
+		String key = key(props);
+
+		// the fingerprint of a file is only calculated once per run
+		write(style, "highway=primary [0x02 resolution 20]");
+		assertEquals(key, key(props));
+		TileCache newRun = new TileCache(new File(dir, "cache").getPath());
+		assertNotEquals(key, newRun.calcKey(new CommandArgs(props), input.getPath(), true));
+	}
+}
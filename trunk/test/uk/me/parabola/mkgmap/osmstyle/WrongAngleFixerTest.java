@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.osmstyle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import uk.me.parabola.imgfmt.app.Coord;
+import uk.me.parabola.mkgmap.general.LevelInfo;
+import uk.me.parabola.mkgmap.reader.osm.FeatureKind;
+import uk.me.parabola.mkgmap.reader.osm.GType;
+import uk.me.parabola.mkgmap.reader.osm.Way;
+
+public class WrongAngleFixerTest {
+
+	/**
+	 * The parallel check of the centres must give the same result as the
+	 * sequential one. The network is dense, so there are many centres that
+	 * overlap or share points.
+	 */
+	@Test
+	public void testParallelSameAsSequential() {
+		String sequential = optimize(Integer.MAX_VALUE);
+		String parallel = optimize(1);
+		assertEquals(sequential, parallel);
+	}
+
+	/**
+	 * Create the network and run the fixer with the given threshold.
+	 * @return the points of all ways, the shared instances numbered, and the
+	 * modified and deleted roads
+	 */
+	private static String optimize(int minCentersForParallel) {
+		Random rnd = new Random(42);
+		GType roadType = new GType(FeatureKind.POLYLINE, "0x06");
+		roadType.setRoadClass(2);
+		roadType.fixLevels(new LevelInfo[] {new LevelInfo(0, 24)});
+		GType lineType = new GType(FeatureKind.POLYLINE, "0x1c");
+		lineType.fixLevels(new LevelInfo[] {new LevelInfo(0, 24)});
+
+		List<Coord> nodes = new ArrayList<>();
+		List<ConvertedWay> roads = new ArrayList<>();
+		List<ConvertedWay> lines = new ArrayList<>();
+		int numPoints = 0;
+		for (int id = 1; id <= 3000; id++) {
+			List<Coord> points = new ArrayList<>();
+			double lat = 51 + rnd.nextDouble() * 0.02;
+			double lon = rnd.nextDouble() * 0.02;
+			int len = 3 + rnd.nextInt(12);
+			for (int i = 0; i < len; i++) {
+				Coord p;
+				int r = rnd.nextInt(10);
+				if (r == 0 && !nodes.isEmpty()) {
+					// shared with another way
+					p = nodes.get(rnd.nextInt(nodes.size()));
+				} else if (r == 1 && points.size() > 1) {
+					// used twice in the way
+					p = points.get(rnd.nextInt(points.size() - 1));
+				} else {
+					// steps of about one map unit, so that rounding gives bad angles
+					lat += (rnd.nextDouble() - 0.5) * 0.00006;
+					lon += (rnd.nextDouble() - 0.5) * 0.00006;
+					p = new Coord(lat, lon);
+					nodes.add(p);
+				}
+				if (!points.isEmpty() && points.get(points.size() - 1) == p)
+					continue;
+				points.add(p);
+			}
+			if (points.size() < 2)
+				continue;
+			numPoints += points.size();
+			Way w = new Way(id, points);
+			if (id % 3 == 0)
+				lines.add(new ConvertedWay(w, lineType));
+			else
+				roads.add(new ConvertedWay(w, roadType));
+		}
+		for (ConvertedWay cw : roads)
+			cw.getPoints().forEach(Coord::incHighwayCount);
+		for (ConvertedWay cw : roads) {
+			cw.getPoints().get(0).setEndOfWay(true);
+			cw.getPoints().get(cw.getPoints().size() - 1).setEndOfWay(true);
+		}
+		assertTrue(numPoints > 20000);
+
+		Map<Long, ConvertedWay> modifiedRoads = new HashMap<>();
+		Set<Long> deletedRoads = new HashSet<>();
+		WrongAngleFixer fixer = new WrongAngleFixer(null);
+		fixer.setMinCentersForParallel(minCentersForParallel);
+		fixer.optimizeWays(roads, lines, modifiedRoads, deletedRoads, new ArrayList<>(), new HashSet<>());
+
+		StringBuilder sb = new StringBuilder();
+		Map<Coord, Integer> numbers = new IdentityHashMap<>();
+		List<ConvertedWay> all = new ArrayList<>(roads);
+		all.addAll(lines);
+		int changed = 0;
+		for (ConvertedWay cw : all) {
+			if (cw == null)
+				continue;
+			sb.append(cw.getWay().getId()).append(':');
+			for (Coord p : cw.getPoints()) {
+				Integer n = numbers.computeIfAbsent(p, k -> numbers.size());
+				sb.append(' ').append(n).append('/').append(p.getHighPrecLat()).append(',').append(p.getHighPrecLon());
+			}
+			sb.append('\n');
+		}
+		for (Coord p : nodes) {
+			if (p.isReplaced() || p.isToRemove())
+				changed++;
+		}
+		// the fixer must have done something
+		assertTrue(changed > 100);
+		sb.append("modified ").append(new TreeMap<>(modifiedRoads).keySet()).append('\n');
+		sb.append("deleted ").append(new TreeSet<>(deletedRoads)).append('\n');
+		return sb.toString();
+	}
+}
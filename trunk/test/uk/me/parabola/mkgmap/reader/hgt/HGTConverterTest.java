@@ -14,6 +14,16 @@ package uk.me.parabola.mkgmap.reader.hgt;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Test;
 
 import uk.me.parabola.imgfmt.app.Area;
@@ -100,5 +110,62 @@ public class HGTConverterTest {
 		assertEquals(308, hgtConverter.getElevation(lat32, lon32));
 		
 	}
-	
-} 
+
+	/**
+	 * The heights of a tile must not depend on the order in which the points
+	 * are calculated, the columns interpolated for one row are cached.
+	 */
+	@Test
+	public void testBicubicSameInAnyOrder() throws Exception {
+		File dir = Files.createTempDirectory("hgt").toFile();
+		try {
+			Random r = new Random(5);
+			for (String name : new String[] { "N51E000", "N51E001", "N52E000", "N52E001" })
+				writeHgt(new File(dir, name + ".hgt"), 121, r);
+			Area bbox = new Area(51.5, 0.5, 52.5, 1.5);
+			HGTConverter conv1 = new HGTConverter(dir.getPath(), bbox, null, DEMFile.EXTRA);
+			HGTConverter conv2 = new HGTConverter(dir.getPath(), bbox, null, DEMFile.EXTRA);
+			for (int dist : new int[] { 3000, 20000, 50000 }) {
+				for (HGTConverter conv : new HGTConverter[] { conv1, conv2 }) {
+					conv.setInterpolationMethod(HGTConverter.InterpolationMethod.BICUBIC);
+					conv.startNewLevel(dist);
+				}
+				int lat32 = (int) (52.4 / HGTConverter.FACTOR);
+				int lon32 = (int) (0.6 / HGTConverter.FACTOR);
+				int width = 150;
+				int height = 120;
+				short[] heights = conv1.getHeights(lat32, lon32, height, width);
+				List<Integer> order = new ArrayList<>();
+				for (int i = 0; i < heights.length; i++)
+					order.add(i);
+				Collections.shuffle(order, r);
+				for (int i : order) {
+					short h = conv2.getElevation(lat32 - (i / width) * dist, lon32 + (i % width) * dist);
+					assertEquals(h, heights[i]);
+				}
+			}
+		} finally {
+			for (File f : dir.listFiles())
+				f.delete();
+			dir.delete();
+		}
+	}
+
+	/**
+	 * Write a hgt file with some hills and some voids.
+	 */
+	private static void writeHgt(File f, int size, Random r) throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(2 * size * size);
+		double fx = r.nextDouble() * 0.3;
+		double fy = r.nextDouble() * 0.3;
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				short h = (short) (500 + 400 * Math.sin(x * fx) * Math.cos(y * fy) + r.nextInt(20));
+				buf.putShort(r.nextInt(200) == 0 ? HGTReader.UNDEF : h);
+			}
+		}
+		try (FileOutputStream os = new FileOutputStream(f)) {
+			os.write(buf.array());
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.me.parabola.imgfmt.app.Coord;
+
+import static org.junit.Assert.*;
+
+public class ClosedWayIndexTest {
+
+	private static Way square(long id, double lat, double lon, double size) {
+		Coord first = new Coord(lat, lon);
+		return new Way(id, new ArrayList<>(Arrays.asList(first, new Coord(lat, lon + size),
+				new Coord(lat + size, lon + size), new Coord(lat + size, lon), first)));
+	}
+
+	@Test
+	public void testSameAsContainsPointsOf() {
+		Random r = new Random(1);
+		List<Way> ways = new ArrayList<>();
+		for (int i = 0; i < 500; i++)
+			ways.add(square(i, 51 + r.nextDouble() * 0.1, r.nextDouble() * 0.1, r.nextDouble() * 0.05));
+		ClosedWayIndex index = new ClosedWayIndex(ways);
+		for (Way other : ways) {
+			List<Way> expected = new ArrayList<>();
+			for (Way w : ways) {
+				if (w.containsPointsOf(other))
+					expected.add(w);
+				assertEquals(w.containsPointsOf(other), index.contains(w, other));
+			}
+			assertEquals(expected, index.getContaining(other));
+		}
+		// not in the index
+		Way small = square(1000, 51.05, 0.05, 0.0001);
+		for (Way w : index.getContaining(small))
+			assertTrue(w.containsPointsOf(small));
+		assertTrue(new ClosedWayIndex(new ArrayList<>()).getContaining(small).isEmpty());
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.me.parabola.imgfmt.app.Area;
+import uk.me.parabola.imgfmt.app.Coord;
+
+import static org.junit.Assert.*;
+
+public class CoastlineIndexTest {
+
+	private static List<Coord> ring(Random rnd, double lat, double lon, int n) {
+		List<Coord> points = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			double a = 2 * Math.PI * i / n;
+			points.add(new Coord(lat + 0.01 * Math.sin(a) + rnd.nextDouble() * 1e-5, lon + 0.01 * Math.cos(a)));
+		}
+		points.add(points.get(0));
+		return points;
+	}
+
+	@Test
+	public void testSameAsLinearSearch() {
+		Random rnd = new Random(7);
+		CoastlineIndex.Builder builder = new CoastlineIndex.Builder();
+		List<List<Coord>> all = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			List<Coord> points = ring(rnd, 40 + rnd.nextDouble() * 10, -5 + rnd.nextDouble() * 10, 3 + rnd.nextInt(10));
+			if (i % 10 == 0)
+				points.remove(points.size() - 1); // not closed
+			all.add(points);
+			builder.add(i + 1, points);
+		}
+		CoastlineIndex index = builder.build();
+		assertEquals(1000, index.size());
+
+		for (int q = 0; q < 50; q++) {
+			Coord c = new Coord(40 + rnd.nextDouble() * 10, -5 + rnd.nextDouble() * 10);
+			int size = 100 + rnd.nextInt(20000);
+			Area bbox = new Area(c.getLatitude(), c.getLongitude(), c.getLatitude() + size, c.getLongitude() + size);
+
+			List<Way> ways = index.getWays(bbox);
+			int found = 0;
+			for (int i = 0; i < all.size(); i++) {
+				List<Coord> points = all.get(i);
+				if (!Area.getBBox(points).intersects(bbox))
+					continue;
+				Way w = ways.get(found++);
+				assertEquals(i + 1, w.getOriginalId());
+				assertEquals("coastline", w.getTag("natural"));
+				assertEquals(points.size(), w.getPoints().size());
+				for (int j = 0; j < points.size(); j++) {
+					Coord p = w.getPoints().get(j);
+					assertEquals(points.get(j).getLatitude(), p.getLatitude());
+					assertEquals(points.get(j).getLongitude(), p.getLongitude());
+					assertEquals(points.get(j).getHighPrecLat(), p.getHighPrecLat());
+					assertEquals(points.get(j).getHighPrecLon(), p.getHighPrecLon());
+					assertNotSame(points.get(j), p);
+				}
+				assertEquals(i % 10 != 0, w.hasIdenticalEndPoints());
+			}
+			assertEquals(found, ways.size());
+		}
+	}
+
+	@Test
+	public void testSharedPoints() {
+		Coord a = new Coord(50.0, 1.0);
+		Coord b = new Coord(50.01, 1.01);
+		Coord c = new Coord(50.02, 1.0);
+		Coord d = new Coord(50.03, 1.01);
+		CoastlineIndex.Builder builder = new CoastlineIndex.Builder();
+		builder.add(1, Arrays.asList(a, b, c));
+		// shares c with the first way, same position as a but another instance
+		builder.add(2, Arrays.asList(c, d, new Coord(50.0, 1.0)));
+		// closed
+		builder.add(3, Arrays.asList(d, b, c, d));
+		CoastlineIndex index = builder.build();
+
+		List<Way> ways = index.getWays(Area.getBBox(Arrays.asList(a, d)));
+		assertEquals(3, ways.size());
+		List<Coord> w1 = ways.get(0).getPoints();
+		List<Coord> w2 = ways.get(1).getPoints();
+		List<Coord> w3 = ways.get(2).getPoints();
+		assertSame(w1.get(2), w2.get(0));
+		assertNotSame(w1.get(0), w2.get(2));
+		assertSame(w1.get(1), w3.get(1));
+		assertSame(w2.get(1), w3.get(0));
+		assertSame(w3.get(0), w3.get(3));
+		assertSame(w1.get(2), w3.get(2));
+
+		// only the second way, other tiles get other instances
+		List<Way> other = index.getWays(new Area(d.getLatitude(), d.getLongitude(), d.getLatitude(), d.getLongitude()));
+		assertEquals(2, other.size());
+		assertNotSame(w2.get(1), other.get(0).getPoints().get(1));
+		assertSame(other.get(0).getPoints().get(1), other.get(1).getPoints().get(0));
+	}
+
+	@Test
+	public void testEmpty() {
+		CoastlineIndex index = new CoastlineIndex.Builder().build();
+		assertTrue(index.getWays(new Area(0, 0, 100, 100)).isEmpty());
+	}
+}
@@ -118,5 +118,28 @@ public class CustomCollectionsTest {
 		assertEquals(99, map.size());
 		assertNull(map.get(idOffset + 5));
 	}
-	
+
+	@Test
+	public void testOSMIdSet() {
+		testSet(new OSMIdSet(), 0L);
+		testSet(new OSMIdSet(), -10000L);
+		testSet(new OSMIdSet(), 1L << 35);
+		testSet(new OSMIdSet(), -1L << 35);
+	}
+
+	private void testSet(OSMIdSet set, long idOffset) {
+		assertTrue(set.isEmpty());
+		for (long i = 1; i < 10000; i += 3) {
+			assertTrue(set.add(idOffset + i));
+			assertFalse(set.add(idOffset + i));
+		}
+		assertEquals(3333, set.size());
+		for (long i = -1000; i < 11000; i++) {
+			assertEquals(i >= 1 && i < 10000 && (i - 1) % 3 == 0, set.contains(idOffset + i));
+		}
+		assertFalse(set.contains(idOffset + 123456789));
+		set.clear();
+		assertEquals(0, set.size());
+		assertFalse(set.contains(idOffset + 1));
+	}
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.me.parabola.imgfmt.app.Coord;
+import uk.me.parabola.mkgmap.general.MapElement;
+import uk.me.parabola.mkgmap.general.MapLine;
+import uk.me.parabola.mkgmap.general.MapPoint;
+import uk.me.parabola.util.EnhancedProperties;
+
+import static org.junit.Assert.*;
+
+public class OsmMapDataSourceTest {
+
+	/**
+	 * The first pass of --two-pass-osm-read only decides which nodes are
+	 * saved, the result must be the same as without it.
+	 */
+	@Test
+	public void testTwoPassSameAsOnePass() throws IOException {
+		File f = File.createTempFile("twopass", ".osm");
+		f.deleteOnExit();
+		Files.write(f.toPath(), createOsm().getBytes(StandardCharsets.UTF_8));
+
+		OsmMapDataSource onePass = load(f, false);
+		OsmMapDataSource twoPass = load(f, true);
+
+		// the POI, the road and the polygons of the multipolygon and the landuse
+		assertFalse(onePass.getPoints().isEmpty());
+		assertFalse(onePass.getLines().isEmpty());
+		assertTrue(onePass.getShapes().size() >= 2);
+		assertEquals(describe(onePass.getPoints()), describe(twoPass.getPoints()));
+		assertEquals(describe(onePass.getLines()), describe(twoPass.getLines()));
+		assertEquals(describe(onePass.getShapes()), describe(twoPass.getShapes()));
+	}
+
+	private static OsmMapDataSource load(File f, boolean twoPass) throws IOException {
+		EnhancedProperties props = new EnhancedProperties();
+		props.setProperty("route", "");
+		if (twoPass)
+			props.setProperty("two-pass-osm-read", "");
+		OsmMapDataSource src = new OsmMapDataSource();
+		src.config(props);
+		src.load(f.getPath(), false);
+		return src;
+	}
+
+	/**
+	 * Some roads with a turn restriction, a multipolygon with a hole, a POI,
+	 * untagged nodes that are not used and ways that use nodes which come
+	 * after them in the file.
+	 */
+	private static String createOsm() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("<?xml version='1.0' encoding='UTF-8'?>\n<osm version='0.6'>\n");
+		sb.append("<bounds minlat='50.99' minlon='-0.01' maxlat='51.03' maxlon='0.03'/>\n");
+		// a grid of nodes, some are written after the ways
+		StringBuilder late = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			for (int j = 0; j < 10; j++) {
+				int id = i * 10 + j + 1;
+				StringBuilder out = id % 7 == 0 ? late : sb;
+				out.append("<node id='").append(id).append("' lat='").append(51 + i * 0.002)
+						.append("' lon='").append(j * 0.002).append("'/>\n");
+			}
+		}
+		// not used by anything
+		sb.append("<node id='500' lat='51.001' lon='0.001'/>\n");
+		sb.append("<node id='501' lat='51.011' lon='0.011'>")
+				.append("<tag k='amenity' v='pub'/><tag k='name' v='The Anchor'/></node>\n");
+		// roads along the rows and columns 2 and 5
+		int wayId = 1;
+		for (int k : new int[] {2, 5}) {
+			appendWay(sb, wayId++, "highway", "residential", "Row " + k, k * 10 + 1, 1, 10);
+			appendWay(sb, wayId++, "highway", "residential", "Column " + k, k + 1, 10, 10);
+		}
+		// outer ring of the multipolygon in two untagged parts and the inner ring
+		appendWay(sb, 10, null, null, null, 1, 1, 10);
+		sb.append("<way id='11'><nd ref='10'/><nd ref='100'/><nd ref='91'/><nd ref='1'/></way>\n");
+		sb.append("<way id='12'><nd ref='34'/><nd ref='37'/><nd ref='67'/><nd ref='64'/><nd ref='34'/></way>\n");
+		// a closed way with a tag
+		sb.append("<way id='13'><nd ref='66'/><nd ref='68'/><nd ref='88'/><nd ref='86'/><nd ref='66'/>")
+				.append("<tag k='landuse' v='grass'/></way>\n");
+		sb.append(late);
+		sb.append("<relation id='1'><member type='way' ref='10' role='outer'/>")
+				.append("<member type='way' ref='11' role='outer'/><member type='way' ref='12' role='inner'/>")
+				.append("<tag k='type' v='multipolygon'/><tag k='natural' v='water'/><tag k='name' v='Lake'/></relation>\n");
+		sb.append("<relation id='2'><member type='way' ref='1' role='from'/>")
+				.append("<member type='node' ref='26' role='via'/><member type='way' ref='4' role='to'/>")
+				.append("<tag k='type' v='restriction'/><tag k='restriction' v='no_left_turn'/></relation>\n");
+		sb.append("</osm>\n");
+		return sb.toString();
+	}
+
+	/**
+	 * Add a way with the nodes first, first + step, ...
+	 */
+	private static void appendWay(StringBuilder sb, int id, String key, String value, String name, int first,
+			int step, int num) {
+		sb.append("<way id='").append(id).append("'>");
+		for (int i = 0; i < num; i++)
+			sb.append("<nd ref='").append(first + i * step).append("'/>");
+		if (key != null)
+			sb.append("<tag k='").append(key).append("' v='").append(value).append("'/>");
+		if (name != null)
+			sb.append("<tag k='name' v='").append(name).append("'/>");
+		sb.append("</way>\n");
+	}
+
+	private static String describe(List<? extends MapElement> elements) {
+		StringBuilder sb = new StringBuilder();
+		for (MapElement el : elements) {
+			sb.append(el.getClass().getSimpleName()).append(' ').append(el.getType()).append(' ')
+					.append(el.getName()).append(':');
+			List<Coord> points;
+			if (el instanceof MapLine)
+				points = ((MapLine) el).getPoints();
+			else
+				points = Collections.singletonList(((MapPoint) el).getLocation());
+			for (Coord co : points)
+				sb.append(' ').append(co.getHighPrecLat()).append(',').append(co.getHighPrecLon());
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+}
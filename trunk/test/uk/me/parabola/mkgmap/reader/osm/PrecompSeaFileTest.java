@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.me.parabola.imgfmt.app.Coord;
+
+import static org.junit.Assert.*;
+
+public class PrecompSeaFileTest {
+	// the tile that contains 51.4,0.01
+	private static final int LAT = 73 * SeaGenerator.PRECOMP_RASTER;
+	private static final int LON = 0;
+
+	private static String key(int lat, int lon) {
+		return lat + "_" + lon;
+	}
+
+	private static Way way(long id, String natural, Coord... points) {
+		Way w = new Way(id, Arrays.asList(points));
+		w.addTag("natural", natural);
+		return w;
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		File dir = Files.createTempDirectory("sea").toFile();
+		File seaFile = new File(dir, "sea.bin");
+		try {
+			Coord a = new Coord(51.4, 0.01);
+			Coord b = new Coord(51.41, 0.02);
+			Coord c = new Coord(51.405, 0.1234567);
+			List<Way> ways = new ArrayList<>();
+			ways.add(way(1, "land", a, b, c, a));
+			// same position, different instance
+			ways.add(way(2, "sea", new Coord(51.41, 0.02), new Coord(51.3, -0.01)));
+
+			try (PrecompSeaFile.Writer writer = new PrecompSeaFile.Writer(seaFile)) {
+				writer.addTile(key(LAT, LON + SeaGenerator.PRECOMP_RASTER), "sea");
+				writer.addTile(key(LAT + SeaGenerator.PRECOMP_RASTER, LON), "land");
+				writer.addMixedTile(key(LAT, LON), ways);
+			}
+			assertTrue(PrecompSeaFile.isPrecompSeaFile(seaFile.getPath()));
+			assertFalse(PrecompSeaFile.isPrecompSeaFile(dir.getPath()));
+
+			PrecompSeaFile sea = PrecompSeaFile.open(seaFile.getPath());
+			int[] pos = SeaGenerator.getIndexPos(key(LAT, LON));
+			byte[][] grid = sea.getIndexGrid();
+			assertEquals(SeaGenerator.MIXED_TILE, grid[pos[0]][pos[1]]);
+			assertEquals(SeaGenerator.SEA_TILE, grid[pos[0] - 1][pos[1]]);
+			assertEquals(SeaGenerator.LAND_TILE, grid[pos[0]][pos[1] - 1]);
+			assertEquals(0, grid[pos[0] + 1][pos[1]]);
+			assertTrue(sea.readTile(pos[0] - 1, pos[1]).isEmpty());
+
+			List<Way> read = sea.readTile(pos[0], pos[1]);
+			assertEquals(2, read.size());
+			for (int i = 0; i < ways.size(); i++) {
+				Way w = read.get(i);
+				assertEquals(ways.get(i).getTag("natural"), w.getTag("natural"));
+				assertEquals(ways.get(i).getPoints().size(), w.getPoints().size());
+				for (int j = 0; j < w.getPoints().size(); j++)
+					assertTrue(ways.get(i).getPoints().get(j).highPrecEquals(w.getPoints().get(j)));
+			}
+			Way land = read.get(0);
+			assertTrue(land.isClosedInOSM());
+			assertTrue(land.isClosed());
+			assertSame(land.getPoints().get(1), read.get(1).getPoints().get(0));
+			assertFalse(read.get(1).isClosedInOSM());
+
+			// new instances for each call
+			assertNotSame(land.getPoints().get(0), sea.readTile(pos[0], pos[1]).get(0).getPoints().get(0));
+		} finally {
+			for (File f : dir.listFiles())
+				f.delete();
+			dir.delete();
+		}
+	}
+
+	@Test
+	public void testCorruptFile() throws IOException {
+		File dir = Files.createTempDirectory("sea").toFile();
+		File truncated = new File(dir, "truncated.bin");
+		File corrupt = new File(dir, "corrupt.bin");
+		try {
+			List<Way> ways = new ArrayList<>();
+			ways.add(way(1, "land", new Coord(51.4, 0.01), new Coord(51.41, 0.02), new Coord(51.4, 0.01)));
+			for (File f : Arrays.asList(truncated, corrupt)) {
+				try (PrecompSeaFile.Writer writer = new PrecompSeaFile.Writer(f)) {
+					writer.addMixedTile(key(LAT, LON), ways);
+				}
+			}
+			try (RandomAccessFile raf = new RandomAccessFile(truncated, "rw")) {
+				raf.setLength(raf.length() - 3);
+			}
+			try {
+				PrecompSeaFile.open(truncated.getPath());
+				fail("truncated file was opened");
+			} catch (IOException e) {
+				assertTrue(e.getMessage().contains(truncated.getName()));
+			}
+
+			// the tile is at the end, let the last number never end
+			try (RandomAccessFile raf = new RandomAccessFile(corrupt, "rw")) {
+				raf.seek(raf.length() - 3);
+				raf.write(new byte[] {(byte) 0xff, (byte) 0xff, (byte) 0xff});
+			}
+			PrecompSeaFile sea = PrecompSeaFile.open(corrupt.getPath());
+			int[] pos = SeaGenerator.getIndexPos(key(LAT, LON));
+			try {
+				sea.readTile(pos[0], pos[1]);
+				fail("corrupt tile was read");
+			} catch (IOException e) {
+				assertTrue(e.getMessage().contains(corrupt.getName()));
+			}
+		} finally {
+			for (File f : dir.listFiles())
+				f.delete();
+			dir.delete();
+		}
+	}
+
+	@Test
+	public void testConvert() throws IOException {
+		File dir = Files.createTempDirectory("sea").toFile();
+		File seaFile = new File(dir.getParentFile(), dir.getName() + ".bin");
+		try {
+			String tileKey = key(LAT, LON);
+			try (PrintWriter pw = new PrintWriter(new File(dir, "index.txt"))) {
+				pw.println(tileKey + ";sea_" + tileKey + ".osm");
+				pw.println(key(LAT, LON - SeaGenerator.PRECOMP_RASTER) + ";sea");
+			}
+			try (PrintWriter pw = new PrintWriter(new File(dir, "sea_" + tileKey + ".osm"))) {
+				pw.println("<?xml version='1.0' encoding='UTF-8'?>");
+				pw.println("<osm version='0.6'>");
+				pw.println("<node id='1' lat='51.4' lon='0.01'/>");
+				pw.println("<node id='2' lat='51.41' lon='0.02'/>");
+				pw.println("<node id='3' lat='51.405' lon='0.1234567'/>");
+				pw.println("<node id='4' lat='51.3' lon='-0.01'/>");
+				pw.println("<way id='1'><nd ref='1'/><nd ref='2'/><nd ref='3'/><nd ref='1'/><tag k='natural' v='land'/></way>");
+				pw.println("<way id='2'><nd ref='2'/><nd ref='4'/><tag k='natural' v='sea'/></way>");
+				pw.println("</osm>");
+			}
+
+			try (PrecompSeaFile.Writer writer = new PrecompSeaFile.Writer(seaFile)) {
+				SeaGenerator.convertPrecompSea(dir.getPath(), writer);
+			}
+			PrecompSeaFile sea = PrecompSeaFile.open(seaFile.getPath());
+			int[] pos = SeaGenerator.getIndexPos(tileKey);
+			assertEquals(SeaGenerator.SEA_TILE, sea.getIndexGrid()[pos[0] + 1][pos[1]]);
+			List<Way> read = sea.readTile(pos[0], pos[1]);
+			assertEquals(2, read.size());
+			assertEquals("land", read.get(0).getTag("natural"));
+			assertEquals("sea", read.get(1).getTag("natural"));
+			assertTrue(read.get(0).isClosedInOSM());
+			assertTrue(new Coord(51.405, 0.1234567).highPrecEquals(read.get(0).getPoints().get(2)));
+			assertSame(read.get(0).getPoints().get(1), read.get(1).getPoints().get(0));
+		} finally {
+			seaFile.delete();
+			for (File f : dir.listFiles())
+				f.delete();
+			dir.delete();
+		}
+	}
+}
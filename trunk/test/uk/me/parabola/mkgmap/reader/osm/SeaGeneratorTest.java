@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.me.parabola.imgfmt.app.Coord;
+
+import static org.junit.Assert.*;
+
+public class SeaGeneratorTest {
+
+	/**
+	 * Segments in random order are joined to the rings and open chains they
+	 * were cut from, with fake ids and with real ids.
+	 */
+	@Test
+	public void testJoinWays() {
+		for (int seed = 0; seed < 20; seed++) {
+			Random rnd = new Random(seed);
+			Map<Coord, Integer> numbers = new IdentityHashMap<>();
+			List<Way> segments = new ArrayList<>();
+			List<String> expClosed = new ArrayList<>();
+			List<String> expOpen = new ArrayList<>();
+
+			expClosed.add(cut(numbers, chain(numbers, 12, true), 4, false, segments));
+			expClosed.add(cut(numbers, chain(numbers, 9, true), 3, true, segments));
+			expClosed.add(cut(numbers, chain(numbers, 20, true), 7, true, segments));
+			expOpen.add(cut(numbers, chain(numbers, 8, false), 3, false, segments));
+			expOpen.add(cut(numbers, chain(numbers, 10, false), 4, true, segments));
+			// a way that is closed already and an empty one that is dropped
+			expClosed.add(cut(numbers, chain(numbers, 5, true), 1, true, segments));
+			segments.add(new Way(FakeIdGenerator.makeFakeId()));
+
+			List<Way> realSegments = new ArrayList<>();
+			List<List<Coord>> realPoints = new ArrayList<>();
+			for (Way w : segments) {
+				if (!FakeIdGenerator.isFakeId(w.getId())) {
+					realSegments.add(w);
+					realPoints.add(new ArrayList<>(w.getPoints()));
+				}
+			}
+
+			Collections.shuffle(segments, rnd);
+			List<Way> joined = SeaGenerator.joinWays(segments);
+			assertTrue(segments.isEmpty());
+
+			List<String> closed = new ArrayList<>();
+			List<String> open = new ArrayList<>();
+			for (Way w : joined) {
+				if (w.hasIdenticalEndPoints())
+					closed.add(ring(numbers, w.getPoints()));
+				else
+					open.add(sequence(numbers, w.getPoints()));
+			}
+			Collections.sort(expClosed);
+			Collections.sort(closed);
+			Collections.sort(expOpen);
+			Collections.sort(open);
+			assertEquals(expClosed, closed);
+			assertEquals(expOpen, open);
+
+			// ways from OSM are not changed, the result is a new way
+			for (int i = 0; i < realSegments.size(); i++)
+				assertEquals(realPoints.get(i), realSegments.get(i).getPoints());
+		}
+	}
+
+	/**
+	 * @return n new points, and the first one again if closed
+	 */
+	private static List<Coord> chain(Map<Coord, Integer> numbers, int n, boolean closed) {
+		List<Coord> points = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			Coord co = new Coord(numbers.size() * 10, numbers.size() * 5);
+			numbers.put(co, numbers.size());
+			points.add(co);
+		}
+		if (closed)
+			points.add(points.get(0));
+		return points;
+	}
+
+	/**
+	 * Cut the points into the given number of ways that share their end points.
+	 * @return the expected result of joining
+	 */
+	private static String cut(Map<Coord, Integer> numbers, List<Coord> points, int parts, boolean fakeIds, List<Way> segments) {
+		int start = 0;
+		for (int i = 1; i <= parts; i++) {
+			int end = i == parts ? points.size() - 1 : i * (points.size() - 1) / parts;
+			long id = fakeIds ? FakeIdGenerator.makeFakeId() : segments.size() + 1;
+			segments.add(new Way(id, points.subList(start, end + 1)));
+			start = end;
+		}
+		return points.get(0) == points.get(points.size() - 1) ? ring(numbers, points) : sequence(numbers, points);
+	}
+
+	private static String sequence(Map<Coord, Integer> numbers, List<Coord> points) {
+		StringBuilder sb = new StringBuilder();
+		for (Coord co : points)
+			sb.append(numbers.get(co)).append(' ');
+		return sb.toString();
+	}
+
+	/**
+	 * A closed way can start anywhere, so it starts with the lowest number here.
+	 */
+	private static String ring(Map<Coord, Integer> numbers, List<Coord> points) {
+		List<Coord> ring = new ArrayList<>(points.subList(0, points.size() - 1));
+		int first = 0;
+		for (int i = 1; i < ring.size(); i++) {
+			if (ring.get(i).getLatitude() < ring.get(first).getLatitude())
+				first = i;
+		}
+		Collections.rotate(ring, -first);
+		ring.add(ring.get(0));
+		return sequence(numbers, ring);
+	}
+}
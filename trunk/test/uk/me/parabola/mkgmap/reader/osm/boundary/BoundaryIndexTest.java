@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.osm.boundary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import uk.me.parabola.imgfmt.app.Coord;
+import uk.me.parabola.mkgmap.reader.osm.Tags;
+import uk.me.parabola.util.EnhancedProperties;
+
+public class BoundaryIndexTest {
+	private static final int RASTER = BoundaryUtil.RASTER;
+
+	private static Boundary createBoundary(String id, int level, String name, Area area) {
+		Tags tags = new Tags();
+		tags.put("boundary", "administrative");
+		tags.put("admin_level", Integer.toString(level));
+		tags.put("name", name);
+		return new Boundary(area, tags, id);
+	}
+
+	private static Area triangle(int x1, int y1, int x2, int y2, int x3, int y3) {
+		Path2D.Double path = new Path2D.Double();
+		path.moveTo(x1, y1);
+		path.lineTo(x2, y2);
+		path.lineTo(x3, y3);
+		path.closePath();
+		return new Area(path);
+	}
+
+	private static List<Boundary> createBoundaries() {
+		List<Boundary> boundaries = new ArrayList<>();
+		boundaries.add(createBoundary("r1", 2, "Country", new Area(new Rectangle(0, 0, 2 * RASTER, RASTER))));
+		boundaries.add(createBoundary("r2", 4, "West", new Area(new Rectangle(0, 0, RASTER, RASTER))));
+		boundaries.add(createBoundary("r3", 4, "East", new Area(new Rectangle(RASTER, 0, RASTER, RASTER))));
+		Area district = triangle(1000, 1000, 70000, 2000, 30000, 45000);
+		district.subtract(new Area(new Rectangle(20000, 10000, 5000, 5000)));
+		boundaries.add(createBoundary("r4", 6, "District", district));
+		return boundaries;
+	}
+
+	@Test
+	public void testSameResultsAsGrid() throws IOException {
+		File dir = Files.createTempDirectory("bounds").toFile();
+		File indexFile = new File(dir, "bounds.idx");
+		try {
+			List<Boundary> boundaries = createBoundaries();
+			BoundarySaver saver = new BoundarySaver(dir, BoundarySaver.QUADTREE_DATA_FORMAT);
+			for (int lon = 0; lon < 2 * RASTER; lon += RASTER) {
+				uk.me.parabola.imgfmt.app.Area bbox = new uk.me.parabola.imgfmt.app.Area(0, lon, RASTER, lon + RASTER);
+				List<Boundary> clipped = new ArrayList<>();
+				for (Boundary b : boundaries) {
+					Area area = new Area(b.getArea());
+					area.intersect(new Area(new Rectangle(lon, 0, RASTER, RASTER)));
+					if (!area.isEmpty())
+						clipped.add(new Boundary(area, b.getTags(), b.getId()));
+				}
+				saver.saveQuadTree(new BoundaryQuadTree(bbox, clipped, null), "bounds_0_" + lon + ".bnd");
+			}
+			saver.end();
+
+			BoundaryIndex.create(dir.getPath(), indexFile);
+			assertTrue(BoundaryIndex.isIndexFile(indexFile.getPath()));
+			assertFalse(BoundaryIndex.isIndexFile(dir.getPath()));
+
+			EnhancedProperties props = new EnhancedProperties();
+			uk.me.parabola.imgfmt.app.Area searchBbox = new uk.me.parabola.imgfmt.app.Area(0, 0, RASTER, 2 * RASTER - 1);
+			BoundaryGrid grid = new BoundaryGrid(dir.getPath(), searchBbox, props);
+			BoundaryLookup lookup = BoundaryIndex.open(indexFile.getPath()).createLookup(props);
+
+			int found = 0;
+			for (int lat = 0; lat < RASTER; lat += 997) {
+				for (int lon = 0; lon < 2 * RASTER - 1; lon += 1009) {
+					Coord co = new Coord(lat, lon);
+					Tags expected = grid.get(co);
+					Tags tags = lookup.get(co);
+					if (expected == null) {
+						assertNull(tags);
+						continue;
+					}
+					found++;
+					assertNotNull(tags);
+					assertEquals(expected.toString(), tags.toString());
+				}
+			}
+			assertTrue(found > 0);
+			// most searches in the grid are answered by the rasters of the leaves
+			assertTrue(grid.getRasterHits() > grid.getSearches() / 2);
+
+			Tags tags = lookup.get(new Coord(5000, 20000));
+			assertEquals("District", tags.get("mkgmap:admin_level6"));
+			assertEquals("West", tags.get("mkgmap:admin_level4"));
+			// inside the hole of the district
+			tags = lookup.get(new Coord(12500, 22500));
+			assertNull(tags.get("mkgmap:admin_level6"));
+			assertEquals("West", tags.get("mkgmap:admin_level4"));
+			assertNull(lookup.get(new Coord(5000, 3 * RASTER)));
+		} finally {
+			for (File f : dir.listFiles())
+				f.delete();
+			dir.delete();
+		}
+	}
+}
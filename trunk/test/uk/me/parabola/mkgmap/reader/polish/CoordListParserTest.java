@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.mkgmap.reader.polish;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.me.parabola.imgfmt.app.Coord;
+
+import static org.junit.Assert.*;
+
+public class CoordListParserTest {
+
+	private static void check(String value, double... expected) {
+		List<Coord> points = CoordListParser.parse(value);
+		assertEquals(value, expected.length / 2, points.size());
+		for (int i = 0; i < points.size(); i++) {
+			Coord co = points.get(i);
+			assertTrue(value, new Coord(expected[i * 2], expected[i * 2 + 1]).highPrecEquals(co));
+		}
+	}
+
+	@Test
+	public void testForms() {
+		check("(51.5,-0.125)", 51.5, -0.125);
+		check("(51.5,-0.125),(51.25,0.5)", 51.5, -0.125, 51.25, 0.5);
+		check("( 51.5 , -0.125 ) , ( 51.25,0.5 )", 51.5, -0.125, 51.25, 0.5);
+		check("51.5,-0.125", 51.5, -0.125);
+		check("(51.5,-0.125", 51.5, -0.125);
+		check("(.5,5.)", 0.5, 5);
+		check("(-0,000.000)", 0, 0);
+		// not read directly
+		check("(5.1e1,-1.25E-1)", 51, -0.125);
+		check("(+51.5,0.125)", 51.5, 0.125);
+		check("(51.12345678901234567,0.123456789012345678901234)", 51.12345678901234567, 0.123456789012345678901234);
+		check("(51.5,0.125)junk", 51.5, 0.125);
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testInvalid() {
+		CoordListParser.parse("(51.5,x)");
+	}
+
+	/**
+	 * The points must be exactly the same as with Double.valueOf().
+	 */
+	@Test
+	public void testSameAsValueOf() {
+		Random r = new Random(42);
+		for (int i = 0; i < 100_000; i++) {
+			double lat = (r.nextDouble() - 0.5) * 180;
+			double lon = (r.nextDouble() - 0.5) * 360;
+			String s1 = String.format(Locale.ROOT, "%." + r.nextInt(12) + "f", lat);
+			String s2 = String.format(Locale.ROOT, "%." + r.nextInt(12) + "f", lon);
+			Coord co = CoordListParser.parse("(" + s1 + "," + s2 + ")").get(0);
+			Coord exp = new Coord(Double.valueOf(s1), Double.valueOf(s2));
+			assertEquals(s1, exp.getHighPrecLat(), co.getHighPrecLat());
+			assertEquals(s2, exp.getHighPrecLon(), co.getHighPrecLon());
+			assertEquals(s1, exp.getLatitude(), co.getLatitude());
+			assertEquals(s2, exp.getLongitude(), co.getLongitude());
+		}
+	}
+}
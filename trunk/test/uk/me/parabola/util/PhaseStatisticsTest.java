@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 or
+ * version 2 as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ */
+package uk.me.parabola.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PhaseStatisticsTest {
+
+	@Test
+	@SuppressWarnings("try")
+	public void testNestedPhases() throws IOException {
+		File f = File.createTempFile("phases", ".csv");
+		f.deleteOnExit();
+		PhaseStatistics.setEnabled(true);
+		try {
+			PhaseStatistics.startTile("63240001");
+			try (PhaseStatistics.Phase outer = PhaseStatistics.phase("outer")) {
+				for (int i = 0; i < 3; i++) {
+					try (PhaseStatistics.Phase inner = PhaseStatistics.phase("inner")) {
+						sleep(20);
+					}
+				}
+			}
+			PhaseStatistics.endTile();
+			// not measured, no tile was started
+			try (PhaseStatistics.Phase p = PhaseStatistics.phase("outer")) {
+				sleep(1);
+			}
+			PhaseStatistics.writeReport(f.getPath());
+		} finally {
+			PhaseStatistics.setEnabled(false);
+		}
+		List<String> lines = Files.readAllLines(f.toPath(), StandardCharsets.UTF_8);
+		assertEquals(3, lines.size());
+		assertEquals("tile,phase,count,wall_ms,cpu_ms,allocated_bytes", lines.get(0));
+		String[] inner = lines.get(1).split(",");
+		String[] outer = lines.get(2).split(",");
+		assertEquals("inner", inner[1]);
+		assertEquals("3", inner[2]);
+		long innerMs = Long.parseLong(inner[3]);
+		assertTrue(innerMs >= 60);
+		assertEquals("outer", outer[1]);
+		assertEquals("1", outer[2]);
+		// time of the nested phases is not included, else it would be at least the inner time
+		assertTrue(Long.parseLong(outer[3]) < innerMs);
+	}
+
+	@Test
+	@SuppressWarnings("try")
+	public void testJsonNames() throws IOException {
+		File f = File.createTempFile("phases", ".json");
+		f.deleteOnExit();
+		PhaseStatistics.setEnabled(true);
+		try {
+			PhaseStatistics.startTile("C:\\maps\\\"63240001\"\t");
+			try (PhaseStatistics.Phase p = PhaseStatistics.phase("load")) {
+				sleep(1);
+			}
+			PhaseStatistics.endTile();
+			PhaseStatistics.writeReport(f.getPath());
+		} finally {
+			PhaseStatistics.setEnabled(false);
+		}
+		List<String> lines = Files.readAllLines(f.toPath(), StandardCharsets.UTF_8);
+		assertEquals("  {\"tile\": \"C:\\\\maps\\\\\\\"63240001\\\"\\t\", \"phases\": [", lines.get(1));
+		assertTrue(lines.get(2).startsWith("    {\"phase\": \"load\", \"count\": 1,"));
+	}
+
+	@Test
+	public void testJsonString() {
+		assertEquals("\"a\\\\b\\\"c\\n\\u0001\"", PhaseStatistics.jsonString("a\\b\"c\n\u0001"));
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}